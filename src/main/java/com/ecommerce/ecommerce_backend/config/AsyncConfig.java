@@ -0,0 +1,132 @@
+package com.ecommerce.ecommerce_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Bounded pool that runs accepted checkouts.
+     * When the queue is full new checkouts are rejected (503) instead of piling up during flash sales.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor checkoutExecutor(
+            @Value("${checkout.worker.pool-size:8}") int poolSize,
+            @Value("${checkout.worker.queue-capacity:500}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("checkout-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Allocates order number blocks for BlockOrderNumberGenerator, off the checkout threads: a checkout holding
+     * a connection never waits for a second one. One thread, at most one allocation outstanding.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor orderNumberExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("order-number-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs cart repricing after product price changes. One thread by default, so jobs never compete
+     * with each other for cart rows; queued jobs are coalesced per product by CartRepricer.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cartRepricingExecutor(
+            @Value("${cart.repricing.pool-size:1}") int poolSize,
+            @Value("${cart.repricing.queue-capacity:10000}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cart-reprice-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs bulk product imports. One at a time by default: each import already writes in large batches,
+     * and a small queue bounds the spooled upload files waiting on disk.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor productImportExecutor(
+            @Value("${product.import.pool-size:1}") int poolSize,
+            @Value("${product.import.queue-capacity:5}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("product-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Claims hot-SKU escrow for counters that ran dry during a checkout (HotStockService), so the checkout
+     * transaction never waits on a claim. At most one refill per hot product is queued.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor hotStockRefillExecutor(
+            @Value("${inventory.hot.refill-threads:2}") int poolSize) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("hot-stock-refill-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Rebuilds the product search index after catalog-wide changes, off the event and polling threads.
+     * ProductSearchService queues at most one rebuild behind the running one.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor searchIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("search-index-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Writes /api/products/changes events. Subscribers hold no thread while idle; a subscriber with events
+     * to send has at most one task here, so the queue is bounded by product.stream.max-subscribers.
+     * Shutdown does not wait: subscribers reconnect to another node and resume from their last event id.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor productStreamExecutor(
+            @Value("${product.stream.send-threads:4}") int poolSize) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("product-stream-");
+        executor.initialize();
+        return executor;
+    }
+}
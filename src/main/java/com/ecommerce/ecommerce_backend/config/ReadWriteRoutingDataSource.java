@@ -0,0 +1,68 @@
+package com.ecommerce.ecommerce_backend.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections of read-only transactions declared by the application (@Transactional(readOnly = true) on
+ * service methods) to the replica, and everything else to the primary.
+ *
+ * Spring Data's own readOnly default on repository finders does not count: those run outside any service
+ * transaction, typically straight after a write (cache fills, re-reads). The replica is also skipped while
+ * ReplicaLagGuard says it is behind, for the current user's recent writes, and inside onPrimary().
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction's read-only flag is only set after
+ * the transaction manager has asked for a connection.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private static final String SPRING_DATA_PREFIX = "org.springframework.data.";
+
+    private static final ThreadLocal<Integer> pinnedToPrimary = ThreadLocal.withInitial(() -> 0);
+
+    private final ReplicaLagGuard lagGuard;
+
+    public ReadWriteRoutingDataSource(Object primary, Object replica, ReplicaLagGuard lagGuard) {
+        this.lagGuard = lagGuard;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Run reads that must see the latest committed data on the primary, even inside a read-only transaction.
+     * Takes effect for connections fetched inside the call, i.e. transactions started or first used there.
+     */
+    public static <T> T onPrimary(Supplier<T> reads) {
+        pinnedToPrimary.set(pinnedToPrimary.get() + 1);
+        try {
+            return reads.get();
+        } finally {
+            int depth = pinnedToPrimary.get() - 1;
+            if (depth == 0) {
+                pinnedToPrimary.remove();
+            } else {
+                pinnedToPrimary.set(depth);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            lagGuard.trackWrite();
+            return PRIMARY;
+        }
+
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transactionName == null || transactionName.startsWith(SPRING_DATA_PREFIX) || pinnedToPrimary.get() > 0) {
+            return PRIMARY;
+        }
+        return lagGuard.replicaReadable() ? REPLICA : PRIMARY;
+    }
+}
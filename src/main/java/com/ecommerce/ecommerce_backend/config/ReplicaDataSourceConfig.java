@@ -0,0 +1,87 @@
+package com.ecommerce.ecommerce_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary + read replica (datasource.replica.enabled=true). Without it Boot's single spring.datasource is used.
+ *
+ * The primary is configured by spring.datasource.*, the replica by datasource.replica.* (credentials default
+ * to the primary's). Each has its own Hikari pool, so read traffic cannot starve checkouts of connections.
+ *
+ * Refuses to start with spring.jpa.open-in-view on: the request-wide EntityManager keeps the connection of the
+ * request's first transaction, so a write after a read-only call would be sent to the replica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    public ReplicaDataSourceConfig(@Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("datasource.replica.enabled=true requires spring.jpa.open-in-view=false");
+        }
+    }
+
+    @Bean
+    public HikariDataSource primaryDataSource(
+            DataSourceProperties properties,
+            @Value("${datasource.primary.pool-size:20}") int poolSize) {
+
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        dataSource.setMaximumPoolSize(poolSize);
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${datasource.replica.url}") String url,
+            @Value("${datasource.replica.username:}") String username,
+            @Value("${datasource.replica.password:}") String password,
+            @Value("${datasource.replica.pool-size:30}") int poolSize) {
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+        dataSource.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${datasource.replica.node-id:${order.number.node-id:0}}") int nodeId,
+            @Value("${datasource.replica.max-lag-ms:2000}") long maxLagMillis) {
+
+        return new ReplicaLagGuard(primary, replica, nodeId, maxLagMillis);
+    }
+
+    /**
+     * The DataSource JPA, JdbcTemplate and the transaction manager use.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            ReplicaLagGuard replicaLagGuard) {
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, replicaLagGuard);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
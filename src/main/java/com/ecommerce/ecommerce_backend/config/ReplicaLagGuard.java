@@ -0,0 +1,140 @@
+package com.ecommerce.ecommerce_backend.config;
+
+import com.ecommerce.ecommerce_backend.event.OrderChangedEvent;
+import com.ecommerce.ecommerce_backend.security.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether the replica is fresh enough to read from.
+ *
+ * Every probe stamps this node's replica_heartbeat row on the primary and reads it back from the replica;
+ * the stamp seen there is how far replication has caught up. Reads go to the primary when that is older than
+ * max-lag-ms (or the replica is unreachable), and for a user whose last write on this node (a checkout,
+ * a cart edit) committed after it - read-your-writes without pinning users to the primary for a fixed time.
+ *
+ * Those writes are only known to the node that made them, so read-your-writes holds as long as a user's requests
+ * stay on one node: run with sticky sessions (load balancer affinity on the user's token or a cookie).
+ */
+@Slf4j
+public class ReplicaLagGuard {
+
+    private static final String STAMP_SQL = "UPDATE replica_heartbeat SET beat_at = ? WHERE node_id = ?";
+    private static final String INSERT_STAMP_SQL = "INSERT INTO replica_heartbeat (node_id, beat_at) VALUES (?, ?)";
+    private static final String READ_STAMP_SQL = "SELECT beat_at FROM replica_heartbeat WHERE node_id = ?";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final int nodeId;
+    private final long maxLagMillis;
+
+    // userId -> commit time of the user's latest write on this node, until the replica has caught up with it
+    private final Map<Long, Long> pendingWrites = new ConcurrentHashMap<>();
+
+    // Newest heartbeat stamp seen on the replica (this node's clock)
+    private volatile long replicaCaughtUpTo;
+
+    private volatile boolean lagging = true;
+
+    public ReplicaLagGuard(DataSource primary, DataSource replica, int nodeId, long maxLagMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.nodeId = nodeId;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-probe-interval-ms:500}")
+    public void probe() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update(STAMP_SQL, now, nodeId) == 0) {
+                primary.update(INSERT_STAMP_SQL, nodeId, now);
+            }
+            Long seen = replica.query(READ_STAMP_SQL, rs -> rs.next() ? rs.getLong(1) : null, nodeId);
+            if (seen != null && seen > replicaCaughtUpTo) {
+                replicaCaughtUpTo = seen;
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Replica lag probe failed: {}", e.getMessage());
+        }
+
+        long caughtUpTo = replicaCaughtUpTo;
+        // Strictly newer: a stamp from the same millisecond may have committed before the write
+        pendingWrites.values().removeIf(committedAt -> committedAt < caughtUpTo);
+
+        boolean nowLagging = now - caughtUpTo > maxLagMillis;
+        if (nowLagging != lagging) {
+            lagging = nowLagging;
+            if (nowLagging) {
+                log.warn("⚠️ Replica is {} ms behind, reading from the primary", now - caughtUpTo);
+            } else {
+                log.info("✅ Replica caught up, read-only transactions use it again");
+            }
+        }
+    }
+
+    /**
+     * True when a read-only transaction of the current thread may use the replica.
+     */
+    public boolean replicaReadable() {
+        long caughtUpTo = replicaCaughtUpTo;
+        if (System.currentTimeMillis() - caughtUpTo > maxLagMillis) {
+            return false;
+        }
+        Long userId = currentUserId();
+        if (userId == null) {
+            return true;
+        }
+        Long lastWrite = pendingWrites.get(userId);
+        return lastWrite == null || lastWrite < caughtUpTo;
+    }
+
+    /**
+     * A read-write transaction is using the primary: remember the current user's write once it commits.
+     */
+    public void trackWrite() {
+        Long userId = currentUserId();
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordWrite(userId);
+            }
+        });
+    }
+
+    /**
+     * Checkouts run on worker threads without the user's security context; their orders are tracked here.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getUserId() != null) {
+            recordWrite(event.getUserId());
+        }
+    }
+
+    public void recordWrite(Long userId) {
+        pendingWrites.merge(userId, System.currentTimeMillis(), Math::max);
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getUserId();
+        }
+        return null;
+    }
+}
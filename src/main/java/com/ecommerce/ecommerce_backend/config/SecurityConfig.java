@@ -1,6 +1,7 @@
 package com.ecommerce.ecommerce_backend.config;
 
 import com.ecommerce.ecommerce_backend.security.JwtFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -53,6 +54,9 @@ public class SecurityConfig {
 
                 .authorizeHttpRequests(auth -> auth
 
+                        // Streaming responses complete on an async dispatch - the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                         .requestMatchers("/uploads/**").permitAll()
                         // PUBLIC
                         .requestMatchers("/api/users/login", "/api/users/register").permitAll()
@@ -96,6 +100,9 @@ public class SecurityConfig {
         // Allow all headers including Authorization
         configuration.setAllowedHeaders(List.of("*"));
 
+        // Let the frontend read validators for conditional GETs
+        configuration.setExposedHeaders(List.of("ETag", "Last-Modified"));
+
         // ✅ Allow credentials (needed for Authorization header)
         configuration.setAllowCredentials(true);
 
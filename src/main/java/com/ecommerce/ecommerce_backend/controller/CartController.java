@@ -1,10 +1,16 @@
 package com.ecommerce.ecommerce_backend.controller;
 
+import com.ecommerce.ecommerce_backend.dto.CartDTO;
+import com.ecommerce.ecommerce_backend.dto.CartPatchRequest;
+import com.ecommerce.ecommerce_backend.dto.ReservationDTO;
 import com.ecommerce.ecommerce_backend.entity.Cart;
 import com.ecommerce.ecommerce_backend.entity.User;
 import com.ecommerce.ecommerce_backend.repository.UserRepository;
 import com.ecommerce.ecommerce_backend.security.UserPrincipal;
+import com.ecommerce.ecommerce_backend.services.CartMergePolicy;
 import com.ecommerce.ecommerce_backend.services.CartService;
+import com.ecommerce.ecommerce_backend.services.ReservationService;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -24,8 +30,11 @@ public class CartController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ReservationService reservationService;
+
     @PostMapping("/add")
-    public ResponseEntity<Cart> addToCart(
+    public ResponseEntity<CartDTO> addToCart(
             @RequestParam(required = false) String cartId,
             @RequestParam Long productId,
             @RequestParam(defaultValue = "1") int quantity,
@@ -38,7 +47,29 @@ public class CartController {
                 productId, quantity, cartId, authentication != null);
 
         Cart cart = cartService.addToCart(cartId,productId,quantity,user);
-        return ResponseEntity.ok(cart);
+        return ResponseEntity.ok(CartDTO.fromEntity(cart));
+    }
+
+    /**
+     * Apply several cart changes at once, in order, e.g.
+     * {"operations": [{"op": "add", "productId": 3, "quantity": 2}, {"op": "remove", "cartItemId": 17}]}
+     * Either all operations are applied or none; the final cart is returned.
+     */
+    @PatchMapping
+    public ResponseEntity<?> patchCart(
+            @RequestParam(required = false) String cartId,
+            @Valid @RequestBody CartPatchRequest request,
+            Authentication authentication
+    ) {
+        User user = getUserFromAuthentication(authentication);
+
+        try {
+            Cart cart = cartService.applyOperations(cartId, user, request.getOperations());
+            return ResponseEntity.ok(CartDTO.fromEntity(cart));
+        } catch (Exception e) {
+            log.error("❌ Failed to apply cart operations: {}", e.getMessage());
+            return ResponseEntity.status(400).body("Failed to update cart: " + e.getMessage());
+        }
     }
 
     private User getUserFromAuthentication(Authentication authentication) {
@@ -64,18 +95,34 @@ public class CartController {
     }
 
     @GetMapping
-    public Cart getCart(@RequestParam(required = false) String cartId,@AuthenticationPrincipal UserPrincipal user) {
+    public CartDTO getCart(@RequestParam(required = false) String cartId,@AuthenticationPrincipal UserPrincipal user) {
             System.out.println("USer Details ==>" + user);
 
             if (user != null) {
-                return cartService.getCartByUserId(user.getUserId());
+                return cartService.getCartView(null, user.getUserId());
             }
 
             if(cartId == null) {
                 throw new RuntimeException("CartId required for guest user");
             }
 
-            return cartService.getCart(cartId);
+            return cartService.getCartView(cartId, null);
+    }
+
+    /**
+     * Item count and total only - no cart lines are loaded
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<?> getCartSummary(@RequestParam(required = false) String cartId, @AuthenticationPrincipal UserPrincipal user) {
+        if (user == null && cartId == null) {
+            return ResponseEntity.badRequest().body("CartId required for guest user");
+        }
+
+        try {
+            return ResponseEntity.ok(cartService.getCartSummary(cartId, user != null ? user.getUserId() : null));
+        } catch (Exception e) {
+            return ResponseEntity.status(404).body(e.getMessage());
+        }
     }
 
     // DELETE a single cart item
@@ -90,25 +137,66 @@ public class CartController {
     }
 
     @PutMapping("/update/{cartItemId}")
-    public ResponseEntity<Cart> updateQuantity(
+    public ResponseEntity<CartDTO> updateQuantity(
             @PathVariable Long cartItemId,
             @RequestParam int quantity
     ) {
         Cart cart = cartService.updateQuantity(cartItemId, quantity);
-        return ResponseEntity.ok(cart);
+        return ResponseEntity.ok(CartDTO.fromEntity(cart));
     }
 
-    //merge cart
+    //merge cart (policy: SUM, MAX or KEEP_USER for products in both carts; defaults to cart.merge.policy)
     @PostMapping("/merge/{guestCartId}")
-    public  ResponseEntity<Cart> mergeCart(
+    public  ResponseEntity<CartDTO> mergeCart(
             @PathVariable String guestCartId,
+            @RequestParam(required = false) CartMergePolicy policy,
             Authentication authentication
             ) {
 
         UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
         Long userId = principal.getUserId();
-        Cart mergeCart = cartService.mergeCart(guestCartId, userId);
+        Cart mergeCart = policy != null
+                ? cartService.mergeCart(guestCartId, userId, policy)
+                : cartService.mergeCart(guestCartId, userId);
+
+        return  ResponseEntity.ok(CartDTO.fromEntity(mergeCart));
+    }
+
+    /**
+     * Start checkout: hold stock for every cart line for a limited time
+     */
+    @PostMapping("/reserve")
+    public ResponseEntity<?> reserveCart(@AuthenticationPrincipal UserPrincipal user) {
+        if (user == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+
+        try {
+            return ResponseEntity.ok(reservationService.reserve(user.getUserId()));
+        } catch (Exception e) {
+            log.error("❌ Failed to reserve cart for user {}: {}", user.getUserId(), e.getMessage());
+            return ResponseEntity.status(409).body("Failed to reserve cart: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/reserve")
+    public ResponseEntity<?> getReservation(@AuthenticationPrincipal UserPrincipal user) {
+        if (user == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+
+        ReservationDTO reservation = reservationService.getReservation(user.getUserId());
+        return reservation != null ? ResponseEntity.ok(reservation) : ResponseEntity.notFound().build();
+    }
+
+    // Leave checkout: give held stock back before the hold expires
+    @DeleteMapping("/reserve")
+    public ResponseEntity<?> releaseReservation(@AuthenticationPrincipal UserPrincipal user) {
+        if (user == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
 
-        return  ResponseEntity.ok(mergeCart);
+        reservationService.release(user.getUserId());
+        return ResponseEntity.ok("Reservation released");
     }
 }
@@ -1,19 +1,38 @@
 package com.ecommerce.ecommerce_backend.controller;
 
+import com.ecommerce.ecommerce_backend.dto.BulkStatusResultDTO;
+import com.ecommerce.ecommerce_backend.dto.BulkStatusUpdateRequest;
+import com.ecommerce.ecommerce_backend.dto.CheckoutStatusDTO;
 import com.ecommerce.ecommerce_backend.dto.OrderDTO;
+import com.ecommerce.ecommerce_backend.dto.OrderVersion;
+import com.ecommerce.ecommerce_backend.dto.PageDTO;
 import com.ecommerce.ecommerce_backend.dto.PlaceOrderRequest;
+import com.ecommerce.ecommerce_backend.entity.CheckoutRequest;
 import com.ecommerce.ecommerce_backend.entity.Order;
 import com.ecommerce.ecommerce_backend.entity.User;
+import com.ecommerce.ecommerce_backend.exception.CheckoutBusyException;
 import com.ecommerce.ecommerce_backend.repository.UserRepository;
 import com.ecommerce.ecommerce_backend.security.UserPrincipal;
+import com.ecommerce.ecommerce_backend.services.CheckoutService;
+import com.ecommerce.ecommerce_backend.services.OrderDashboardService;
+import com.ecommerce.ecommerce_backend.services.OrderExportService;
 import com.ecommerce.ecommerce_backend.services.OrderService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,6 +47,15 @@ public class OrderController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private OrderDashboardService orderDashboardService;
+
     /**
      * Helper method to get userId from authentication
      */
@@ -97,10 +125,88 @@ public class OrderController {
     }
 
     /**
-     * Get user's order history
+     * Asynchronous checkout - requires an Idempotency-Key header
+     * Returns 202 with a status URL right away; the order is placed by the checkout worker pool.
+     * Repeating a request with the same key returns the original checkout instead of placing another order.
+     */
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody PlaceOrderRequest request,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+
+        if (userId == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > 100) {
+            return ResponseEntity.status(400).body("Idempotency-Key header is required (max 100 characters)");
+        }
+
+        try {
+            CheckoutRequest checkout = checkoutService.submit(userId, idempotencyKey, request);
+            return checkoutResponse(checkout);
+
+        } catch (CheckoutBusyException e) {
+            log.warn("⚠️ Checkout rejected for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "5").body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(422).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("❌ Failed to accept checkout: {}", e.getMessage(), e);
+            return ResponseEntity.status(400).body("Failed to accept checkout: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Poll the outcome of an asynchronous checkout
+     */
+    @GetMapping("/checkout/{idempotencyKey}")
+    public ResponseEntity<?> getCheckoutStatus(
+            @PathVariable String idempotencyKey,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+
+        if (userId == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+
+        try {
+            return checkoutResponse(checkoutService.getCheckout(userId, idempotencyKey));
+        } catch (Exception e) {
+            return ResponseEntity.status(404).body("Checkout not found");
+        }
+    }
+
+    private ResponseEntity<CheckoutStatusDTO> checkoutResponse(CheckoutRequest checkout) {
+        CheckoutStatusDTO dto = CheckoutStatusDTO.fromEntity(checkout);
+
+        if (CheckoutRequest.COMPLETED.equals(checkout.getStatus())) {
+            dto.setOrder(OrderDTO.fromEntity(orderService.getOrderById(checkout.getOrderId())));
+            return ResponseEntity.ok(dto);
+        }
+        if (CheckoutRequest.FAILED.equals(checkout.getStatus())) {
+            return ResponseEntity.ok(dto);
+        }
+        return ResponseEntity.accepted()
+                .header(HttpHeaders.LOCATION, dto.getStatusUrl())
+                .body(dto);
+    }
+
+    /**
+     * Get user's order history, one page at a time (newest first)
+     * Pass nextCursor from the previous response as ?cursor= to continue.
+     * summary=true returns order headers only, without items.
      */
     @GetMapping("/user")
-    public ResponseEntity<?> getUserOrders(Authentication authentication) {
+    public ResponseEntity<?> getUserOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean summary,
+            Authentication authentication) {
 
         Long userId = getUserIdFromAuthentication(authentication);
 
@@ -111,14 +217,12 @@ public class OrderController {
         log.info("📋 Fetching orders for user: {}", userId);
 
         try {
-            List<Order> orders = orderService.getUserOrders(userId);
-
-            List<OrderDTO> orderDTOs = orders.stream()
-                    .map(OrderDTO::fromEntity)
-                    .collect(Collectors.toList());
+            PageDTO<?> page = summary
+                    ? orderService.getUserOrderSummaries(userId, cursor, limit)
+                    : orderService.getUserOrders(userId, cursor, limit);
 
-            log.info("✅ Found {} orders for user {}", orders.size(), userId);
-            return ResponseEntity.ok(orderDTOs);
+            log.info("✅ Found {} orders for user {}", page.getItems().size(), userId);
+            return ResponseEntity.ok(page);
 
         } catch (Exception e) {
             log.error("❌ Failed to fetch orders: {}", e.getMessage());
@@ -128,11 +232,15 @@ public class OrderController {
 
     /**
      * Get specific order by ID
+     * The ETag comes from the order's updatedAt. A revalidation with a current ETag reads only
+     * the order's owner and updatedAt and answers 304; items are not loaded and nothing is serialized.
+     * No Last-Modified: it has whole seconds only, so a change in the same second as the last fetch would be missed.
      */
     @GetMapping("/{orderId}")
     public ResponseEntity<?> getOrderById(
             @PathVariable Long orderId,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest request) {
 
         Long userId = getUserIdFromAuthentication(authentication);
 
@@ -141,17 +249,22 @@ public class OrderController {
         }
 
         try {
-            Order order = orderService.getOrderById(orderId);
+            OrderVersion version = orderService.getOrderVersion(orderId);
 
             // Security check - user can only view their own orders
-            if (!order.getUserId().equals(userId)) {
+            if (!version.getUserId().equals(userId)) {
                 log.warn("⚠️ User {} tried to access order {} belonging to user {}",
-                        userId, orderId, order.getUserId());
+                        userId, orderId, version.getUserId());
                 return ResponseEntity.status(403).body("Access denied");
             }
 
+            if (request.checkNotModified(version.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache().cachePrivate()).build();
+            }
+
+            Order order = orderService.getOrderById(orderId);
             OrderDTO orderDTO = OrderDTO.fromEntity(order);
-            return ResponseEntity.ok(orderDTO);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(orderDTO);
 
         } catch (Exception e) {
             log.error("❌ Failed to fetch order: {}", e.getMessage());
@@ -194,6 +307,39 @@ public class OrderController {
         }
     }
 
+    /**
+     * Bulk order status update (Admin only)
+     * Body: {"updates": [{"orderId": 1, "status": "SHIPPED"}, ...]}
+     * Returns one result per order; invalid transitions are reported, valid ones still applied.
+     */
+    @PostMapping("/admin/status")
+    public ResponseEntity<?> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkStatusUpdateRequest request,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+
+        if (userId == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+
+        if (!isAdmin(userId)) {
+            log.warn("⚠️ Non-admin user {} tried to bulk update order status", userId);
+            return ResponseEntity.status(403).body("Admin access required");
+        }
+
+        try {
+            List<BulkStatusResultDTO> results = orderService.bulkUpdateStatus(request.getUpdates());
+
+            log.info("✅ Bulk status update of {} orders by admin {}", results.size(), userId);
+            return ResponseEntity.ok(results);
+
+        } catch (Exception e) {
+            log.error("❌ Failed to bulk update order status: {}", e.getMessage());
+            return ResponseEntity.status(400).body("Failed to update status: " + e.getMessage());
+        }
+    }
+
     /**
      * Get all orders (Admin only)
      */
@@ -228,4 +374,99 @@ public class OrderController {
             return ResponseEntity.status(400).body("Failed to fetch orders: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Export orders as NDJSON or CSV (Admin only)
+     * Streams rows straight to the response, so memory stays flat for any number of orders.
+     * Optional filters: status, from/to (ISO date-time, on createdAt, to is exclusive)
+     */
+    @GetMapping("/admin/export")
+    public ResponseEntity<?> exportOrders(
+            @RequestParam(defaultValue = OrderExportService.FORMAT_NDJSON) String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+
+        if (userId == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+
+        // Check if user is admin
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null || !"ADMIN".equals(user.getRole())) {
+            log.warn("⚠️ Non-admin user {} tried to export orders", userId);
+            return ResponseEntity.status(403).body("Admin access required");
+        }
+
+        MediaType mediaType;
+        if (OrderExportService.FORMAT_NDJSON.equals(format)) {
+            mediaType = MediaType.APPLICATION_NDJSON;
+        } else if (OrderExportService.FORMAT_CSV.equals(format)) {
+            mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else {
+            return ResponseEntity.status(400).body("Unsupported format: " + format + " (use ndjson or csv)");
+        }
+
+        log.info("📤 Admin {} exporting orders as {} (status={}, from={}, to={})", userId, format, status, from, to);
+
+        StreamingResponseBody body = out -> orderExportService.exportOrders(format, status, from, to, out);
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + format + "\"")
+                .body(body);
+    }
+
+    /**
+     * Dashboard summary (Admin only) - counts per status, revenue per day, totals per payment method
+     * Served from the precomputed read model, no order rows are read.
+     */
+    @GetMapping("/admin/dashboard")
+    public ResponseEntity<?> getDashboard(
+            @RequestParam(defaultValue = "30") int days,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+
+        if (userId == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+
+        if (!isAdmin(userId)) {
+            log.warn("⚠️ Non-admin user {} tried to access the dashboard", userId);
+            return ResponseEntity.status(403).body("Admin access required");
+        }
+
+        return ResponseEntity.ok(orderDashboardService.getSummary(Math.max(1, Math.min(days, 366))));
+    }
+
+    /**
+     * Recompute the dashboard read model from the orders table (Admin only)
+     */
+    @PostMapping("/admin/dashboard/rebuild")
+    public ResponseEntity<?> rebuildDashboard(Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+
+        if (userId == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+
+        if (!isAdmin(userId)) {
+            log.warn("⚠️ Non-admin user {} tried to rebuild the dashboard", userId);
+            return ResponseEntity.status(403).body("Admin access required");
+        }
+
+        orderDashboardService.rebuild();
+        log.info("✅ Dashboard rebuilt by admin {}", userId);
+        return ResponseEntity.ok(orderDashboardService.getSummary(30));
+    }
+
+    private boolean isAdmin(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        return user != null && "ADMIN".equals(user.getRole());
+    }
+}
@@ -1,13 +1,29 @@
 package com.ecommerce.ecommerce_backend.controller;
 
+import com.ecommerce.ecommerce_backend.dto.PageDTO;
+import com.ecommerce.ecommerce_backend.dto.ProductImportStatusDTO;
+import com.ecommerce.ecommerce_backend.dto.ProductSummaryDTO;
 import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.entity.User;
+import com.ecommerce.ecommerce_backend.repository.UserRepository;
+import com.ecommerce.ecommerce_backend.security.UserPrincipal;
 import com.ecommerce.ecommerce_backend.services.ImageUploadService;
+import com.ecommerce.ecommerce_backend.services.ProductImportService;
+import com.ecommerce.ecommerce_backend.services.ProductSearchService;
 import com.ecommerce.ecommerce_backend.services.ProductService;
+import com.ecommerce.ecommerce_backend.services.ProductStreamService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.List;
@@ -23,6 +39,18 @@ public class ProductController {
     @Autowired
     private ImageUploadService imageUploadService;
 
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductStreamService productStreamService;
+
+    @Autowired
+    private UserRepository userRepository;
+
 //    @PostMapping
 //    public Product addProduct(@RequestBody Product product) {
 //        return productService.addProduct(product);
@@ -33,14 +61,151 @@ public class ProductController {
 //        return productService.getAllProducts();
 //    }
 //
+    /**
+     * Active products, one page at a time, without descriptions.
+     * sort = price | name | createdAt (default, newest first), direction = asc | desc.
+     * Pass nextCursor from the previous response as ?cursor= with the same sort and filters to continue.
+     * The ETag is the catalog version: a matching If-None-Match gets 304 without any query.
+     */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllActiveProducts());
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            WebRequest request) {
+
+        try {
+            if (request.checkNotModified(productService.getCatalogVersionTag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+            }
+
+            PageDTO<ProductSummaryDTO> page = productService.getActiveProductPage(
+                    cursor, limit, sort, direction, minPrice, maxPrice, inStock);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(page);
+
+        } catch (Exception e) {
+            log.error("❌ Failed to list products: {}", e.getMessage());
+            return ResponseEntity.status(400).body("Failed to list products: " + e.getMessage());
+        }
     }
 
+    /**
+     * Full-text search over name and description, best matches first.
+     * The last word also matches as a prefix, and small typos are tolerated.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+
+        try {
+            List<ProductSummaryDTO> results = productSearchService.search(query, limit);
+            return ResponseEntity.ok(results);
+
+        } catch (Exception e) {
+            log.error("❌ Product search failed: {}", e.getMessage());
+            return ResponseEntity.status(400).body("Product search failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Server-sent events with price / stock / active deltas of changed products, instead of polling the listing.
+     * "changes" events carry a JSON array of {id, price, stock, active}; on "reset" reload the catalog.
+     * Reconnects resume from the Last-Event-ID header (EventSource sends it) or ?since=.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) Long since) {
+
+        // Declared as SseEmitter so MVC streams it; errors go out as a bare status
+        try {
+            Long resumeFrom = lastEventId != null && !lastEventId.isBlank() ? Long.valueOf(lastEventId.trim()) : since;
+            SseEmitter emitter = productStreamService.subscribe(resumeFrom);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    // Keep proxies (nginx) from buffering the stream
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+
+        } catch (IllegalStateException e) {
+            log.warn("⚠️ Product change stream refused: {}", e.getMessage());
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30").build();
+        } catch (Exception e) {
+            log.error("❌ Failed to open product change stream: {}", e.getMessage());
+            return ResponseEntity.status(400).build();
+        }
+    }
+
+    /**
+     * ETag from the product's updatedAt and stock; revalidation is answered from the product cache without serializing.
+     * No Last-Modified: stock changes do not move updatedAt, so If-Modified-Since would miss them.
+     */
     @GetMapping("/{id}")
-    public Product getProductById(@PathVariable("id") Long id) {
-        return productService.getProductById(id);
+    public ResponseEntity<Product> getProductById(@PathVariable("id") Long id, WebRequest request) {
+        Product product = productService.getProductById(id);
+
+        if (request.checkNotModified(productService.getProductVersionTag(product))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(product);
+    }
+
+    /**
+     * Bulk import from a CSV file (admin only): header sku,name,price,stock[,description,imageUrl].
+     * Existing SKUs are updated, new ones inserted. Returns 202 with a job to poll at statusUrl.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal UserPrincipal user) {
+
+        if (user == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+        if (!isAdmin(user.getUserId())) {
+            log.warn("⚠️ Non-admin user {} tried to import products", user.getUserId());
+            return ResponseEntity.status(403).body("Admin access required");
+        }
+
+        try {
+            ProductImportStatusDTO status = productImportService.submit(file);
+            log.info("📥 Product import {} started by admin {}", status.getJobId(), user.getUserId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(503).body("Product imports are busy, please retry shortly");
+        } catch (Exception e) {
+            log.error("❌ Failed to start product import: {}", e.getMessage());
+            return ResponseEntity.status(400).body("Failed to start product import: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Import progress: bytes and rows read, inserted / updated / failed counts and the first row errors.
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<?> getImportStatus(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal UserPrincipal user) {
+
+        // GET /api/products/** is public, so check here
+        if (user == null) {
+            return ResponseEntity.status(401).body("User not authenticated");
+        }
+        if (!isAdmin(user.getUserId())) {
+            return ResponseEntity.status(403).body("Admin access required");
+        }
+
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(productImportService.getStatus(jobId));
+        } catch (Exception e) {
+            return ResponseEntity.status(404).body("Import job not found");
+        }
     }
 
     @GetMapping("/test")
@@ -172,8 +337,7 @@ public class ProductController {
             }
 
 //            productService.deleteProduct(id);
-            product.setIsActive(false);
-            productService.addProduct(product);
+            productService.deactivateProduct(id);
             log.info("✅ Product deleted: {}", id);
 
             return ResponseEntity.ok("Product deleted successfully");
@@ -184,4 +348,8 @@ public class ProductController {
         }
     }
 
+    private boolean isAdmin(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        return user != null && "ADMIN".equals(user.getRole());
+    }
 }
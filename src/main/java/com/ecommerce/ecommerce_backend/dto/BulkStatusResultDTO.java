@@ -0,0 +1,19 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome for one order of a bulk status update.
+ * result is UPDATED, NOT_FOUND, INVALID_STATUS or INVALID_TRANSITION.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResultDTO {
+    private Long orderId;
+    private String previousStatus;
+    private String status;
+    private String result;
+}
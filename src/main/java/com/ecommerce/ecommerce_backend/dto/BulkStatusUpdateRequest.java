@@ -0,0 +1,27 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkStatusUpdateRequest {
+
+    @NotEmpty(message = "At least one update is required")
+    @Size(max = 1000, message = "At most 1000 orders per request")
+    @Valid
+    private List<Item> updates;
+
+    @Data
+    public static class Item {
+        @NotNull(message = "orderId is required")
+        private Long orderId;
+
+        @NotNull(message = "status is required")
+        private String status;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import com.ecommerce.ecommerce_backend.entity.Cart;
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+import com.ecommerce.ecommerce_backend.util.Money;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cart response: lines with product id, name, image, price and quantity, plus totals.
+ * No user, product description or timestamps.
+ */
+@Data
+public class CartDTO {
+    private Long id;
+    private String cartId;
+    private Integer itemCount;
+    private Double totalAmount;
+    private List<CartItemDTO> items;
+
+    public static CartDTO fromEntity(Cart cart) {
+        CartDTO dto = new CartDTO();
+        dto.setId(cart.getId());
+        dto.setCartId(cart.getCartId());
+        dto.setItemCount(cart.getItemCount());
+        dto.setTotalAmount(Money.toMajor(cart.getTotalMinor()));
+
+        List<CartItemDTO> items = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            items.add(CartItemDTO.fromEntity(item));
+        }
+        dto.setItems(items);
+        return dto;
+    }
+
+    /**
+     * Build from the rows of the single cart view query. Returns null when there are no rows (no cart).
+     */
+    public static CartDTO fromRows(List<CartViewRow> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        CartViewRow header = rows.get(0);
+        CartDTO dto = new CartDTO();
+        dto.setId(header.getCartId());
+        dto.setCartId(header.getGuestCartId());
+        dto.setItemCount(header.getItemCount());
+        dto.setTotalAmount(Money.toMajor(header.getTotalMinor()));
+
+        List<CartItemDTO> items = new ArrayList<>(rows.size());
+        for (CartViewRow row : rows) {
+            if (row.getItemId() == null) {
+                continue;
+            }
+            CartItemDTO item = new CartItemDTO();
+            item.setId(row.getItemId());
+            item.setProductId(row.getProductId());
+            item.setProductName(row.getProductName());
+            item.setProductImageUrl(row.getProductImageUrl());
+            item.setQuantity(row.getQuantity());
+            item.setPrice(row.getPrice());
+            item.setSubtotal(Money.toMajor(row.getSubtotalMinor()));
+            items.add(item);
+        }
+        dto.setItems(items);
+        return dto;
+    }
+}
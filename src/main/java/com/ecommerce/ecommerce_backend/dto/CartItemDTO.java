@@ -0,0 +1,28 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+import com.ecommerce.ecommerce_backend.util.Money;
+import lombok.Data;
+
+@Data
+public class CartItemDTO {
+    private Long id;
+    private Long productId;
+    private String productName;
+    private String productImageUrl;
+    private Integer quantity;
+    private Double price;
+    private Double subtotal;
+
+    public static CartItemDTO fromEntity(CartItem item) {
+        CartItemDTO dto = new CartItemDTO();
+        dto.setId(item.getId());
+        dto.setProductId(item.getProduct().getId());
+        dto.setProductName(item.getProduct().getName());
+        dto.setProductImageUrl(item.getProduct().getImageUrl());
+        dto.setQuantity(item.getQuantity());
+        dto.setPrice(item.getPrice());
+        dto.setSubtotal(Money.toMajor(item.getSubtotalMinor()));
+        return dto;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ordered list of cart changes applied in one transaction by PATCH /api/cart.
+ */
+@Data
+public class CartPatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 200, message = "At most 200 operations per request")
+    @Valid
+    private List<Operation> operations;
+
+    /**
+     * op is "add" (productId, quantity), "update" (cartItemId or productId, quantity; below 1 removes)
+     * or "remove" (cartItemId or productId).
+     */
+    @Data
+    public static class Operation {
+        @NotNull(message = "op is required")
+        private String op;
+
+        private Long productId;
+
+        private Long cartItemId;
+
+        private Integer quantity;
+    }
+}
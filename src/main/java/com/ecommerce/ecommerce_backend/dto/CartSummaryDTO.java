@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import com.ecommerce.ecommerce_backend.util.Money;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cart totals without the lines, read from the cart row only.
+ */
+@Data
+@NoArgsConstructor
+public class CartSummaryDTO {
+    private Long id;
+    private int itemCount;
+    private long totalMinor;
+    private double totalAmount;
+
+    public CartSummaryDTO(Long id, int itemCount, long totalMinor) {
+        this.id = id;
+        this.itemCount = itemCount;
+        this.totalMinor = totalMinor;
+        this.totalAmount = Money.toMajor(totalMinor);
+    }
+}
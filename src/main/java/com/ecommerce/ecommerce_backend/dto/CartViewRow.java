@@ -0,0 +1,23 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One row of the cart view query: cart header columns plus one line (line columns are null for an empty cart).
+ */
+@Data
+@AllArgsConstructor
+public class CartViewRow {
+    private Long cartId;
+    private String guestCartId;
+    private int itemCount;
+    private long totalMinor;
+    private Long itemId;
+    private Long productId;
+    private String productName;
+    private String productImageUrl;
+    private Integer quantity;
+    private Double price;
+    private Long subtotalMinor;
+}
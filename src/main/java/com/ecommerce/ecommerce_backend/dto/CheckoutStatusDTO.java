@@ -0,0 +1,28 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import com.ecommerce.ecommerce_backend.entity.CheckoutRequest;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class CheckoutStatusDTO {
+    private String idempotencyKey;
+    private String status;
+    private String statusUrl;
+    private Long orderId;
+    private OrderDTO order;
+    private String error;
+    private LocalDateTime createdAt;
+
+    public static CheckoutStatusDTO fromEntity(CheckoutRequest checkout) {
+        CheckoutStatusDTO dto = new CheckoutStatusDTO();
+        dto.setIdempotencyKey(checkout.getIdempotencyKey());
+        dto.setStatus(checkout.getStatus());
+        dto.setStatusUrl("/api/orders/checkout/" + checkout.getIdempotencyKey());
+        dto.setOrderId(checkout.getOrderId());
+        dto.setError(checkout.getErrorMessage());
+        dto.setCreatedAt(checkout.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Admin dashboard figures served from the in-memory order read model.
+ * Revenue and payment method totals exclude cancelled orders.
+ */
+@Data
+public class DashboardSummaryDTO {
+    private Map<String, Long> ordersByStatus;
+    private Map<LocalDate, Double> revenueByDay;
+    private Map<String, PaymentMethodTotal> paymentMethods;
+    private Double totalRevenue;
+    private LocalDateTime rebuiltAt;
+
+    @Data
+    public static class PaymentMethodTotal {
+        private long orders;
+        private double amount;
+    }
+}
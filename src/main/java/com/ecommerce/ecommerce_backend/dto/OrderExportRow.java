@@ -0,0 +1,55 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import com.ecommerce.ecommerce_backend.entity.Order;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the admin order export (NDJSON object or CSV row). Order level only - no items.
+ */
+@Data
+public class OrderExportRow {
+
+    public static final String[] CSV_HEADER = {
+            "id", "orderNumber", "userId", "status", "paymentMethod", "paymentStatus", "totalAmount",
+            "orderDate", "createdAt", "shippingCity", "shippingState", "shippingZip"
+    };
+
+    private Long id;
+    private String orderNumber;
+    private Long userId;
+    private String status;
+    private String paymentMethod;
+    private String paymentStatus;
+    private Double totalAmount;
+    private LocalDateTime orderDate;
+    private LocalDateTime createdAt;
+    private String shippingCity;
+    private String shippingState;
+    private String shippingZip;
+
+    public static OrderExportRow fromEntity(Order order) {
+        OrderExportRow row = new OrderExportRow();
+        row.setId(order.getId());
+        row.setOrderNumber(order.getOrderNumber());
+        row.setUserId(order.getUserId());
+        row.setStatus(order.getStatus());
+        row.setPaymentMethod(order.getPaymentMethod());
+        row.setPaymentStatus(order.getPaymentStatus());
+        row.setTotalAmount(order.getTotalAmount());
+        row.setOrderDate(order.getOrderDate());
+        row.setCreatedAt(order.getCreatedAt());
+        row.setShippingCity(order.getShippingCity());
+        row.setShippingState(order.getShippingState());
+        row.setShippingZip(order.getShippingZip());
+        return row;
+    }
+
+    public Object[] toCsvValues() {
+        return new Object[]{
+                id, orderNumber, userId, status, paymentMethod, paymentStatus, totalAmount,
+                orderDate, createdAt, shippingCity, shippingState, shippingZip
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order header without items - used for history pages (built directly by a JPQL constructor query).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private Long id;
+    private String orderNumber;
+    private LocalDateTime orderDate;
+    private Double totalAmount;
+    private String status;
+    private String paymentMethod;
+    private String paymentStatus;
+    private LocalDateTime createdAt;
+}
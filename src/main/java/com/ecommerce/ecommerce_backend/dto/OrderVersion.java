@@ -0,0 +1,28 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Owner and last update of an order - all a conditional GET needs (built directly by a JPQL constructor query).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderVersion {
+    private Long id;
+    private Long userId;
+    private LocalDateTime updatedAt;
+
+    /**
+     * In microseconds, as stored: a status change right after placing or paying still gets a new tag.
+     */
+    public String etag() {
+        long micros = updatedAt != null ? updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updatedAt.getNano() / 1000 : -1;
+        return "o" + id + "-" + micros;
+    }
+}
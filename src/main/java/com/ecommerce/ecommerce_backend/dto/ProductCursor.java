@@ -0,0 +1,72 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position (sort value, id) of the last product on a page, encoded as an opaque URL-safe token.
+ * The sort and direction are part of the token, so a cursor cannot be replayed against a different ordering.
+ * value is null when the last product had no name / created_at; such rows sort first ascending and last descending.
+ */
+@Data
+@AllArgsConstructor
+public class ProductCursor {
+    private ProductSort sort;
+    private boolean descending;
+    private Object value;
+    private Long id;
+
+    public static ProductCursor of(ProductSort sort, boolean descending, ProductSummaryDTO product) {
+        Object value = switch (sort) {
+            case PRICE -> product.getPrice();
+            case NAME -> product.getName();
+            case CREATED_AT -> product.getCreatedAt();
+        };
+        return new ProductCursor(sort, descending, value, product.getId());
+    }
+
+    public String encode() {
+        // "-" marks a NULL sort value, any other value is prefixed with "=" (so a name "-" stays a name)
+        String raw = sort.name() + "|" + (descending ? "desc" : "asc") + "|" + id + "|" + (value == null ? "-" : "=" + value);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token, ProductSort sort, boolean descending) {
+        ProductCursor cursor;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // value goes last: names may contain the separator
+            String[] parts = raw.split("\\|", 4);
+            ProductSort tokenSort = ProductSort.valueOf(parts[0]);
+            cursor = new ProductCursor(tokenSort, "desc".equals(parts[1]), parseValue(tokenSort, parts[3]),
+                    Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        if (cursor.sort != sort || cursor.descending != descending) {
+            throw new IllegalArgumentException("Cursor belongs to a different sort order");
+        }
+        return cursor;
+    }
+
+    private static Object parseValue(ProductSort sort, String encoded) {
+        if ("-".equals(encoded)) {
+            return null;
+        }
+        if (!encoded.startsWith("=")) {
+            throw new IllegalArgumentException("Invalid cursor value");
+        }
+        String value = encoded.substring(1);
+        return switch (sort) {
+            case PRICE -> Double.valueOf(value);
+            case NAME -> value;
+            case CREATED_AT -> LocalDateTime.parse(value);
+        };
+    }
+}
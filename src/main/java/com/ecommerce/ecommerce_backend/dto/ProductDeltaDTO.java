@@ -0,0 +1,25 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Current price, stock and active flag of a changed product, as pushed by /api/products/changes.
+ * A deleted product is sent with its id and active=false only.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductDeltaDTO {
+    private Long id;
+    private Double price;
+    private Integer stock;
+    private Boolean active;
+
+    public static ProductDeltaDTO removed(Long id) {
+        return new ProductDeltaDTO(id, null, null, false);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress of a bulk product import. Counts cover the whole file; errors holds the first rows that failed only.
+ */
+@Data
+public class ProductImportStatusDTO {
+    private String jobId;
+    private String status;
+    private String statusUrl;
+    private String fileName;
+    private long bytesRead;
+    private long totalBytes;
+    private int percent;
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<RowError> errors;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String sku;
+        private String message;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+/**
+ * Sort keys of the product listing. Every sort is keyset-paginated on (column, id).
+ */
+public enum ProductSort {
+    PRICE("price", "price"),
+    NAME("name", "name"),
+    CREATED_AT("createdAt", "created_at");
+
+    private final String param;
+    private final String column;
+
+    ProductSort(String param, String column) {
+        this.param = param;
+        this.column = column;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public static ProductSort fromParam(String param) {
+        for (ProductSort sort : values()) {
+            if (sort.param.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort: " + param + " (use price, name or createdAt)");
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Product as shown in listings - no description. Read straight from the product row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDTO {
+    private Long id;
+    private String name;
+    private double price;
+    private int stock;
+    private String imageUrl;
+    private LocalDateTime createdAt;
+}
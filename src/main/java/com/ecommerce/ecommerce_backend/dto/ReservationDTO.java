@@ -0,0 +1,17 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDTO {
+    private Long userId;
+    private Map<Long, Integer> quantities; // productId -> held quantity
+    private LocalDateTime expiresAt;
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.ecommerce_backend.entity;
 
+import com.ecommerce.ecommerce_backend.util.Money;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -12,8 +13,17 @@ import java.util.List;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_cart_user_updated", columnList = "user_id, updated_at")
+}, uniqueConstraints = {
+        // One cart per user, enforced by the database across nodes. ddl-auto cannot add it while duplicate
+        // carts exist, so CartService merges those at startup and adds it itself
+        @UniqueConstraint(name = Cart.USER_UNIQUE_CONSTRAINT, columnNames = "user_id")
+})
 public class Cart {
 
+    public static final String USER_UNIQUE_CONSTRAINT = "uk_cart_user";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,7 +39,14 @@ public class Cart {
     @JsonManagedReference
     private List<CartItem> items = new ArrayList<>();
 
-    private Double totalAmount;
+    private Double totalAmount; // kept equal to totalMinor / 100 for existing clients
+
+    // Running totals, adjusted by delta on every cart change (never recomputed from the lines)
+    @Column(name = "total_minor")
+    private long totalMinor;
+
+    @Column(name = "item_count")
+    private int itemCount; // total units across all lines
 
     // NEW TIMESTAMP FIELDS
     @CreationTimestamp
@@ -39,5 +56,20 @@ public class Cart {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    /**
+     * Apply a line change to the running totals (amount in minor units, quantity in units).
+     */
+    public void applyDelta(long amountMinor, int quantity) {
+        totalMinor += amountMinor;
+        itemCount += quantity;
+        totalAmount = Money.toMajor(totalMinor);
+    }
+
+    public void resetTotals() {
+        totalMinor = 0;
+        itemCount = 0;
+        totalAmount = 0.0;
+    }
 }
 
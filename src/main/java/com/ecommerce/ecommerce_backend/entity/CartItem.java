@@ -1,5 +1,6 @@
 package com.ecommerce.ecommerce_backend.entity;
 
+import com.ecommerce.ecommerce_backend.util.Money;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -10,6 +11,10 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        // Price changes look up the carts holding a product
+        @Index(name = "idx_cart_item_product_cart", columnList = "product_id, cart_id")
+})
 @Data
 @Slf4j
 public class CartItem {
@@ -30,6 +35,13 @@ public class CartItem {
     private int quantity;
     private double price;
 
+    // Fixed-point copies of price and price * quantity, used for cart totals
+    @Column(name = "unit_price_minor")
+    private long unitPriceMinor;
+
+    @Column(name = "subtotal_minor")
+    private long subtotalMinor;
+
     // NEW TIMESTAMP FIELDS
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
@@ -38,4 +50,20 @@ public class CartItem {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    public void applyPrice(double price) {
+        this.price = price;
+        this.unitPriceMinor = Money.toMinor(price);
+        this.subtotalMinor = unitPriceMinor * quantity;
+    }
+
+    /**
+     * Set quantity and recompute the line subtotal. Returns the subtotal change to apply to the cart.
+     */
+    public long changeQuantity(int newQuantity) {
+        long oldSubtotal = subtotalMinor;
+        quantity = newQuantity;
+        subtotalMinor = unitPriceMinor * newQuantity;
+        return subtotalMinor - oldSubtotal;
+    }
 }
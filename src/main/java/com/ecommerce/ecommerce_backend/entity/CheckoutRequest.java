@@ -0,0 +1,53 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Accepted checkout waiting for (or finished by) the checkout worker pool.
+ * One row per (user, Idempotency-Key), so a retried request finds the original instead of placing a second order.
+ */
+@Entity
+@Data
+@Table(name = "checkout_requests", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_checkout_user_key", columnNames = {"user_id", "idempotency_key"})
+})
+public class CheckoutRequest {
+
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String status; // PENDING, COMPLETED, FAILED
+
+    // PlaceOrderRequest as JSON, replayed by the worker
+    @Column(name = "request_payload", nullable = false, length = 4000)
+    private String requestPayload;
+
+    private Long orderId;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
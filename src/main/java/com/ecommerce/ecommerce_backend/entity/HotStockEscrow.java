@@ -0,0 +1,35 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of a hot product handed to one node's in-memory counters.
+ * The same units are counted in product.hot_escrow, so other checkouts cannot sell them.
+ * heartbeat_at is refreshed by the node's flusher; rows of silent nodes are reclaimed by the others.
+ */
+@Entity
+@Data
+@Table(name = "hot_stock_escrow", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_hot_stock_escrow_product_node", columnNames = {"product_id", "node_id"})
+})
+public class HotStockEscrow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "node_id", nullable = false)
+    private Integer nodeId;
+
+    @Column(nullable = false)
+    private Integer allotted;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Units a node sold from its in-memory counters, written in the sale's own transaction.
+ * The flusher folds these rows into product.stock and deletes them; until then they tell
+ * crash reconciliation how much of a node's escrow is already gone.
+ */
+@Entity
+@Data
+@Table(name = "hot_stock_sales", indexes = {
+        @Index(name = "idx_hot_stock_sales_node", columnList = "node_id, id")
+})
+public class HotStockSale {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "node_id", nullable = false)
+    private Integer nodeId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
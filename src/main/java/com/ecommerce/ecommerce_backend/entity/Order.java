@@ -2,13 +2,17 @@ package com.ecommerce.ecommerce_backend.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Data
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at, id")
+})
 public class Order {
 
         @Id
@@ -25,7 +29,9 @@ public class Order {
 
         private LocalDateTime createdAt;
 
+        // Paged queries load items for the whole page in one IN (...) query
         @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
+        @BatchSize(size = 100)
         private List<OrderItem> items;
 
 
@@ -35,6 +41,7 @@ public class Order {
         }
 
         // NEW FIELDS
+        @Column(unique = true)
         private String orderNumber;
         private String shippingAddress;
         private String shippingCity;
@@ -43,6 +50,9 @@ public class Order {
         private String shippingPhone;
         private String paymentMethod; // COD, CARD, UPI
         private String paymentStatus; // UNPAID, PAID
+
+        // Set on insert and every update; the order's ETag is built from it (bulk status updates set it in JPQL)
+        @UpdateTimestamp
         private LocalDateTime updatedAt;
 
 }
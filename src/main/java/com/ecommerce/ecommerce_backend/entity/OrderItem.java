@@ -14,7 +14,8 @@ public class OrderItem {
     @JoinColumn(name = "order_id")
     private Order order;
 
-    @ManyToOne
+    // Lazy: DTOs only need the product id, which the proxy carries without a query
+    @ManyToOne(fetch = FetchType.LAZY)
     private Product product;
 
     private Integer quantity;
@@ -0,0 +1,21 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * DB-backed counter that hands out ranges of order numbers.
+ * One row per counter name (e.g. ORD-2026); nextValue is the first unallocated number.
+ */
+@Entity
+@Data
+@Table(name = "order_number_block")
+public class OrderNumberBlock {
+
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Order lifecycle. Order.status stores the name of one of these values.
+ *
+ * PENDING -> CONFIRMED -> SHIPPED -> DELIVERED
+ * PENDING / CONFIRMED -> CANCELLED
+ */
+public enum OrderStatus {
+    PENDING,
+    CONFIRMED,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED;
+
+    public Set<OrderStatus> allowedNext() {
+        switch (this) {
+            case PENDING:
+                return EnumSet.of(CONFIRMED, CANCELLED);
+            case CONFIRMED:
+                return EnumSet.of(SHIPPED, CANCELLED);
+            case SHIPPED:
+                return EnumSet.of(DELIVERED);
+            default:
+                return EnumSet.noneOf(OrderStatus.class);
+        }
+    }
+
+    public static boolean canTransition(String from, OrderStatus to) {
+        OrderStatus current = parse(from);
+        return current != null && current.allowedNext().contains(to);
+    }
+
+    /**
+     * Returns null for unknown or missing values instead of throwing.
+     */
+    public static OrderStatus parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
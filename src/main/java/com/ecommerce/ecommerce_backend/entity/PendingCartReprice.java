@@ -0,0 +1,31 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product whose carts still have to be repriced because the repricing queue was full when its price changed.
+ * The row is deleted once the repricing has run, so it survives restarts until then.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "pending_cart_reprices")
+public class PendingCartReprice {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public PendingCartReprice(Long productId) {
+        this.productId = productId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.ecommerce_backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
@@ -8,6 +9,12 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        // Keyset listing: one index per sort, all behind the is_active filter
+        @Index(name = "idx_product_active_price", columnList = "is_active, price, id"),
+        @Index(name = "idx_product_active_name", columnList = "is_active, name, id"),
+        @Index(name = "idx_product_active_created", columnList = "is_active, created_at, id")
+})
 @Data
 public class Product {
 
@@ -15,11 +22,21 @@ public class Product {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Supplier / import key; products created in the admin UI may have none
+    @Column(unique = true, length = 64)
+    private String sku;
+
     private String name;
     private String description;
     private double price;
     private int stock;
 
+    // Units of stock escrowed to nodes' hot-SKU counters (HotStockService); only written through JDBC
+    @JsonIgnore
+    @Column(name = "hot_escrow", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int hotEscrow;
+
     // NEW FIELDS
     @Column(name = "image_url", length = 500)
     private String imageUrl;
@@ -0,0 +1,52 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per product write, in the same transaction as the write.
+ * The id doubles as the catalog version: nodes poll for rows above the last id they have seen
+ * and drop those products from their caches. STOCK rows (checkout decrements, restores) only feed
+ * the /api/products/changes stream, one per product and flush (StockChangeLog, HotStockService);
+ * caches keep serving stock until their TTL as before.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "product_changes", indexes = {
+        @Index(name = "idx_product_changes_changed_at", columnList = "changed_at")
+})
+public class ProductChange {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DEACTIVATED = "DEACTIVATED";
+    public static final String IMPORTED = "IMPORTED";
+    public static final String STOCK = "STOCK";
+
+    // productId of changes that touch the whole catalog (bulk import): caches and the search index start over
+    public static final Long CATALOG = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "change_type", nullable = false, length = 20)
+    private String changeType;
+
+    @CreationTimestamp
+    @Column(name = "changed_at", updatable = false)
+    private LocalDateTime changedAt;
+
+    public ProductChange(Long productId, String changeType) {
+        this.productId = productId;
+        this.changeType = changeType;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * One row per node, stamped on the primary by ReplicaLagGuard and read back from the replica.
+ * The newest stamp the replica has tells how far replication has caught up.
+ */
+@Entity
+@Data
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat {
+
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    // Epoch millis of the node's clock
+    @Column(name = "beat_at", nullable = false)
+    private Long beatAt;
+}
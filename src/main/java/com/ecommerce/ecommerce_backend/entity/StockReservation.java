@@ -0,0 +1,40 @@
+package com.ecommerce.ecommerce_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock held for one cart line between "proceed to checkout" and placeOrder.
+ * The quantity is already subtracted from product.stock; it goes back when the hold expires.
+ */
+@Entity
+@Data
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_user", columnList = "user_id"),
+        @Index(name = "idx_stock_reservations_expires", columnList = "expires_at")
+})
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
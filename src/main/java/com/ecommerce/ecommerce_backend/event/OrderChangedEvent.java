@@ -0,0 +1,38 @@
+package com.ecommerce.ecommerce_backend.event;
+
+import com.ecommerce.ecommerce_backend.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Published by OrderService whenever an order is created or its status/payment status changes.
+ * previousStatus is null for a newly placed order.
+ */
+@Data
+@AllArgsConstructor
+public class OrderChangedEvent {
+    private Long orderId;
+    private Long userId;
+    private LocalDate orderDay;
+    private String paymentMethod;
+    private Double totalAmount;
+    private String previousStatus;
+    private String status;
+    private String previousPaymentStatus;
+    private String paymentStatus;
+
+    public static OrderChangedEvent of(Order order, String previousStatus, String previousPaymentStatus) {
+        return new OrderChangedEvent(
+                order.getId(),
+                order.getUserId(),
+                order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now(),
+                order.getPaymentMethod(),
+                order.getTotalAmount(),
+                previousStatus,
+                order.getStatus(),
+                previousPaymentStatus,
+                order.getPaymentStatus());
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.ecommerce_backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by ProductServiceImpl for every product write, together with the product_changes row.
+ */
+@Data
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private Long productId;
+    private String changeType;
+    // Id of the product_changes row written with the change
+    private Long version;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.ecommerce_backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Set;
+
+/**
+ * Published by ProductCache after each poll of product_changes that found rows: the products written
+ * since the previous poll, by any node (this node's own writes included).
+ */
+@Data
+@AllArgsConstructor
+public class ProductChangesPolledEvent {
+    private Set<Long> productIds;
+}
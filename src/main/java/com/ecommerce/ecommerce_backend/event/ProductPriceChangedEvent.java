@@ -0,0 +1,21 @@
+package com.ecommerce.ecommerce_backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Published when a write changes product prices: one product from ProductServiceImpl, a whole batch from
+ * ProductImportService. Listeners should read the current price from the product row: events for one product
+ * may be coalesced.
+ */
+@Data
+@AllArgsConstructor
+public class ProductPriceChangedEvent {
+    private List<Long> productIds;
+
+    public ProductPriceChangedEvent(Long productId) {
+        this(List.of(productId));
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.ecommerce_backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Published by ProductRepository when a checkout or restore changes stock through JDBC.
+ * StockChangeLog turns the products into STOCK product changes once the transaction commits.
+ */
+@Data
+@AllArgsConstructor
+public class ProductStockChangedEvent {
+    private List<Long> productIds;
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.ecommerce_backend.exception;
+
+public class CheckoutBusyException extends RuntimeException {
+    public CheckoutBusyException(String message) {
+        super(message);
+    }
+}
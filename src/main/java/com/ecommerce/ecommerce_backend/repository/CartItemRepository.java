@@ -4,9 +4,21 @@ import com.ecommerce.ecommerce_backend.entity.Cart;
 import com.ecommerce.ecommerce_backend.entity.CartItem;
 import com.ecommerce.ecommerce_backend.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface CartItemRepository extends JpaRepository<CartItem,Long> {
+public interface CartItemRepository extends JpaRepository<CartItem,Long>, CartItemRepositoryCustom {
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
+
+    // [userId, guest cartId] of the cart owning the item
+    @Query("select u.id, c.cartId from CartItem i join i.cart c left join c.user u where i.id = :itemId")
+    List<Object[]> findCartKeyByItemId(@Param("itemId") Long itemId);
+
+    @Modifying
+    @Query("delete from CartItem i where i.cart.id = :cartId")
+    int deleteByCartId(@Param("cartId") Long cartId);
 }
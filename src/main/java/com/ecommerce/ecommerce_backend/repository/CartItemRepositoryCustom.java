@@ -0,0 +1,39 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Batched cart line writes (write-behind store, PATCH /api/cart, price changes).
+ */
+public interface CartItemRepositoryCustom {
+
+    /**
+     * Write quantity and subtotalMinor of many cart items in a single JDBC batch (only id and those fields are read).
+     */
+    void updateQuantities(Collection<CartItem> items);
+
+    /**
+     * Insert new cart lines in a single JDBC batch. Generated ids are not read back.
+     */
+    void insertItems(Long cartId, Collection<CartItem> items);
+
+    /**
+     * Delete many cart items in a single JDBC batch.
+     */
+    void deleteByIds(Collection<Long> cartItemIds);
+
+    /**
+     * Carts after afterCartId holding the product at a unit price other than unitPriceMinor, in id order.
+     * Rows are [cart.id, cart.user_id, cart.cart_id].
+     */
+    List<Object[]> findCartsToReprice(Long productId, long unitPriceMinor, long afterCartId, int limit);
+
+    /**
+     * Move the product's lines in the given carts to the new price, then recompute those carts' totals from their
+     * lines, with one set-based update per table. Returns the number of lines repriced.
+     */
+    int repriceLines(Long productId, double price, Collection<Long> cartIds);
+}
@@ -0,0 +1,117 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+import com.ecommerce.ecommerce_backend.util.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+public class CartItemRepositoryCustomImpl implements CartItemRepositoryCustom {
+
+    private static final String UPDATE_QUANTITY_SQL =
+            "UPDATE cart_item SET quantity = ?, subtotal_minor = ?, updated_at = ? WHERE id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cart_item (cart_id, product_id, quantity, price, unit_price_minor, subtotal_minor, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM cart_item WHERE id = ?";
+
+    private static final String FIND_CARTS_TO_REPRICE_SQL =
+            "SELECT DISTINCT c.id, c.user_id, c.cart_id FROM cart_item i JOIN cart c ON c.id = i.cart_id " +
+            "WHERE i.product_id = ? AND i.unit_price_minor <> ? AND i.cart_id > ? ORDER BY c.id LIMIT ?";
+
+    // Recomputed from the lines after they are repriced, like the backfill
+    private static final String REPRICE_TOTALS_SQL =
+            "UPDATE cart SET " +
+            "total_minor = (SELECT COALESCE(SUM(i.subtotal_minor), 0) FROM cart_item i WHERE i.cart_id = cart.id), " +
+            "total_amount = (SELECT COALESCE(SUM(i.subtotal_minor), 0) FROM cart_item i WHERE i.cart_id = cart.id) / 100.0, " +
+            "updated_at = ? WHERE id IN (%s)";
+
+    private static final String REPRICE_LINES_SQL =
+            "UPDATE cart_item SET price = ?, unit_price_minor = ?, subtotal_minor = ? * quantity, updated_at = ? " +
+            "WHERE product_id = ? AND unit_price_minor <> ? AND cart_id IN (%s)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void updateQuantities(Collection<CartItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        for (CartItem item : items) {
+            args.add(new Object[]{item.getQuantity(), item.getSubtotalMinor(), now, item.getId()});
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_QUANTITY_SQL, args);
+    }
+
+    @Override
+    public void insertItems(Long cartId, Collection<CartItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        for (CartItem item : items) {
+            args.add(new Object[]{cartId, item.getProduct().getId(), item.getQuantity(), item.getPrice(),
+                    item.getUnitPriceMinor(), item.getSubtotalMinor(), now, now});
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    @Override
+    public void deleteByIds(Collection<Long> cartItemIds) {
+        if (cartItemIds.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>();
+        for (Long id : new TreeSet<>(cartItemIds)) {
+            args.add(new Object[]{id});
+        }
+
+        jdbcTemplate.batchUpdate(DELETE_SQL, args);
+    }
+
+    @Override
+    public List<Object[]> findCartsToReprice(Long productId, long unitPriceMinor, long afterCartId, int limit) {
+        return jdbcTemplate.query(FIND_CARTS_TO_REPRICE_SQL,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getObject(2, Long.class), rs.getString(3)},
+                productId, unitPriceMinor, afterCartId, limit);
+    }
+
+    @Override
+    public int repriceLines(Long productId, double price, Collection<Long> cartIds) {
+        if (cartIds.isEmpty()) {
+            return 0;
+        }
+
+        long unitPriceMinor = Money.toMinor(price);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String placeholders = String.join(", ", Collections.nCopies(cartIds.size(), "?"));
+
+        List<Object> linesArgs = new ArrayList<>(List.of(price, unitPriceMinor, unitPriceMinor, now, productId, unitPriceMinor));
+        linesArgs.addAll(cartIds);
+        int repriced = jdbcTemplate.update(String.format(REPRICE_LINES_SQL, placeholders), linesArgs.toArray());
+
+        List<Object> totalsArgs = new ArrayList<>(List.of(now));
+        totalsArgs.addAll(cartIds);
+        jdbcTemplate.update(String.format(REPRICE_TOTALS_SQL, placeholders), totalsArgs.toArray());
+        return repriced;
+    }
+}
@@ -1,11 +1,75 @@
 package com.ecommerce.ecommerce_backend.repository;
 
+import com.ecommerce.ecommerce_backend.dto.CartSummaryDTO;
+import com.ecommerce.ecommerce_backend.dto.CartViewRow;
 import com.ecommerce.ecommerce_backend.entity.Cart;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface CartRepository  extends JpaRepository<Cart,Long> {
+public interface CartRepository  extends JpaRepository<Cart,Long>, CartRepositoryCustom {
   Optional<Cart> findByCartId(String cartId);
   Optional<Cart> findByUserId(Long cartId);
+
+  @Query("select new com.ecommerce.ecommerce_backend.dto.CartSummaryDTO(c.id, c.itemCount, c.totalMinor) from Cart c where c.user.id = :userId")
+  Optional<CartSummaryDTO> findSummaryByUserId(@Param("userId") Long userId);
+
+  @Query("select new com.ecommerce.ecommerce_backend.dto.CartSummaryDTO(c.id, c.itemCount, c.totalMinor) from Cart c where c.cartId = :cartId")
+  Optional<CartSummaryDTO> findSummaryByCartId(@Param("cartId") String cartId);
+
+  // Cart view in one query: header columns repeated on every line, one row with null line columns for an empty cart
+  @Query("select new com.ecommerce.ecommerce_backend.dto.CartViewRow(c.id, c.cartId, c.itemCount, c.totalMinor, " +
+          "i.id, p.id, p.name, p.imageUrl, i.quantity, i.price, i.subtotalMinor) " +
+          "from Cart c left join c.items i left join i.product p where c.user.id = :userId order by i.id")
+  List<CartViewRow> findViewByUserId(@Param("userId") Long userId);
+
+  @Query("select new com.ecommerce.ecommerce_backend.dto.CartViewRow(c.id, c.cartId, c.itemCount, c.totalMinor, " +
+          "i.id, p.id, p.name, p.imageUrl, i.quantity, i.price, i.subtotalMinor) " +
+          "from Cart c left join c.items i left join i.product p where c.cartId = :cartId order by i.id")
+  List<CartViewRow> findViewByCartId(@Param("cartId") String cartId);
+
+  @Modifying
+  @Query("delete from Cart c where c.id = :id")
+  int deleteCartById(@Param("id") Long id);
+
+  // Users with more than one cart, left over from before the unique constraint on user_id
+  @Query("select c.user.id from Cart c where c.user is not null group by c.user.id having count(c) > 1")
+  List<Long> findUserIdsWithDuplicateCarts();
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select c from Cart c where c.user.id = :userId order by c.updatedAt desc, c.id desc")
+  List<Cart> findAllByUserIdForUpdate(@Param("userId") Long userId);
+
+  // Guest cart sweeper: oldest idle guest carts first, as (id, cartId, updatedAt)
+  @Query("select c.id, c.cartId, c.updatedAt from Cart c where c.user is null and c.updatedAt < :cutoff " +
+          "order by c.updatedAt, c.id")
+  List<Object[]> findIdleGuestCarts(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+  // Next batch after the last (updatedAt, id) seen, so carts skipped by the sweeper are not returned again
+  @Query("select c.id, c.cartId, c.updatedAt from Cart c where c.user is null and c.updatedAt < :cutoff " +
+          "and (c.updatedAt > :afterUpdatedAt or (c.updatedAt = :afterUpdatedAt and c.id > :afterId)) " +
+          "order by c.updatedAt, c.id")
+  List<Object[]> findIdleGuestCartsAfter(@Param("cutoff") LocalDateTime cutoff,
+                                         @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                         @Param("afterId") Long afterId,
+                                         Limit limit);
+
+  // Guarded again on delete, so a cart touched after it was selected survives
+  @Modifying
+  @Query("delete from CartItem i where i.cart.id in " +
+          "(select c.id from Cart c where c.id in :ids and c.user is null and c.updatedAt < :cutoff)")
+  int deleteIdleGuestCartItems(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+  @Modifying
+  @Query("delete from Cart c where c.id in :ids and c.user is null and c.updatedAt < :cutoff")
+  int deleteIdleGuestCarts(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
 }
@@ -0,0 +1,32 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.Cart;
+
+import java.util.Collection;
+
+/**
+ * Set-based cart header writes.
+ */
+public interface CartRepositoryCustom {
+
+    /**
+     * Write totalMinor, itemCount and totalAmount of many carts in a single JDBC batch (only id and those fields are read).
+     */
+    void updateTotals(Collection<Cart> carts);
+
+    /**
+     * Fill the minor-unit line and cart totals for rows written before they existed.
+     * Returns the number of carts updated.
+     */
+    int backfillTotals();
+
+    /**
+     * Whether the cart table has a unique constraint on user_id, whatever its name.
+     */
+    boolean hasUserUniqueConstraint();
+
+    /**
+     * Add the unique constraint on user_id. Fails if duplicate carts remain.
+     */
+    void addUserUniqueConstraint();
+}
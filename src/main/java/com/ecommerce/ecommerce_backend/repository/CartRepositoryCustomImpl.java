@@ -0,0 +1,74 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.Cart;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class CartRepositoryCustomImpl implements CartRepositoryCustom {
+
+    private static final String UPDATE_TOTALS_SQL =
+            "UPDATE cart SET total_minor = ?, item_count = ?, total_amount = ?, updated_at = ? WHERE id = ?";
+
+    private static final String BACKFILL_LINES_SQL =
+            "UPDATE cart_item SET unit_price_minor = ROUND(price * 100), subtotal_minor = ROUND(price * 100) * quantity " +
+            "WHERE unit_price_minor = 0 AND price <> 0";
+
+    private static final String BACKFILL_CARTS_SQL =
+            "UPDATE cart SET " +
+            "total_minor = (SELECT COALESCE(SUM(i.subtotal_minor), 0) FROM cart_item i WHERE i.cart_id = cart.id), " +
+            "item_count = (SELECT COALESCE(SUM(i.quantity), 0) FROM cart_item i WHERE i.cart_id = cart.id), " +
+            "total_amount = (SELECT COALESCE(SUM(i.subtotal_minor), 0) FROM cart_item i WHERE i.cart_id = cart.id) / 100.0 " +
+            "WHERE item_count = 0 AND EXISTS (SELECT 1 FROM cart_item i WHERE i.cart_id = cart.id)";
+
+    // information_schema works on MySQL and H2; SCHEMA() is the current database on MySQL
+    private static final String USER_UNIQUE_CONSTRAINT_SQL =
+            "SELECT COUNT(*) FROM information_schema.table_constraints tc " +
+            "JOIN information_schema.key_column_usage k ON k.constraint_schema = tc.constraint_schema " +
+            "AND k.constraint_name = tc.constraint_name AND k.table_name = tc.table_name " +
+            "WHERE tc.table_schema = SCHEMA() AND UPPER(tc.table_name) = 'CART' " +
+            "AND tc.constraint_type = 'UNIQUE' AND UPPER(k.column_name) = 'USER_ID'";
+
+    private static final String ADD_USER_UNIQUE_CONSTRAINT_SQL =
+            "ALTER TABLE cart ADD CONSTRAINT " + Cart.USER_UNIQUE_CONSTRAINT + " UNIQUE (user_id)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void updateTotals(Collection<Cart> carts) {
+        if (carts.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        for (Cart cart : carts) {
+            args.add(new Object[]{cart.getTotalMinor(), cart.getItemCount(), cart.getTotalAmount(), now, cart.getId()});
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_TOTALS_SQL, args);
+    }
+
+    @Override
+    public int backfillTotals() {
+        jdbcTemplate.update(BACKFILL_LINES_SQL);
+        return jdbcTemplate.update(BACKFILL_CARTS_SQL);
+    }
+
+    @Override
+    public boolean hasUserUniqueConstraint() {
+        Integer count = jdbcTemplate.queryForObject(USER_UNIQUE_CONSTRAINT_SQL, Integer.class);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public void addUserUniqueConstraint() {
+        jdbcTemplate.execute(ADD_USER_UNIQUE_CONSTRAINT_SQL);
+    }
+}
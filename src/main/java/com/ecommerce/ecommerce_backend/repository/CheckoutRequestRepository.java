@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.CheckoutRequest;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CheckoutRequestRepository extends JpaRepository<CheckoutRequest, Long> {
+
+    Optional<CheckoutRequest> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // Row lock so a checkout is only ever executed by one worker
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from CheckoutRequest c where c.id = :id")
+    Optional<CheckoutRequest> findForUpdate(@Param("id") Long id);
+
+    @Query("select c.id from CheckoutRequest c where c.status = :status order by c.id")
+    List<Long> findIdsByStatus(@Param("status") String status);
+}
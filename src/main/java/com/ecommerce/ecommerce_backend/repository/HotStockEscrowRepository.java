@@ -0,0 +1,20 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.HotStockEscrow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HotStockEscrowRepository extends JpaRepository<HotStockEscrow, Long>, HotStockEscrowRepositoryCustom {
+
+    List<HotStockEscrow> findByNodeId(Integer nodeId);
+
+    boolean existsByProductIdAndNodeId(Long productId, Integer nodeId);
+
+    // Nodes whose flusher has not reported since the cutoff (crashed, or partitioned from the database)
+    @Query("select distinct e.nodeId from HotStockEscrow e where e.heartbeatAt < :cutoff and e.nodeId <> :nodeId")
+    List<Integer> findStaleNodeIds(@Param("cutoff") LocalDateTime cutoff, @Param("nodeId") Integer nodeId);
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * JDBC writes behind the hot-SKU counters. All of them must run inside a transaction.
+ * Lock order is product rows, then escrow rows, like the checkout's own stock updates.
+ */
+public interface HotStockEscrowRepositoryCustom {
+
+    /**
+     * Move up to wanted units of the product's unescrowed stock into the node's escrow; returns the units granted.
+     */
+    int claim(Long productId, int nodeId, int wanted);
+
+    /**
+     * Journal units sold from the node's counters (productId -> quantity), in the selling transaction.
+     */
+    void recordSales(int nodeId, Map<Long, Integer> quantities);
+
+    /**
+     * Fold up to limit journaled sales of the node into product.stock, take them off the escrow, delete them.
+     * Does not heartbeat the escrow, so it can run for a stale node before releaseAll.
+     * Returns the number of journal rows applied.
+     */
+    int applySales(int nodeId, int limit);
+
+    /**
+     * Hand units the node no longer holds in memory back from its escrow to the product.
+     */
+    void release(Long productId, int nodeId, int units);
+
+    /**
+     * Give everything still escrowed to the node back and delete its escrow rows.
+     * Call once its journaled sales are applied. With staleBefore set, only rows whose heartbeat is older are released,
+     * so a node that came back meanwhile keeps its escrow. Returns the units returned.
+     */
+    long releaseAll(int nodeId, LocalDateTime staleBefore);
+
+    /**
+     * Mark the node's escrow rows as alive.
+     */
+    void heartbeat(int nodeId);
+}
@@ -0,0 +1,159 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class HotStockEscrowRepositoryCustomImpl implements HotStockEscrowRepositoryCustom {
+
+    private static final String LOCK_PRODUCT_SQL =
+            "SELECT stock - hot_escrow FROM product WHERE id = ? FOR UPDATE";
+
+    private static final String ADD_PRODUCT_ESCROW_SQL =
+            "UPDATE product SET hot_escrow = hot_escrow + ? WHERE id = ?";
+
+    private static final String ADD_NODE_ESCROW_SQL =
+            "UPDATE hot_stock_escrow SET allotted = allotted + ?, heartbeat_at = ? WHERE product_id = ? AND node_id = ?";
+
+    // Leaves heartbeat_at alone: applying a silent node's sales must not make it look alive
+    private static final String TAKE_NODE_ESCROW_SQL =
+            "UPDATE hot_stock_escrow SET allotted = allotted - ? WHERE product_id = ? AND node_id = ?";
+
+    private static final String INSERT_NODE_ESCROW_SQL =
+            "INSERT INTO hot_stock_escrow (product_id, node_id, allotted, heartbeat_at) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_SALE_SQL =
+            "INSERT INTO hot_stock_sales (product_id, node_id, quantity) VALUES (?, ?, ?)";
+
+    // Locking read: sees sales committed after this transaction started, none is deleted without being applied
+    private static final String LOCK_SALES_SQL =
+            "SELECT id, product_id, quantity FROM hot_stock_sales WHERE node_id = ? ORDER BY id LIMIT ? FOR UPDATE";
+
+    private static final String APPLY_SALES_SQL =
+            "UPDATE product SET stock = stock - ?, hot_escrow = hot_escrow - ? WHERE id = ?";
+
+    private static final String LOG_STOCK_CHANGE_SQL =
+            "INSERT INTO product_changes (product_id, change_type, changed_at) VALUES (?, 'STOCK', ?)";
+
+    private static final String FIND_NODE_PRODUCTS_SQL =
+            "SELECT product_id FROM hot_stock_escrow WHERE node_id = ? ORDER BY product_id";
+
+    private static final String LOCK_NODE_ESCROW_SQL =
+            "SELECT allotted FROM hot_stock_escrow WHERE product_id = ? AND node_id = ? FOR UPDATE";
+
+    private static final String LOCK_STALE_NODE_ESCROW_SQL =
+            "SELECT allotted FROM hot_stock_escrow WHERE product_id = ? AND node_id = ? AND heartbeat_at < ? FOR UPDATE";
+
+    private static final String DELETE_NODE_ESCROW_SQL =
+            "DELETE FROM hot_stock_escrow WHERE product_id = ? AND node_id = ?";
+
+    private static final String HEARTBEAT_SQL =
+            "UPDATE hot_stock_escrow SET heartbeat_at = ? WHERE node_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int claim(Long productId, int nodeId, int wanted) {
+        Integer free = jdbcTemplate.query(LOCK_PRODUCT_SQL,
+                rs -> rs.next() ? rs.getInt(1) : null, productId);
+        int granted = free == null ? 0 : Math.min(wanted, Math.max(free, 0));
+        if (granted == 0) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(ADD_PRODUCT_ESCROW_SQL, granted, productId);
+        // The product row lock taken above serializes claims for this product, so update-then-insert is safe
+        if (jdbcTemplate.update(ADD_NODE_ESCROW_SQL, granted, now, productId, nodeId) == 0) {
+            jdbcTemplate.update(INSERT_NODE_ESCROW_SQL, productId, nodeId, granted, now);
+        }
+        return granted;
+    }
+
+    @Override
+    public void recordSales(int nodeId, Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            args.add(new Object[]{entry.getKey(), nodeId, entry.getValue()});
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SALE_SQL, args);
+        }
+    }
+
+    @Override
+    public int applySales(int nodeId, int limit) {
+        List<Long> saleIds = new ArrayList<>();
+        Map<Long, Integer> sold = new TreeMap<>();
+        jdbcTemplate.query(LOCK_SALES_SQL, rs -> {
+            saleIds.add(rs.getLong("id"));
+            sold.merge(rs.getLong("product_id"), rs.getInt("quantity"), Integer::sum);
+        }, nodeId, limit);
+
+        if (saleIds.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> productArgs = new ArrayList<>();
+        List<Object[]> escrowArgs = new ArrayList<>();
+        List<Object[]> changeArgs = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : sold.entrySet()) {
+            productArgs.add(new Object[]{entry.getValue(), entry.getValue(), entry.getKey()});
+            escrowArgs.add(new Object[]{entry.getValue(), entry.getKey(), nodeId});
+            changeArgs.add(new Object[]{entry.getKey(), now});
+        }
+        jdbcTemplate.batchUpdate(APPLY_SALES_SQL, productArgs);
+        jdbcTemplate.batchUpdate(TAKE_NODE_ESCROW_SQL, escrowArgs);
+        // One change per product and flush: the change stream sees hot products move at the flush rate
+        jdbcTemplate.batchUpdate(LOG_STOCK_CHANGE_SQL, changeArgs);
+
+        String placeholders = String.join(", ", Collections.nCopies(saleIds.size(), "?"));
+        jdbcTemplate.update("DELETE FROM hot_stock_sales WHERE id IN (" + placeholders + ")", saleIds.toArray());
+        return saleIds.size();
+    }
+
+    @Override
+    public void release(Long productId, int nodeId, int units) {
+        if (units <= 0) {
+            return;
+        }
+        jdbcTemplate.update(ADD_PRODUCT_ESCROW_SQL, -units, productId);
+        jdbcTemplate.update(ADD_NODE_ESCROW_SQL, -units, Timestamp.valueOf(LocalDateTime.now()), productId, nodeId);
+    }
+
+    @Override
+    public long releaseAll(int nodeId, LocalDateTime staleBefore) {
+        List<Long> productIds = jdbcTemplate.queryForList(FIND_NODE_PRODUCTS_SQL, Long.class, nodeId);
+
+        long released = 0;
+        for (Long productId : productIds) {
+            // Product row first, then the escrow row, in the same order as claim()
+            jdbcTemplate.query(LOCK_PRODUCT_SQL, rs -> null, productId);
+            Integer allotted = staleBefore == null
+                    ? jdbcTemplate.query(LOCK_NODE_ESCROW_SQL, rs -> rs.next() ? rs.getInt(1) : null, productId, nodeId)
+                    : jdbcTemplate.query(LOCK_STALE_NODE_ESCROW_SQL, rs -> rs.next() ? rs.getInt(1) : null,
+                            productId, nodeId, Timestamp.valueOf(staleBefore));
+            if (allotted == null) {
+                continue;
+            }
+            jdbcTemplate.update(ADD_PRODUCT_ESCROW_SQL, -allotted, productId);
+            jdbcTemplate.update(DELETE_NODE_ESCROW_SQL, productId, nodeId);
+            released += allotted;
+        }
+        return released;
+    }
+
+    @Override
+    public void heartbeat(int nodeId) {
+        jdbcTemplate.update(HEARTBEAT_SQL, Timestamp.valueOf(LocalDateTime.now()), nodeId);
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.OrderNumberBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface OrderNumberBlockRepository extends JpaRepository<OrderNumberBlock, String> {
+
+    // SELECT ... FOR UPDATE so two nodes never receive the same range
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from OrderNumberBlock b where b.name = :name")
+    Optional<OrderNumberBlock> findForUpdate(@Param("name") String name);
+}
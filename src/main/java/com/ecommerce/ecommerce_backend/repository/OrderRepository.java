@@ -1,27 +1,104 @@
 package com.ecommerce.ecommerce_backend.repository;
 
+import com.ecommerce.ecommerce_backend.dto.OrderSummaryDTO;
+import com.ecommerce.ecommerce_backend.dto.OrderVersion;
 import com.ecommerce.ecommerce_backend.entity.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order,Long> {
     List<Order>  findByUserId(Long userId);
 
-    // Order history for a user
+    // Order history for a user (items fetched in the same query)
+    @EntityGraph(attributePaths = "items")
     List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
 
+    // Order history pages, keyset on (createdAt, id) - served by idx_orders_user_created
+    @Query("select o from Order o where o.userId = :userId " +
+            "order by o.createdAt desc, o.id desc")
+    List<Order> findHistoryFirstPage(@Param("userId") Long userId, Limit limit);
+
+    @Query("select o from Order o where o.userId = :userId " +
+            "and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) " +
+            "order by o.createdAt desc, o.id desc")
+    List<Order> findHistoryPageAfter(@Param("userId") Long userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Limit limit);
+
+    // Same pages as summaries only - never touches order_item
+    @Query("select new com.ecommerce.ecommerce_backend.dto.OrderSummaryDTO(" +
+            "o.id, o.orderNumber, o.orderDate, o.totalAmount, o.status, o.paymentMethod, o.paymentStatus, o.createdAt) " +
+            "from Order o where o.userId = :userId " +
+            "order by o.createdAt desc, o.id desc")
+    List<OrderSummaryDTO> findHistorySummaryFirstPage(@Param("userId") Long userId, Limit limit);
+
+    @Query("select new com.ecommerce.ecommerce_backend.dto.OrderSummaryDTO(" +
+            "o.id, o.orderNumber, o.orderDate, o.totalAmount, o.status, o.paymentMethod, o.paymentStatus, o.createdAt) " +
+            "from Order o where o.userId = :userId " +
+            "and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) " +
+            "order by o.createdAt desc, o.id desc")
+    List<OrderSummaryDTO> findHistorySummaryPageAfter(@Param("userId") Long userId,
+                                                      @Param("createdAt") LocalDateTime createdAt,
+                                                      @Param("id") Long id,
+                                                      Limit limit);
+
+
+    // Conditional GET of one order: owner and last update only
+    @Query("select new com.ecommerce.ecommerce_backend.dto.OrderVersion(o.id, o.userId, o.updatedAt) " +
+            "from Order o where o.id = :id")
+    Optional<OrderVersion> findVersionById(@Param("id") Long id);
 
     // Find by order number (for order tracking)
     Optional<Order> findByOrderNumber(String orderNumber);
 
     // Get all orders newest first (for admin)
+    @EntityGraph(attributePaths = "items")
     List<Order> findAllByOrderByCreatedAtDesc();
 
     // Get orders by status (for admin filtering)
+    @EntityGraph(attributePaths = "items")
     List<Order> findByStatusOrderByCreatedAtDesc(String status);
 
     // Get orders by user and status
+    @EntityGraph(attributePaths = "items")
     List<Order> findByUserIdAndStatusOrderByCreatedAtDesc(Long userId, String status);
+
+    // Dashboard rebuild: aggregate one id range (status, payment method, day, count, sum)
+    @Query("select o.status, o.paymentMethod, cast(o.createdAt as LocalDate), count(o), sum(o.totalAmount) " +
+            "from Order o where o.id > :fromId and o.id <= :toId " +
+            "group by o.status, o.paymentMethod, cast(o.createdAt as LocalDate)")
+    List<Object[]> aggregateIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("select coalesce(min(o.id), 0) from Order o")
+    Long findMinId();
+
+    @Query("select coalesce(max(o.id), 0) from Order o")
+    Long findMaxId();
+
+    // Bulk status transitions: lock the headers, then one UPDATE per target status
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id in :ids")
+    List<Order> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.status = :status, o.updatedAt = :updatedAt where o.id in :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("status") String status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Quantities per product across the given orders, for restoring stock on bulk cancel (deleted products skipped)
+    @Query("select i.product.id, sum(i.quantity) from OrderItem i where i.order.id in :ids and i.product is not null group by i.product.id")
+    List<Object[]> sumItemQuantitiesByProduct(@Param("ids") Collection<Long> ids);
 }
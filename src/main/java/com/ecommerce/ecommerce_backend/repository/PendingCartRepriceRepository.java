@@ -0,0 +1,23 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.PendingCartReprice;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface PendingCartRepriceRepository extends JpaRepository<PendingCartReprice, Long> {
+
+    @Query("select p.productId from PendingCartReprice p order by p.createdAt")
+    List<Long> findProductIds(Limit limit);
+
+    // Without loading the row first, so a concurrent delete by another node is not an error
+    @Modifying
+    @Transactional
+    @Query("delete from PendingCartReprice p where p.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.ProductChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    // Cache polling: STOCK rows are filtered here, not shipped to the node and dropped there
+    List<ProductChange> findByIdGreaterThanAndChangeTypeNotOrderByIdAsc(Long id, String changeType, Limit limit);
+
+    // Rows written recently, whatever their id: a transaction can commit after a row with a higher id was already seen.
+    // Stock changes are left out, they do not invalidate caches
+    @Query("select distinct c.productId from ProductChange c where c.changedAt >= :since and c.changeType <> 'STOCK'")
+    List<Long> findProductIdsChangedSince(@Param("since") LocalDateTime since);
+
+    // Change stream: rows of [id, productId] above a version
+    @Query("select c.id, c.productId from ProductChange c where c.id > :after order by c.id")
+    List<Object[]> findProductIdsAfter(@Param("after") Long after, Limit limit);
+
+    @Query("select c.id, c.productId from ProductChange c where c.id > :after order by c.id desc")
+    List<Object[]> findProductIdsAfterNewestFirst(@Param("after") Long after, Limit limit);
+
+    @Query("select max(c.id) from ProductChange c")
+    Long findLatestVersion();
+
+    @Query("select max(c.id) from ProductChange c where c.changeType <> 'STOCK'")
+    Long findLatestCatalogVersion();
+
+    @Query("select min(c.id) from ProductChange c")
+    Long findOldestVersion();
+
+    @Modifying
+    @Transactional
+    @Query("delete from ProductChange c where c.changedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
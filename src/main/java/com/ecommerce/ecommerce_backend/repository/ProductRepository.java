@@ -2,13 +2,23 @@ package com.ecommerce.ecommerce_backend.repository;
 
 import com.ecommerce.ecommerce_backend.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     List<Product> findByIsActiveTrue();
 
+    // Search index rebuild: active products in one id range, only the indexed columns
+    @Query("select p.id, p.name, p.description from Product p " +
+            "where p.isActive = true and p.id > :fromId and p.id <= :toId")
+    List<Object[]> findSearchRows(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("select coalesce(max(p.id), 0) from Product p")
+    Long findMaxId();
+
 }
 
@@ -0,0 +1,69 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.dto.ProductCursor;
+import com.ecommerce.ecommerce_backend.dto.ProductDeltaDTO;
+import com.ecommerce.ecommerce_backend.dto.ProductSort;
+import com.ecommerce.ecommerce_backend.dto.ProductSummaryDTO;
+import com.ecommerce.ecommerce_backend.entity.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based stock updates that bypass the entity read-modify-write cycle, the keyset product listing
+ * and the JDBC batch writes behind the bulk import.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Decrement stock for all products (productId -> quantity) in a single JDBC batch.
+     * Each row is guarded with "stock - hot_escrow >= quantity"; if any guard fails an
+     * InsufficientStockException is thrown so the surrounding transaction rolls back.
+     * Publishes a ProductStockChangedEvent; StockChangeLog logs the STOCK changes after commit.
+     */
+    void reserveStock(Map<Long, Integer> quantities);
+
+    /**
+     * Put stock back (cancelled orders, expired holds) in a single JDBC batch, publishing a ProductStockChangedEvent.
+     */
+    void restoreStock(Map<Long, Integer> quantities);
+
+    /**
+     * Insert one STOCK product change per product in a single JDBC batch.
+     */
+    void logStockChanges(Collection<Long> productIds);
+
+    /**
+     * Current price, stock and active flag of the given products; ids without a row are left out.
+     */
+    List<ProductDeltaDTO> findDeltas(Collection<Long> productIds);
+
+    /**
+     * One page of active products ordered by (sort column, id), starting after the cursor (null for the first page).
+     * minPrice / maxPrice are inclusive and optional; inStockOnly drops products with no stock.
+     */
+    List<ProductSummaryDTO> findActivePage(ProductSort sort, boolean descending, Double minPrice, Double maxPrice,
+                                           boolean inStockOnly, ProductCursor after, int limit);
+
+    /**
+     * Existing products for the given SKUs, as rows of [id, sku, price].
+     */
+    List<Object[]> findImportKeysBySku(Collection<String> skus);
+
+    /**
+     * Insert new products in one JDBC batch (a multi-row INSERT with rewriteBatchedStatements).
+     * Hibernate cannot batch these inserts because Product ids are IDENTITY generated.
+     */
+    void batchInsert(List<Product> products);
+
+    /**
+     * Update name, description, price and stock of existing products by SKU in one JDBC batch.
+     * imageUrl is only replaced when the new value is set; is_active is left alone.
+     *
+     * The given stock is the feed's on-hand quantity: units held by stock reservations are subtracted, since
+     * they go back to stock when the holds end. A row whose remaining stock would not cover its hot-SKU escrow
+     * is not updated (update count 0).
+     */
+    int[] batchUpdateBySku(List<Product> products);
+}
@@ -0,0 +1,217 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.dto.ProductCursor;
+import com.ecommerce.ecommerce_backend.dto.ProductDeltaDTO;
+import com.ecommerce.ecommerce_backend.dto.ProductSort;
+import com.ecommerce.ecommerce_backend.dto.ProductSummaryDTO;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.event.ProductStockChangedEvent;
+import com.ecommerce.ecommerce_backend.exception.InsufficientStockException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    // Units escrowed to hot-SKU counters are not available here
+    private static final String DECREMENT_SQL =
+            "UPDATE product SET stock = stock - ? WHERE id = ? AND stock - hot_escrow >= ?";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE product SET stock = stock + ? WHERE id = ?";
+
+    // For the product change stream; StockChangeLog writes one per product and flush
+    private static final String LOG_STOCK_CHANGE_SQL =
+            "INSERT INTO product_changes (product_id, change_type, changed_at) VALUES (?, 'STOCK', ?)";
+
+    private static final String LIST_COLUMNS_SQL =
+            "SELECT id, name, price, stock, image_url, created_at FROM product WHERE is_active = TRUE";
+
+    private static final String IMPORT_INSERT_SQL =
+            "INSERT INTO product (sku, name, description, price, stock, image_url, is_active, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, TRUE, ?, ?)";
+
+    // Units held by checkout reservations are already out of stock and come back when the holds end
+    private static final String RESERVED_SQL =
+            "(SELECT COALESCE(SUM(r.quantity), 0) FROM stock_reservations r WHERE r.product_id = p.id)";
+
+    private static final String IMPORT_UPDATE_SQL =
+            "UPDATE product p SET name = ?, description = ?, price = ?, stock = ? - " + RESERVED_SQL + ", " +
+            "image_url = COALESCE(?, image_url), updated_at = ? WHERE sku = ? AND ? - " + RESERVED_SQL + " >= hot_escrow";
+
+    private static final RowMapper<ProductSummaryDTO> SUMMARY_MAPPER = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new ProductSummaryDTO(rs.getLong("id"), rs.getString("name"), rs.getDouble("price"),
+                rs.getInt("stock"), rs.getString("image_url"), createdAt != null ? createdAt.toLocalDateTime() : null);
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void reserveStock(Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>();
+        List<Long> productIds = new ArrayList<>();
+
+        // Sorted by id so concurrent checkouts lock rows in the same order (no deadlocks)
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            if (entry.getValue() > 0) {
+                args.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue()});
+                productIds.add(entry.getKey());
+            }
+        }
+
+        if (args.isEmpty()) {
+            return;
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Long productId = productIds.get(i);
+                throw new InsufficientStockException(productId,
+                        "Insufficient stock for product " + productId);
+            }
+        }
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productIds));
+    }
+
+    @Override
+    public void restoreStock(Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>();
+        List<Long> productIds = new ArrayList<>();
+
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            if (entry.getValue() > 0) {
+                args.add(new Object[]{entry.getValue(), entry.getKey()});
+                productIds.add(entry.getKey());
+            }
+        }
+
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+            eventPublisher.publishEvent(new ProductStockChangedEvent(productIds));
+        }
+    }
+
+    @Override
+    public List<ProductDeltaDTO> findDeltas(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+        return jdbcTemplate.query("SELECT id, price, stock, is_active FROM product WHERE id IN (" + placeholders + ")",
+                (rs, rowNum) -> new ProductDeltaDTO(rs.getLong("id"), rs.getDouble("price"), rs.getInt("stock"),
+                        rs.getBoolean("is_active")),
+                productIds.toArray());
+    }
+
+    @Override
+    public List<ProductSummaryDTO> findActivePage(ProductSort sort, boolean descending, Double minPrice, Double maxPrice,
+                                                  boolean inStockOnly, ProductCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(LIST_COLUMNS_SQL);
+        List<Object> args = new ArrayList<>();
+
+        if (minPrice != null) {
+            sql.append(" AND price >= ?");
+            args.add(minPrice);
+        }
+        if (maxPrice != null) {
+            sql.append(" AND price <= ?");
+            args.add(maxPrice);
+        }
+        if (inStockOnly) {
+            sql.append(" AND stock > 0");
+        }
+
+        String column = sort.getColumn();
+        String comparison = descending ? "<" : ">";
+        String direction = descending ? "DESC" : "ASC";
+
+        // NULL names / created_at sort first ascending and last descending (MySQL and H2 alike);
+        // a plain comparison never matches them, so they get their own branch
+        if (after != null && after.getValue() == null) {
+            sql.append(" AND ((").append(column).append(" IS NULL AND id ").append(comparison).append(" ?)");
+            if (!descending) {
+                sql.append(" OR ").append(column).append(" IS NOT NULL");
+            }
+            sql.append(')');
+            args.add(after.getId());
+        } else if (after != null) {
+            Object value = after.getValue() instanceof LocalDateTime createdAt ? Timestamp.valueOf(createdAt) : after.getValue();
+            sql.append(" AND (").append(column).append(' ').append(comparison).append(" ? OR (")
+                    .append(column).append(" = ? AND id ").append(comparison).append(" ?)");
+            if (descending) {
+                sql.append(" OR ").append(column).append(" IS NULL");
+            }
+            sql.append(')');
+            args.add(value);
+            args.add(value);
+            args.add(after.getId());
+        }
+
+        // Served by the (is_active, <column>, id) indexes on product
+        sql.append(" ORDER BY ").append(column).append(' ').append(direction)
+                .append(", id ").append(direction).append(" LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), SUMMARY_MAPPER, args.toArray());
+    }
+
+    @Override
+    public List<Object[]> findImportKeysBySku(Collection<String> skus) {
+        if (skus.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(skus.size(), "?"));
+        return jdbcTemplate.query("SELECT id, sku, price FROM product WHERE sku IN (" + placeholders + ")",
+                (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getString("sku"), rs.getDouble("price")},
+                skus.toArray());
+    }
+
+    @Override
+    public void batchInsert(List<Product> products) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(products.size());
+        for (Product product : products) {
+            args.add(new Object[]{product.getSku(), product.getName(), product.getDescription(), product.getPrice(),
+                    product.getStock(), product.getImageUrl(), now, now});
+        }
+        jdbcTemplate.batchUpdate(IMPORT_INSERT_SQL, args);
+    }
+
+    @Override
+    public int[] batchUpdateBySku(List<Product> products) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(products.size());
+        for (Product product : products) {
+            args.add(new Object[]{product.getName(), product.getDescription(), product.getPrice(), product.getStock(),
+                    product.getImageUrl(), now, product.getSku(), product.getStock()});
+        }
+        return jdbcTemplate.batchUpdate(IMPORT_UPDATE_SQL, args);
+    }
+
+    @Override
+    public void logStockChanges(Collection<Long> productIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            args.add(new Object[]{productId, now});
+        }
+        jdbcTemplate.batchUpdate(LOG_STOCK_CHANGE_SQL, args);
+    }
+}
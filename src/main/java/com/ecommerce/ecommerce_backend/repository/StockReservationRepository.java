@@ -0,0 +1,38 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Locked so expiry and placeOrder never both act on the same hold
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.userId = :userId")
+    List<StockReservation> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.id in :ids")
+    List<StockReservation> findByIdsForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Lock timeout -2 is SKIP LOCKED: nodes sweeping at the same time split the rows instead of queuing
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select r from StockReservation r where r.expiresAt < :now order by r.expiresAt")
+    List<StockReservation> findExpiredForUpdate(@Param("now") LocalDateTime now, Limit limit);
+
+    @Modifying
+    @Query("delete from StockReservation r where r.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.ecommerce_backend.services;
+
+/**
+ * How quantities are combined when a guest cart and a user cart both hold the same product.
+ * Products only in the guest cart are always added.
+ */
+public enum CartMergePolicy {
+    SUM,
+    MAX,
+    KEEP_USER;
+
+    public int resolve(int userQuantity, int guestQuantity) {
+        switch (this) {
+            case MAX:
+                return Math.max(userQuantity, guestQuantity);
+            case KEEP_USER:
+                return userQuantity;
+            default:
+                return userQuantity + guestQuantity;
+        }
+    }
+}
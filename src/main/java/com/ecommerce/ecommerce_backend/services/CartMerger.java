@@ -0,0 +1,64 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.entity.Cart;
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyed merge of guest cart lines into a user cart: one pass over each side (O(n + m)), no database access.
+ * Cart totals are adjusted by delta; the caller writes the returned inserts and updates.
+ */
+final class CartMerger {
+
+    private CartMerger() {
+    }
+
+    static final class Result {
+        final List<CartItem> inserts = new ArrayList<>();
+        // cartItemId -> line, so a line changed twice is written once
+        final Map<Long, CartItem> updates = new LinkedHashMap<>();
+    }
+
+    static Result merge(Cart userCart, Collection<CartItem> userLines, Collection<CartItem> guestLines, CartMergePolicy policy) {
+        Result result = new Result();
+
+        Map<Long, CartItem> byProduct = new HashMap<>(Math.max(16, (userLines.size() + guestLines.size()) * 2));
+        for (CartItem line : userLines) {
+            byProduct.put(line.getProduct().getId(), line);
+        }
+
+        for (CartItem guestLine : guestLines) {
+            Long productId = guestLine.getProduct().getId();
+            CartItem line = byProduct.get(productId);
+
+            if (line == null) {
+                line = new CartItem();
+                line.setCart(userCart);
+                line.setProduct(guestLine.getProduct());
+                line.applyPrice(guestLine.getPrice());
+                userCart.applyDelta(line.changeQuantity(guestLine.getQuantity()), guestLine.getQuantity());
+
+                byProduct.put(productId, line);
+                result.inserts.add(line);
+                continue;
+            }
+
+            int oldQuantity = line.getQuantity();
+            int merged = policy.resolve(oldQuantity, guestLine.getQuantity());
+            if (merged != oldQuantity) {
+                userCart.applyDelta(line.changeQuantity(merged), merged - oldQuantity);
+                if (line.getId() != null) {
+                    result.updates.put(line.getId(), line);
+                }
+            }
+        }
+
+        return result;
+    }
+}
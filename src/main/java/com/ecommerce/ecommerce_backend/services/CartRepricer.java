@@ -0,0 +1,119 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.entity.PendingCartReprice;
+import com.ecommerce.ecommerce_backend.event.ProductPriceChangedEvent;
+import com.ecommerce.ecommerce_backend.repository.PendingCartRepriceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reprices open carts in the background once a product price change has committed.
+ *
+ * Products are coalesced: while a product is waiting in the queue further changes to it add nothing,
+ * the job reads whatever price the product has when it gets to it. A change arriving after that queues it again.
+ * One event (a single update, or a whole import batch) becomes one job, so a large import does not fill the queue.
+ * When the queue is full the products are written to pending_cart_reprices instead, and a periodic sweep
+ * (on any node) queues them again later.
+ */
+@Slf4j
+@Service
+public class CartRepricer {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private PendingCartRepriceRepository pendingCartRepriceRepository;
+
+    @Autowired
+    @Qualifier("cartRepricingExecutor")
+    private ThreadPoolTaskExecutor repricingExecutor;
+
+    @Value("${cart.repricing.retry-batch-size:500}")
+    private int retryBatchSize;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPriceChanged(ProductPriceChangedEvent event) {
+        List<Long> productIds = event.getProductIds();
+        if (!submit(productIds, false)) {
+            log.warn("Repricing queue full, carts of {} products are repriced by the next retry", productIds.size());
+            productIds.forEach(this::defer);
+        }
+    }
+
+    /**
+     * Queue products whose repricing was deferred, as one job; each row is deleted once its product has run.
+     */
+    @Scheduled(fixedDelayString = "${cart.repricing.retry-ms:60000}", initialDelayString = "${cart.repricing.retry-ms:60000}")
+    public void retryDeferred() {
+        List<Long> productIds = pendingCartRepriceRepository.findProductIds(Limit.of(retryBatchSize));
+        if (!productIds.isEmpty()) {
+            submit(productIds, true); // still full: the rows stay for the next run
+        }
+    }
+
+    /**
+     * Returns false if the queue rejected the job. Products already queued count as submitted.
+     */
+    private boolean submit(List<Long> productIds, boolean deferred) {
+        List<Long> queued = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            if (pending.add(productId)) {
+                queued.add(productId);
+            }
+        }
+        if (queued.isEmpty()) {
+            return true;
+        }
+
+        try {
+            repricingExecutor.execute(() -> {
+                for (Long productId : queued) {
+                    pending.remove(productId);
+                    try {
+                        cartService.repriceProduct(productId);
+                        if (deferred) {
+                            pendingCartRepriceRepository.deleteByProductId(productId);
+                        }
+                    } catch (Exception e) {
+                        log.error("❌ Repricing carts for product {} failed", productId, e);
+                        if (!deferred) {
+                            defer(productId);
+                        }
+                    }
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            pending.removeAll(queued);
+            return false;
+        }
+    }
+
+    private void defer(Long productId) {
+        try {
+            pendingCartRepriceRepository.save(new PendingCartReprice(productId));
+        } catch (DataIntegrityViolationException e) {
+            // Deferred by another node at the same time
+        } catch (Exception e) {
+            log.error("❌ Could not defer repricing of product {}, carts keep the old price until its next change", productId, e);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.ecommerce.ecommerce_backend.services;
 
+import com.ecommerce.ecommerce_backend.config.ReadWriteRoutingDataSource;
+import com.ecommerce.ecommerce_backend.dto.CartDTO;
+import com.ecommerce.ecommerce_backend.dto.CartPatchRequest;
+import com.ecommerce.ecommerce_backend.dto.CartSummaryDTO;
 import com.ecommerce.ecommerce_backend.entity.Cart;
 import com.ecommerce.ecommerce_backend.entity.CartItem;
 import com.ecommerce.ecommerce_backend.entity.Product;
@@ -8,12 +12,34 @@ import com.ecommerce.ecommerce_backend.repository.CartItemRepository;
 import com.ecommerce.ecommerce_backend.repository.CartRepository;
 import com.ecommerce.ecommerce_backend.repository.ProductRepository;
 import com.ecommerce.ecommerce_backend.repository.UserRepository;
+import com.ecommerce.ecommerce_backend.util.Money;
+import com.ecommerce.ecommerce_backend.util.StripedLock;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 import java.util.UUID;
 @Slf4j
 @Service
@@ -28,9 +54,39 @@ public class CartService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductCache productCache;
+
     @Autowired
     private UserRepository userRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cart.merge.policy:SUM}")
+    private CartMergePolicy mergePolicy;
+
+    @Value("${cart.repricing.batch-size:500}")
+    private int repricingBatchSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Present only with cart.write-behind.enabled=true
+    @Autowired(required = false)
+    private CartWriteBehindStore cartStore;
+
+    // Serializes creation and changes of one cart (per user / guest key) on this node.
+    // Taken before the transaction starts, so the next writer sees the committed result.
+    private final StripedLock cartLocks = new StripedLock(1024);
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void initTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     public Cart addToCart(String cartId, Long productId, int quantity,User user) {
 
 //        Cart cart = cartRepository.findByCartId(cartId)
@@ -44,31 +100,22 @@ public class CartService {
         log.info("Adding to cart - ProductId: {}, User: {}, CartId: {}",
                 productId, user != null ? user.getId() : "anonymous", cartId);
 
-        // KEY CHANGE: If user is logged in, ALWAYS use their cart
-        Cart cart;
-        if (user != null) {
-            // Authenticated user - ignore cartId parameter
-            cart = cartRepository.findByUserId(user.getId())
-                    .orElseGet(() -> {
-                        Cart c = new Cart();
-                        c.setUser(user);
-                        c.setTotalAmount(0.0);
-                        return cartRepository.save(c);
-                    });
-            log.debug("Using authenticated user cart: {}", cart.getId());
-        } else {
-            // Anonymous user - use cartId
-            cart = cartRepository.findByCartId(cartId)
-                    .orElseGet(() -> {
-                        Cart c = new Cart();
-                        c.setCartId(cartId);
-                        c.setTotalAmount(0.0);
-                        return cartRepository.save(c);
-                    });
-            log.debug("Using anonymous cart: {}", cart.getId());
-        }
-
-        Product product =productRepository.findById(productId)
+        String key = cartKey(cartId, user);
+        return withCartLocks(List.of(key), () -> {
+            if (cartStore != null) {
+                return cartStore.addToCart(key, () -> findOrCreateCartId(cartId, user), productId, quantity);
+            }
+
+            Long cartDbId = findOrCreateCartId(cartId, user);
+            return transactionTemplate.execute(status -> addToCart(cartDbId, productId, quantity));
+        });
+    }
+
+    private Cart addToCart(Long cartDbId, Long productId, int quantity) {
+        Cart cart = cartRepository.findById(cartDbId)
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+
+        Product product =productCache.get(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         CartItem item = cartItemRepository
@@ -78,109 +125,568 @@ public class CartService {
                    ci.setCart(cart);
                    ci.setProduct(product);
                    ci.setQuantity(0);
-                   ci.setPrice(product.getPrice());
+                   ci.applyPrice(product.getPrice());
+                   cart.getItems().add(ci);
                    return ci;
                 });
 
-        item.setQuantity(item.getQuantity() + quantity);
+        long delta = item.changeQuantity(item.getQuantity() + quantity);
         cartItemRepository.save(item);
 
-        double total = cart.getItems().stream()
-                .mapToDouble(i -> i.getPrice() * i.getQuantity())
-                .sum();
+        cart.applyDelta(delta, quantity);
 
-        cart.setTotalAmount(total);
+        Cart saved = cartRepository.save(cart);
+        saved.getItems().size(); // lines are mapped to the response after the transaction
+        return saved;
+    }
+
+    /**
+     * Logged-in users always use their own cart (cartId is ignored), guests use cartId
+     */
+    private static String cartKey(String cartId, User user) {
+        if (user != null) {
+            return CartWriteBehindStore.userKey(user.getId());
+        }
+        if (cartId == null) {
+            throw new RuntimeException("CartId required for guest user");
+        }
+        return CartWriteBehindStore.guestKey(cartId);
+    }
+
+    /**
+     * Id of the user's or guest's cart, created if missing. Must run outside a transaction:
+     * if another node inserts the same cart first, the unique constraint on user_id / cartId
+     * rejects our insert and the row that won is read back instead.
+     */
+    private Long findOrCreateCartId(String cartId, User user) {
+        Supplier<Optional<Cart>> lookup = user != null
+                ? () -> cartRepository.findByUserId(user.getId())
+                : () -> cartRepository.findByCartId(cartId);
+
+        Optional<Cart> existing = lookup.get();
+        if (existing.isPresent()) {
+            return existing.get().getId();
+        }
+
+        Cart cart = new Cart();
+        if (user != null) {
+            cart.setUser(user);
+        } else {
+            cart.setCartId(cartId);
+        }
+        cart.resetTotals();
+
+        try {
+            Long id = cartRepository.save(cart).getId();
+            log.debug("Created cart {} for {}", id, user != null ? "user " + user.getId() : "guest " + cartId);
+            return id;
+        } catch (DataIntegrityViolationException e) {
+            log.info("Cart for {} was created concurrently, using the existing one", user != null ? "user " + user.getId() : "guest " + cartId);
+            return lookup.get().orElseThrow(() -> e).getId();
+        }
+    }
 
-        return cartRepository.save(cart);
+    private <T> T withCartLocks(List<String> keys, Supplier<T> action) {
+        List<Lock> locks = cartLocks.getAll(keys);
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
     }
 
     public Cart getCart(String cartId) {
+        if (cartStore != null) {
+            return cartStore.getCart(CartWriteBehindStore.guestKey(cartId), () -> cartRepository.findByCartId(cartId)
+                    .orElseThrow(() -> new RuntimeException("Cart not found")).getId());
+        }
         return cartRepository.findByCartId(cartId)
                 .orElseThrow(() -> new RuntimeException("Cart not found"));
     }
 
     public Cart getCartByUserId(Long userId) {
+        if (cartStore != null) {
+            return cartStore.getCart(CartWriteBehindStore.userKey(userId), () -> cartRepository.findByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("Cart not found using userId")).getId());
+        }
         return cartRepository.findByUserId(userId).orElseThrow(() -> new RuntimeException("Cart not found using userId"));
     }
 
-    @Transactional
+    /**
+     * Cart for GET /api/cart: one projection query (no entity graph), or the cached cart when write-behind is on
+     */
+    @Transactional(readOnly = true)
+    public CartDTO getCartView(String cartId, Long userId) {
+        if (userId == null) {
+            // Guest edits are not tracked by the replica lag guard (no user), so guests read their cart from the primary
+            return ReadWriteRoutingDataSource.onPrimary(() -> cartView(cartId, null));
+        }
+        return cartView(cartId, userId);
+    }
+
+    private CartDTO cartView(String cartId, Long userId) {
+        if (cartStore != null) {
+            return CartDTO.fromEntity(userId != null ? getCartByUserId(userId) : getCart(cartId));
+        }
+
+        if (userId != null) {
+            CartDTO view = CartDTO.fromRows(cartRepository.findViewByUserId(userId));
+            if (view == null) {
+                throw new RuntimeException("Cart not found using userId");
+            }
+            return view;
+        }
+
+        CartDTO view = CartDTO.fromRows(cartRepository.findViewByCartId(cartId));
+        if (view == null) {
+            throw new RuntimeException("Cart not found");
+        }
+        return view;
+    }
+
+    /**
+     * Cart totals only (item count, total), served from the cart row without loading lines
+     */
+    public CartSummaryDTO getCartSummary(String cartId, Long userId) {
+        if (cartStore != null) {
+            Cart cart = userId != null ? getCartByUserId(userId) : getCart(cartId);
+            return new CartSummaryDTO(cart.getId(), cart.getItemCount(), cart.getTotalMinor());
+        }
+
+        if (userId != null) {
+            return cartRepository.findSummaryByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("Cart not found using userId"));
+        }
+        return cartRepository.findSummaryByCartId(cartId)
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+    }
+
+    /**
+     * Carts written before the minor-unit totals existed get them computed once, in two set-based updates
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillTotals() {
+        int updated = cartRepository.backfillTotals();
+        if (updated > 0) {
+            log.info("Backfilled totals for {} carts", updated);
+        }
+    }
+
+    /**
+     * The unique constraint on cart.user_id was added to a table that may already hold several carts per user,
+     * and ddl-auto gives up on it silently in that case. Merge each user's carts into the newest one
+     * (using the configured merge policy), then add the constraint. Runs once: a no-op while the constraint exists.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void mergeDuplicateUserCarts() {
+        if (cartRepository.hasUserUniqueConstraint()) {
+            return;
+        }
+
+        List<Long> userIds = cartRepository.findUserIdsWithDuplicateCarts();
+        for (Long userId : userIds) {
+            withCartLocks(List.of(CartWriteBehindStore.userKey(userId)),
+                    () -> transactionTemplate.execute(status -> mergeDuplicateCarts(userId)));
+        }
+
+        try {
+            cartRepository.addUserUniqueConstraint();
+            log.info("✅ Merged duplicate carts of {} users, added unique constraint on cart.user_id", userIds.size());
+        } catch (DataAccessException e) {
+            // Another node added it first, or a node without the constraint created a duplicate meanwhile
+            if (!cartRepository.hasUserUniqueConstraint()) {
+                log.error("Could not add unique constraint on cart.user_id, retried on next startup: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Void mergeDuplicateCarts(Long userId) {
+        if (cartStore != null) {
+            evictFromStore(CartWriteBehindStore.userKey(userId));
+        }
+
+        // Newest first; locked so another node running the same merge waits and then finds one cart
+        List<Cart> carts = cartRepository.findAllByUserIdForUpdate(userId);
+        if (carts.size() < 2) {
+            return null;
+        }
+
+        Cart keep = carts.get(0);
+        List<CartItem> keepLines = new ArrayList<>(keep.getItems());
+        List<CartItem> otherLines = new ArrayList<>();
+        for (Cart duplicate : carts.subList(1, carts.size())) {
+            otherLines.addAll(duplicate.getItems());
+        }
+        carts.forEach(entityManager::detach);
+
+        CartMerger.Result result = CartMerger.merge(keep, keepLines, otherLines, mergePolicy);
+        cartItemRepository.updateQuantities(result.updates.values());
+        cartItemRepository.insertItems(keep.getId(), result.inserts);
+        cartRepository.updateTotals(List.of(keep));
+
+        for (Cart duplicate : carts.subList(1, carts.size())) {
+            cartItemRepository.deleteByCartId(duplicate.getId());
+            cartRepository.deleteCartById(duplicate.getId());
+        }
+
+        log.info("Merged {} duplicate carts of user {} into cart {}", carts.size() - 1, userId, keep.getId());
+        return null;
+    }
+
+    /**
+     * Write any buffered changes of the user's cart to the database before it is read from there
+     * (checkout, stock reservation). With evict the cached copy is dropped as well, for callers that
+     * change the cart rows themselves. No-op unless the write-behind store is enabled.
+     */
+    public void flushUserCart(Long userId, boolean evict) {
+        if (cartStore == null) {
+            return;
+        }
+
+        String key = CartWriteBehindStore.userKey(userId);
+        if (evict) {
+            evictFromStore(key);
+        } else {
+            cartStore.flush(key);
+        }
+    }
+
+    private void evictFromStore(String key) {
+        cartStore.flushAndEvict(key);
+
+        // A request racing the caller may cache the old rows again; drop that copy once the caller commits
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cartStore.discard(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Bring every cart line of the product to its current price and adjust the cart totals by the difference.
+     * Carts are handled in id order, batch-size at a time: each batch locks its carts, drops them from the
+     * write-behind store and runs two set-based updates in a short transaction of its own.
+     * Returns the number of lines repriced.
+     */
+    public int repriceProduct(Long productId) {
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null) {
+            return 0;
+        }
+
+        long started = System.currentTimeMillis();
+        double price = product.getPrice();
+        long unitPriceMinor = Money.toMinor(price);
+        long afterCartId = 0;
+        int carts = 0;
+        int lines = 0;
+
+        while (true) {
+            List<Object[]> rows = cartItemRepository.findCartsToReprice(productId, unitPriceMinor, afterCartId, repricingBatchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Long> cartIds = new ArrayList<>(rows.size());
+            List<String> keys = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                cartIds.add((Long) row[0]);
+                keys.add(row[1] != null ? CartWriteBehindStore.userKey((Long) row[1]) : CartWriteBehindStore.guestKey((String) row[2]));
+            }
+
+            lines += withCartLocks(keys, () -> transactionTemplate.execute(status -> {
+                if (cartStore != null) {
+                    keys.stream().filter(cartStore::isCached).forEach(this::evictFromStore);
+                }
+                return cartItemRepository.repriceLines(productId, price, cartIds);
+            }));
+            carts += cartIds.size();
+            afterCartId = cartIds.get(cartIds.size() - 1);
+
+            if (rows.size() < repricingBatchSize) {
+                break;
+            }
+        }
+
+        if (carts > 0) {
+            log.info("💲 Repriced product {} to {}: {} lines in {} carts, {} ms",
+                    productId, price, lines, carts, System.currentTimeMillis() - started);
+        }
+        return lines;
+    }
+
+    /**
+     * Apply an ordered list of add / update / remove operations in one transaction.
+     * All products are resolved with one query, lines are written with JDBC batches,
+     * and the final cart is loaded once. Any invalid operation rolls back the whole request.
+     */
+    public Cart applyOperations(String cartId, User user, List<CartPatchRequest.Operation> operations) {
+        log.info("Applying {} cart operations - User: {}, CartId: {}",
+                operations.size(), user != null ? user.getId() : "anonymous", cartId);
+
+        String key = cartKey(cartId, user);
+        return withCartLocks(List.of(key), () -> {
+            Long cartDbId = findOrCreateCartId(cartId, user);
+            return transactionTemplate.execute(status -> applyOperations(key, cartDbId, operations));
+        });
+    }
+
+    private Cart applyOperations(String key, Long cartDbId, List<CartPatchRequest.Operation> operations) {
+        // The rows are changed below, so the cached copy (if any) must be written and dropped first
+        if (cartStore != null) {
+            evictFromStore(key);
+        }
+
+        Cart cart = cartRepository.findById(cartDbId)
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        List<CartItem> currentItems = new ArrayList<>(cart.getItems());
+
+        // Work on detached copies; the JDBC writes below are the only writes
+        entityManager.detach(cart);
+
+        Set<Long> productIds = new HashSet<>();
+        for (CartPatchRequest.Operation operation : operations) {
+            if (operation.getProductId() != null) {
+                productIds.add(operation.getProductId());
+            }
+        }
+        Map<Long, Product> products = productCache.getAll(productIds);
+
+        Map<Long, CartItem> lines = new LinkedHashMap<>(); // productId -> line
+        for (CartItem item : currentItems) {
+            lines.put(item.getProduct().getId(), item);
+        }
+
+        Set<Long> changed = new HashSet<>();
+        Set<Long> deleted = new HashSet<>();
+        int index = 0;
+
+        for (CartPatchRequest.Operation operation : operations) {
+            index++;
+            String op = operation.getOp().trim().toLowerCase();
+
+            if ("add".equals(op)) {
+                Product product = products.get(operation.getProductId());
+                if (product == null) {
+                    throw new RuntimeException("Operation " + index + ": product not found: " + operation.getProductId());
+                }
+                int quantity = operation.getQuantity() != null ? operation.getQuantity() : 1;
+                if (quantity < 1) {
+                    throw new RuntimeException("Operation " + index + ": quantity must be at least 1");
+                }
+
+                CartItem line = lines.get(product.getId());
+                if (line == null) {
+                    line = new CartItem();
+                    line.setProduct(product);
+                    line.applyPrice(product.getPrice());
+                    lines.put(product.getId(), line);
+                }
+                cart.applyDelta(line.changeQuantity(line.getQuantity() + quantity), quantity);
+                changed.add(product.getId());
+
+            } else if ("update".equals(op) || "remove".equals(op)) {
+                CartItem line = findLine(lines, operation);
+                if (line == null) {
+                    throw new RuntimeException("Operation " + index + ": item not in cart");
+                }
+
+                int quantity = "remove".equals(op) || operation.getQuantity() == null ? 0 : operation.getQuantity();
+                if (quantity < 1) {
+                    cart.applyDelta(-line.getSubtotalMinor(), -line.getQuantity());
+                    lines.remove(line.getProduct().getId());
+                    changed.remove(line.getProduct().getId());
+                    if (line.getId() != null) {
+                        deleted.add(line.getId());
+                    }
+                } else {
+                    int oldQuantity = line.getQuantity();
+                    cart.applyDelta(line.changeQuantity(quantity), quantity - oldQuantity);
+                    changed.add(line.getProduct().getId());
+                }
+
+            } else {
+                throw new RuntimeException("Operation " + index + ": unknown op '" + operation.getOp() + "'");
+            }
+        }
+
+        List<CartItem> inserts = new ArrayList<>();
+        List<CartItem> updates = new ArrayList<>();
+        for (Long productId : changed) {
+            CartItem line = lines.get(productId);
+            if (line.getId() == null) {
+                inserts.add(line);
+            } else {
+                updates.add(line);
+            }
+        }
+
+        cartItemRepository.deleteByIds(deleted);
+        cartItemRepository.updateQuantities(updates);
+        cartItemRepository.insertItems(cart.getId(), inserts);
+        cartRepository.updateTotals(List.of(cart));
+
+        log.info("✅ Cart {} patched: {} added, {} updated, {} removed", cart.getId(), inserts.size(), updates.size(), deleted.size());
+
+        Cart result = cartRepository.findById(cart.getId())
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        result.getItems().size();
+        return result;
+    }
+
+    private CartItem findLine(Map<Long, CartItem> lines, CartPatchRequest.Operation operation) {
+        if (operation.getProductId() != null) {
+            return lines.get(operation.getProductId());
+        }
+        if (operation.getCartItemId() != null) {
+            for (CartItem line : lines.values()) {
+                if (operation.getCartItemId().equals(line.getId())) {
+                    return line;
+                }
+            }
+        }
+        return null;
+    }
+
     public Cart removeCartItem(Long cartItemId) {
+        if (cartStore != null) {
+            Cart cached = cartStore.removeItem(cartItemId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        return withCartLocks(List.of(cartKeyOfItem(cartItemId)),
+                () -> transactionTemplate.execute(status -> removeItem(cartItemId)));
+    }
+
+    private Cart removeItem(Long cartItemId) {
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("CartItem not found"));
 
         Cart cart = cartItem.getCart(); // store before delete
 
+        cart.applyDelta(-cartItem.getSubtotalMinor(), -cartItem.getQuantity());
+        cart.getItems().removeIf(i -> i == cartItem);
         cartItemRepository.delete(cartItem);
 
         return cart;
     }
 
-    @Transactional
     public Cart updateQuantity(Long cartItemId, int quantity) {
+        if (cartStore != null) {
+            Cart cached = cartStore.updateQuantity(cartItemId, quantity);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        return withCartLocks(List.of(cartKeyOfItem(cartItemId)),
+                () -> transactionTemplate.execute(status -> updateItemQuantity(cartItemId, quantity)));
+    }
 
+    private Cart updateItemQuantity(Long cartItemId, int quantity) {
         CartItem item = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
 
+        Cart cart = item.getCart();
+
         if (quantity < 1) {
+            cart.applyDelta(-item.getSubtotalMinor(), -item.getQuantity());
+            cart.getItems().removeIf(i -> i == item);
             cartItemRepository.delete(item);
         } else {
-            item.setQuantity(quantity);
+            int oldQuantity = item.getQuantity();
+            cart.applyDelta(item.changeQuantity(quantity), quantity - oldQuantity);
             cartItemRepository.save(item);
         }
 
-        return item.getCart();
+        cart.getItems().size(); // lines are mapped to the response after the transaction
+        return cart;
+    }
+
+    private String cartKeyOfItem(Long cartItemId) {
+        List<Object[]> rows = cartItemRepository.findCartKeyByItemId(cartItemId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("CartItem not found");
+        }
+        Object[] row = rows.get(0);
+        return row[0] != null ? CartWriteBehindStore.userKey((Long) row[0]) : CartWriteBehindStore.guestKey((String) row[1]);
     }
 
 
     //merge cart
-    @Transactional
     public Cart mergeCart(String guestCartId, Long userId) {
+        return mergeCart(guestCartId, userId, mergePolicy);
+    }
 
-        Cart guestCart = cartRepository.findByCartId(guestCartId)
-                .orElseThrow(() -> new RuntimeException("Guest cart not found"));
+    /**
+     * Merge a guest cart into the user's cart, keyed on product id (O(n + m)).
+     * New lines are inserted with one JDBC batch, changed lines updated with another,
+     * and the guest cart is removed with two single statements.
+     */
+    public Cart mergeCart(String guestCartId, Long userId, CartMergePolicy policy) {
 
         User user = userRepository.findById(userId).orElseThrow(() ->  new RuntimeException("User not found"));
 
-//        Cart userCart = createNewUserCart(user);
+        String guestKey = CartWriteBehindStore.guestKey(guestCartId);
+        String userKey = CartWriteBehindStore.userKey(userId);
 
-        Cart userCart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> createNewUserCart(user));
+        return withCartLocks(List.of(guestKey, userKey), () -> {
+            Long userCartId = findOrCreateCartId(null, user);
+            return transactionTemplate.execute(status -> mergeCart(guestCartId, guestKey, userKey, userCartId, policy));
+        });
+    }
 
-        for (CartItem guestItem : guestCart.getItems()) {
+    private Cart mergeCart(String guestCartId, String guestKey, String userKey, Long userCartId, CartMergePolicy policy) {
+        // Before the first read, so this transaction sees what the store writes
+        if (cartStore != null) {
+            evictFromStore(guestKey);
+            evictFromStore(userKey);
+        }
 
-            Optional<CartItem> existingItem = userCart.getItems().stream()
-                    .filter(i -> i.getProduct().getId()
-                            .equals(guestItem.getProduct().getId()))
-                    .findFirst();
+        Cart guestCart = cartRepository.findByCartId(guestCartId)
+                .orElseThrow(() -> new RuntimeException("Guest cart not found"));
 
-            if (existingItem.isPresent()) {
-                existingItem.get().setQuantity(
-                        existingItem.get().getQuantity() + guestItem.getQuantity()
-                );
-            } else {
-                CartItem newItem = new CartItem();
-                newItem.setProduct(guestItem.getProduct());
-                newItem.setQuantity(guestItem.getQuantity());
-                newItem.setPrice(guestItem.getPrice());
-                newItem.setCart(userCart);
+        Cart userCart = cartRepository.findById(userCartId)
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
 
-                userCart.getItems().add(newItem);
-            }
+        if (guestCart.getId().equals(userCart.getId())) {
+            return userCart;
         }
 
-        cartRepository.save(userCart);
-        cartRepository.delete(guestCart);
+        List<CartItem> userLines = new ArrayList<>(userCart.getItems());
+        List<CartItem> guestLines = new ArrayList<>(guestCart.getItems());
 
-        return userCart;
-    }
+        // Work on detached copies; the statements below are the only writes
+        entityManager.detach(userCart);
+        entityManager.detach(guestCart);
 
-    private Cart createNewUserCart(User user) {
-        Cart cart = new Cart();
-        cart.setUser(user);
-        return cartRepository.save(cart);
-    }
+        CartMerger.Result result = CartMerger.merge(userCart, userLines, guestLines, policy);
+
+        cartItemRepository.updateQuantities(result.updates.values());
+        cartItemRepository.insertItems(userCart.getId(), result.inserts);
+        cartRepository.updateTotals(List.of(userCart));
+
+        cartItemRepository.deleteByCartId(guestCart.getId());
+        cartRepository.deleteCartById(guestCart.getId());
 
+        log.info("✅ Merged guest cart {} into cart {} ({}): {} lines added, {} updated",
+                guestCartId, userCart.getId(), policy, result.inserts.size(), result.updates.size());
 
+        Cart merged = cartRepository.findById(userCart.getId())
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        merged.getItems().size();
+        return merged;
+    }
 
 }
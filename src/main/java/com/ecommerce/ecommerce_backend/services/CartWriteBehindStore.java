@@ -0,0 +1,534 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.entity.Cart;
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.repository.CartItemRepository;
+import com.ecommerce.ecommerce_backend.repository.CartRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process write-behind store for active carts (enabled with cart.write-behind.enabled=true).
+ *
+ * Carts are keyed by "u:{userId}" or "g:{guest cartId}" and guarded by a per-cart lock.
+ * Quantity changes, removals and totals are applied in memory and written to cart / cart_item
+ * in JDBC batches every flush-interval-ms. New lines are inserted straight away so clients get
+ * a real cartItemId back. Anything that reads carts from the database (checkout, reservations,
+ * merge) flushes the cart first through CartService.
+ *
+ * Idle carts and the least recently used carts above max-carts are evicted after they are flushed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cart.write-behind.enabled", havingValue = "true")
+public class CartWriteBehindStore {
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${cart.write-behind.max-carts:10000}")
+    private int maxCarts;
+
+    @Value("${cart.write-behind.idle-seconds:900}")
+    private long idleSeconds;
+
+    private final Map<String, CartState> carts = new ConcurrentHashMap<>();
+
+    // cartItemId -> cart key, so /update/{id} and /remove/{id} can find the cached cart
+    private final Map<Long, String> itemIndex = new ConcurrentHashMap<>();
+
+    // Flushes run one at a time, so an older snapshot can never overwrite a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private TransactionTemplate writeTx;
+
+    private TransactionTemplate loadTx;
+
+    @PostConstruct
+    void initTemplates() {
+        // Own transaction: a flush must stick even if the caller's transaction (e.g. placeOrder) rolls back
+        writeTx = new TransactionTemplate(transactionManager);
+        writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        loadTx = new TransactionTemplate(transactionManager);
+        loadTx.setReadOnly(true);
+    }
+
+    public static String userKey(Long userId) {
+        return "u:" + userId;
+    }
+
+    public static String guestKey(String cartId) {
+        return "g:" + cartId;
+    }
+
+    /**
+     * Add quantity of a product to the cart. cartIdLoader finds or creates the cart row on a cache miss.
+     */
+    public Cart addToCart(String key, Supplier<Long> cartIdLoader, Long productId, int quantity) {
+        return withCart(key, cartIdLoader, state -> {
+            CartItem line = state.lines.get(productId);
+
+            if (line != null) {
+                state.cart.applyDelta(line.changeQuantity(line.getQuantity() + quantity), quantity);
+                state.dirtyItems.add(line.getId());
+            } else {
+                Product product = productCache.get(productId)
+                        .orElseThrow(() -> new RuntimeException("Product not found"));
+
+                CartItem item = new CartItem();
+                item.setCart(state.cart);
+                item.setProduct(product);
+                item.applyPrice(product.getPrice());
+                item.changeQuantity(quantity);
+                line = cartItemRepository.save(item);
+
+                state.lines.put(productId, line);
+                itemIndex.put(line.getId(), key);
+                state.cart.applyDelta(line.getSubtotalMinor(), quantity);
+            }
+
+            state.totalDirty = true;
+            return state.view();
+        });
+    }
+
+    public Cart getCart(String key, Supplier<Long> cartIdLoader) {
+        return withCart(key, cartIdLoader, CartState::view);
+    }
+
+    /**
+     * Set the quantity of a cached cart line (quantity < 1 removes it).
+     * Returns null when the item does not belong to a cached cart.
+     */
+    public Cart updateQuantity(Long cartItemId, int quantity) {
+        return withCachedItem(cartItemId, (state, line) -> {
+            if (quantity < 1) {
+                state.remove(line);
+                itemIndex.remove(cartItemId);
+            } else {
+                int oldQuantity = line.getQuantity();
+                state.cart.applyDelta(line.changeQuantity(quantity), quantity - oldQuantity);
+                state.dirtyItems.add(cartItemId);
+            }
+            state.totalDirty = true;
+            return state.view();
+        });
+    }
+
+    /**
+     * Remove a cached cart line. Returns null when the item does not belong to a cached cart.
+     */
+    public Cart removeItem(Long cartItemId) {
+        return withCachedItem(cartItemId, (state, line) -> {
+            state.remove(line);
+            itemIndex.remove(cartItemId);
+            state.totalDirty = true;
+            return state.view();
+        });
+    }
+
+    public boolean isCached(String key) {
+        return carts.containsKey(key);
+    }
+
+    /**
+     * Write pending changes of one cart to the database now.
+     */
+    public void flush(String key) {
+        CartState state = carts.get(key);
+        if (state != null) {
+            flush(List.of(state));
+        }
+    }
+
+    /**
+     * Write pending changes of one cart and drop it from memory, so the next access reloads it.
+     */
+    public void flushAndEvict(String key) {
+        flushLock.lock();
+        try {
+            CartState state = carts.get(key);
+            if (state == null) {
+                return;
+            }
+
+            state.lock.lock();
+            try {
+                write(List.of(state.snapshot()));
+                evictLocked(key, state);
+            } finally {
+                state.lock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drop a cart from memory without writing it (its rows were changed behind the store's back).
+     */
+    public void discard(String key) {
+        CartState state = carts.get(key);
+        if (state == null) {
+            return;
+        }
+
+        state.lock.lock();
+        try {
+            evictLocked(key, state);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Write-behind tick: flush every dirty cart in one batch, then evict idle and overflow carts.
+     */
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:2000}")
+    public void flushAndEvictIdle() {
+        try {
+            flush(new ArrayList<>(carts.values()));
+        } catch (Exception e) {
+            log.error("❌ Cart write-behind flush failed, will retry: {}", e.getMessage());
+            return;
+        }
+
+        long idleBefore = System.currentTimeMillis() - idleSeconds * 1000;
+        int evicted = 0;
+
+        for (Map.Entry<String, CartState> entry : carts.entrySet()) {
+            if (entry.getValue().lastAccess < idleBefore && tryEvict(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+
+        int overflow = carts.size() - maxCarts;
+        if (overflow > 0) {
+            List<Map.Entry<String, CartState>> oldest = new ArrayList<>(carts.entrySet());
+            oldest.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            for (int i = 0; i < oldest.size() && overflow > 0; i++) {
+                if (tryEvict(oldest.get(i).getKey(), oldest.get(i).getValue())) {
+                    evicted++;
+                    overflow--;
+                }
+            }
+        }
+
+        if (evicted > 0) {
+            log.info("Evicted {} carts from write-behind store, {} cached", evicted, carts.size());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush(new ArrayList<>(carts.values()));
+        log.info("Flushed write-behind carts on shutdown");
+    }
+
+    private Cart withCart(String key, Supplier<Long> cartIdLoader, Function<CartState, Cart> action) {
+        while (true) {
+            CartState state = carts.get(key);
+            if (state == null) {
+                CartState loaded = load(key, cartIdLoader);
+                state = carts.putIfAbsent(key, loaded);
+                if (state == null) {
+                    state = loaded;
+                    for (CartItem line : loaded.lines.values()) {
+                        itemIndex.put(line.getId(), key);
+                    }
+                }
+            }
+
+            state.lock.lock();
+            try {
+                if (state.evicted) {
+                    continue;
+                }
+                state.lastAccess = System.currentTimeMillis();
+                return action.apply(state);
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    private Cart withCachedItem(Long cartItemId, LineAction action) {
+        String key = itemIndex.get(cartItemId);
+        CartState state = key != null ? carts.get(key) : null;
+        if (state == null) {
+            return null;
+        }
+
+        state.lock.lock();
+        try {
+            CartItem line = state.evicted ? null : state.find(cartItemId);
+            if (line == null) {
+                return null;
+            }
+            state.lastAccess = System.currentTimeMillis();
+            return action.apply(state, line);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private CartState load(String key, Supplier<Long> cartIdLoader) {
+        // Outside the read transaction: the loader may create the cart and read back a concurrent insert
+        Long cartId = cartIdLoader.get();
+        Cart cart = loadTx.execute(status -> {
+            Cart c = cartRepository.findById(cartId)
+                    .orElseThrow(() -> new RuntimeException("Cart not found"));
+            c.getItems().size(); // initialize lines while the session is open
+            return c;
+        });
+        log.debug("Loaded cart {} into write-behind store ({} lines)", key, cart.getItems().size());
+        return new CartState(cart);
+    }
+
+    private void flush(List<CartState> states) {
+        flushLock.lock();
+        try {
+            List<Snapshot> snapshots = new ArrayList<>();
+            for (CartState state : states) {
+                state.lock.lock();
+                try {
+                    if (state.isDirty()) {
+                        snapshots.add(state.snapshot());
+                    }
+                } finally {
+                    state.lock.unlock();
+                }
+            }
+
+            write(snapshots);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(List<Snapshot> snapshots) {
+        List<CartItem> lines = new ArrayList<>();
+        Set<Long> deletes = new HashSet<>();
+        List<Cart> totals = new ArrayList<>();
+        for (Snapshot snapshot : snapshots) {
+            lines.addAll(snapshot.lines);
+            deletes.addAll(snapshot.deletes);
+            if (snapshot.totals != null) {
+                totals.add(snapshot.totals);
+            }
+        }
+
+        if (lines.isEmpty() && deletes.isEmpty() && totals.isEmpty()) {
+            return;
+        }
+
+        try {
+            writeTx.executeWithoutResult(status -> {
+                cartItemRepository.deleteByIds(deletes);
+                cartItemRepository.updateQuantities(lines);
+                cartRepository.updateTotals(totals);
+            });
+        } catch (RuntimeException e) {
+            // Put the work back so the next flush retries it
+            for (Snapshot snapshot : snapshots) {
+                snapshot.restore();
+            }
+            throw e;
+        }
+
+        log.debug("Flushed {} carts: {} quantity updates, {} deletes", snapshots.size(), lines.size(), deletes.size());
+    }
+
+    private boolean tryEvict(String key, CartState state) {
+        state.lock.lock();
+        try {
+            if (state.isDirty()) {
+                return false;
+            }
+            evictLocked(key, state);
+            return true;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private void evictLocked(String key, CartState state) {
+        state.evicted = true;
+        carts.remove(key, state);
+        for (CartItem line : state.lines.values()) {
+            itemIndex.remove(line.getId(), key);
+        }
+    }
+
+    private interface LineAction {
+        Cart apply(CartState state, CartItem line);
+    }
+
+    /**
+     * One cached cart. All fields are only touched while holding lock.
+     */
+    private static final class CartState {
+        final ReentrantLock lock = new ReentrantLock();
+        final Cart cart;
+        final Map<Long, CartItem> lines = new LinkedHashMap<>(); // productId -> line
+        final Set<Long> dirtyItems = new HashSet<>();
+        final Set<Long> deletedItems = new HashSet<>();
+        boolean totalDirty;
+        boolean evicted;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        CartState(Cart loaded) {
+            cart = new Cart();
+            cart.setId(loaded.getId());
+            cart.setCartId(loaded.getCartId());
+            cart.setUser(loaded.getUser());
+            cart.setTotalAmount(loaded.getTotalAmount() != null ? loaded.getTotalAmount() : 0.0);
+            cart.setTotalMinor(loaded.getTotalMinor());
+            cart.setItemCount(loaded.getItemCount());
+            cart.setCreatedAt(loaded.getCreatedAt());
+            cart.setUpdatedAt(loaded.getUpdatedAt());
+            for (CartItem item : loaded.getItems()) {
+                lines.put(item.getProduct().getId(), item);
+            }
+        }
+
+        CartItem find(Long cartItemId) {
+            for (CartItem line : lines.values()) {
+                if (line.getId().equals(cartItemId)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        void remove(CartItem line) {
+            cart.applyDelta(-line.getSubtotalMinor(), -line.getQuantity());
+            lines.remove(line.getProduct().getId());
+            dirtyItems.remove(line.getId());
+            deletedItems.add(line.getId());
+        }
+
+        boolean isDirty() {
+            return totalDirty || !dirtyItems.isEmpty() || !deletedItems.isEmpty();
+        }
+
+        Snapshot snapshot() {
+            List<CartItem> changed = new ArrayList<>();
+            for (Long id : dirtyItems) {
+                CartItem line = find(id);
+                if (line != null) {
+                    CartItem copy = new CartItem();
+                    copy.setId(id);
+                    copy.setQuantity(line.getQuantity());
+                    copy.setSubtotalMinor(line.getSubtotalMinor());
+                    changed.add(copy);
+                }
+            }
+
+            Cart totals = null;
+            if (totalDirty) {
+                totals = new Cart();
+                totals.setId(cart.getId());
+                totals.setTotalMinor(cart.getTotalMinor());
+                totals.setItemCount(cart.getItemCount());
+                totals.setTotalAmount(cart.getTotalAmount());
+            }
+
+            Snapshot snapshot = new Snapshot(this, changed, new HashSet<>(deletedItems), totals);
+            dirtyItems.clear();
+            deletedItems.clear();
+            totalDirty = false;
+            return snapshot;
+        }
+
+        /**
+         * Detached copy for the response, so serialization never races with later edits.
+         */
+        Cart view() {
+            Cart view = new Cart();
+            view.setId(cart.getId());
+            view.setCartId(cart.getCartId());
+            view.setUser(cart.getUser());
+            view.setTotalAmount(cart.getTotalAmount());
+            view.setTotalMinor(cart.getTotalMinor());
+            view.setItemCount(cart.getItemCount());
+            view.setCreatedAt(cart.getCreatedAt());
+            view.setUpdatedAt(cart.getUpdatedAt());
+            for (CartItem line : lines.values()) {
+                CartItem copy = new CartItem();
+                copy.setId(line.getId());
+                copy.setCart(view);
+                copy.setProduct(line.getProduct());
+                copy.setQuantity(line.getQuantity());
+                copy.setPrice(line.getPrice());
+                copy.setUnitPriceMinor(line.getUnitPriceMinor());
+                copy.setSubtotalMinor(line.getSubtotalMinor());
+                copy.setCreatedAt(line.getCreatedAt());
+                copy.setUpdatedAt(line.getUpdatedAt());
+                view.getItems().add(copy);
+            }
+            return view;
+        }
+    }
+
+    private static final class Snapshot {
+        final CartState state;
+        final List<CartItem> lines;
+        final Set<Long> deletes;
+        final Cart totals;
+
+        Snapshot(CartState state, List<CartItem> lines, Set<Long> deletes, Cart totals) {
+            this.state = state;
+            this.lines = lines;
+            this.deletes = deletes;
+            this.totals = totals;
+        }
+
+        void restore() {
+            state.lock.lock();
+            try {
+                for (CartItem line : lines) {
+                    if (state.find(line.getId()) != null) {
+                        state.dirtyItems.add(line.getId());
+                    }
+                }
+                state.deletedItems.addAll(deletes);
+                state.totalDirty |= totals != null;
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+}
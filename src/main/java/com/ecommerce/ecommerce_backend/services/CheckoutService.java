@@ -0,0 +1,172 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.PlaceOrderRequest;
+import com.ecommerce.ecommerce_backend.entity.CheckoutRequest;
+import com.ecommerce.ecommerce_backend.entity.Order;
+import com.ecommerce.ecommerce_backend.exception.CheckoutBusyException;
+import com.ecommerce.ecommerce_backend.repository.CheckoutRequestRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Idempotent, asynchronous checkout.
+ * The request thread only records the checkout and returns; the bounded checkoutExecutor pool
+ * runs placeOrder (stock, order, cart clear) and stores the outcome on the same record.
+ */
+@Slf4j
+@Service
+public class CheckoutService {
+
+    @Autowired
+    private CheckoutRequestRepository checkoutRequestRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor checkoutExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Accept a checkout for processing.
+     * A key that was already used by this user returns the original record and nothing is re-executed.
+     */
+    public CheckoutRequest submit(Long userId, String idempotencyKey, PlaceOrderRequest request) {
+        String payload = toJson(request);
+
+        CheckoutRequest existing = checkoutRequestRepository
+                .findByUserIdAndIdempotencyKey(userId, idempotencyKey).orElse(null);
+        if (existing != null) {
+            return verifySamePayload(existing, payload);
+        }
+
+        CheckoutRequest checkout = new CheckoutRequest();
+        checkout.setUserId(userId);
+        checkout.setIdempotencyKey(idempotencyKey);
+        checkout.setRequestPayload(payload);
+        checkout.setStatus(CheckoutRequest.PENDING);
+
+        try {
+            checkout = checkoutRequestRepository.saveAndFlush(checkout);
+        } catch (DataIntegrityViolationException e) {
+            // Same key submitted concurrently - the other request won, return its record
+            CheckoutRequest winner = checkoutRequestRepository
+                    .findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .orElseThrow(() -> e);
+            return verifySamePayload(winner, payload);
+        }
+
+        try {
+            dispatch(checkout.getId());
+        } catch (TaskRejectedException e) {
+            // Nothing ran yet: forget the record so the client can retry with the same key
+            checkoutRequestRepository.deleteById(checkout.getId());
+            throw new CheckoutBusyException("Checkout is busy, please retry shortly");
+        }
+
+        log.info("🧾 Checkout {} accepted for user {} (key {})", checkout.getId(), userId, idempotencyKey);
+        return checkout;
+    }
+
+    public CheckoutRequest getCheckout(Long userId, String idempotencyKey) {
+        return checkoutRequestRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .orElseThrow(() -> new RuntimeException("Checkout not found for key: " + idempotencyKey));
+    }
+
+    /**
+     * Checkouts accepted before a restart are still PENDING - hand them to the pool again.
+     * Safe to repeat: the order and the COMPLETED status are committed in one transaction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingCheckouts() {
+        List<Long> pending = checkoutRequestRepository.findIdsByStatus(CheckoutRequest.PENDING);
+        if (!pending.isEmpty()) {
+            log.info("Resuming {} pending checkouts", pending.size());
+            pending.forEach(this::dispatch);
+        }
+    }
+
+    private void dispatch(Long checkoutId) {
+        checkoutExecutor.execute(() -> process(checkoutId));
+    }
+
+    private void process(Long checkoutId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        try {
+            // Before the transaction: a block refill must not wait for a connection while this one is held
+            String orderNumber = orderService.generateOrderNumber();
+
+            transaction.executeWithoutResult(status -> {
+                CheckoutRequest checkout = checkoutRequestRepository.findForUpdate(checkoutId).orElse(null);
+                if (checkout == null || !CheckoutRequest.PENDING.equals(checkout.getStatus())) {
+                    return;
+                }
+
+                PlaceOrderRequest request = fromJson(checkout.getRequestPayload());
+                Order order = orderService.placeOrder(request, checkout.getUserId(), orderNumber);
+
+                checkout.setStatus(CheckoutRequest.COMPLETED);
+                checkout.setOrderId(order.getId());
+                checkoutRequestRepository.save(checkout);
+
+                log.info("✅ Checkout {} completed with order {}", checkoutId, order.getOrderNumber());
+            });
+        } catch (Exception e) {
+            log.error("❌ Checkout {} failed: {}", checkoutId, e.getMessage());
+            transaction.executeWithoutResult(status ->
+                    checkoutRequestRepository.findForUpdate(checkoutId).ifPresent(checkout -> {
+                        checkout.setStatus(CheckoutRequest.FAILED);
+                        checkout.setErrorMessage(truncate(e.getMessage()));
+                        checkoutRequestRepository.save(checkout);
+                    }));
+        }
+    }
+
+    private CheckoutRequest verifySamePayload(CheckoutRequest checkout, String payload) {
+        if (!checkout.getRequestPayload().equals(payload)) {
+            throw new IllegalStateException("Idempotency-Key was already used for a different checkout request");
+        }
+        return checkout;
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return "Checkout failed";
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private String toJson(PlaceOrderRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize checkout request", e);
+        }
+    }
+
+    private PlaceOrderRequest fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, PlaceOrderRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not read checkout request", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.repository.CartRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes guest carts (no user) that have not been updated for guest-ttl-hours.
+ *
+ * Each run works in batches of batch-size carts: one indexed keyset select, then two set-based deletes in a short
+ * transaction of their own. It sleeps pause-ms between batches, stops after max-batches, and gives way as soon
+ * as the checkout pool has queued work, so it never holds locks that checkouts are waiting for.
+ */
+@Slf4j
+@Service
+public class GuestCartSweeper {
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("checkoutExecutor")
+    private ThreadPoolTaskExecutor checkoutExecutor;
+
+    @Autowired(required = false)
+    private CartWriteBehindStore cartStore;
+
+    @Value("${cart.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cart.sweeper.guest-ttl-hours:72}")
+    private long ttlHours;
+
+    @Value("${cart.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cart.sweeper.max-batches:100}")
+    private int maxBatches;
+
+    @Value("${cart.sweeper.pause-ms:200}")
+    private long pauseMillis;
+
+    private final AtomicLong totalCartsDeleted = new AtomicLong();
+    private final AtomicLong totalItemsDeleted = new AtomicLong();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void initTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.sweeper.interval-ms:600000}", initialDelayString = "${cart.sweeper.initial-delay-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(ttlHours);
+        int batches = 0;
+        long carts = 0;
+        long items = 0;
+        String stoppedBy = "done";
+        Object[] last = null; // (id, cartId, updatedAt) of the last cart seen
+
+        while (batches < maxBatches) {
+            if (checkoutBusy()) {
+                stoppedBy = "checkout busy";
+                break;
+            }
+
+            List<Object[]> rows = last == null
+                    ? cartRepository.findIdleGuestCarts(cutoff, Limit.of(batchSize))
+                    : cartRepository.findIdleGuestCartsAfter(cutoff, (LocalDateTime) last[2], (Long) last[0], Limit.of(batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            last = rows.get(rows.size() - 1);
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                // A cart held by the write-behind store is in use, whatever its row says
+                if (cartStore == null || !cartStore.isCached(CartWriteBehindStore.guestKey((String) row[1]))) {
+                    ids.add((Long) row[0]);
+                }
+            }
+
+            // A batch made only of cached carts deletes nothing; the keyset still moves past it
+            if (!ids.isEmpty()) {
+                long[] deleted = transactionTemplate.execute(status -> new long[]{
+                        cartRepository.deleteIdleGuestCartItems(ids, cutoff),
+                        cartRepository.deleteIdleGuestCarts(ids, cutoff)
+                });
+                items += deleted[0];
+                carts += deleted[1];
+            }
+            batches++;
+
+            if (rows.size() < batchSize) {
+                break;
+            }
+            if (batches == maxBatches) {
+                stoppedBy = "max batches";
+                break;
+            }
+
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stoppedBy = "interrupted";
+                break;
+            }
+        }
+
+        totalCartsDeleted.addAndGet(carts);
+        totalItemsDeleted.addAndGet(items);
+
+        if (carts > 0 || !"done".equals(stoppedBy)) {
+            log.info("🧹 Guest cart sweep: {} carts / {} items deleted in {} batches, {} ms ({}); total {} carts / {} items",
+                    carts, items, batches, System.currentTimeMillis() - started, stoppedBy,
+                    totalCartsDeleted.get(), totalItemsDeleted.get());
+        }
+    }
+
+    private boolean checkoutBusy() {
+        return checkoutExecutor.getQueueSize() > 0;
+    }
+}
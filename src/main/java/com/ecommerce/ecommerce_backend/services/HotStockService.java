@@ -0,0 +1,348 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.entity.HotStockEscrow;
+import com.ecommerce.ecommerce_backend.exception.InsufficientStockException;
+import com.ecommerce.ecommerce_backend.repository.HotStockEscrowRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import com.ecommerce.ecommerce_backend.util.ShardedStockCounter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hot-SKU inventory mode for flash sales (inventory.hot.enabled, products listed in inventory.hot.product-ids).
+ *
+ * Each node claims chunks of a hot product's stock into an escrow (product.hot_escrow plus its hot_stock_escrow row)
+ * and sells them from in-memory ShardedStockCounters, so checkouts no longer queue on the product row lock.
+ * A sale journals its quantity in hot_stock_sales inside the checkout transaction; a rollback puts the units back.
+ * The flusher folds the journal into product.stock, heartbeats the escrow and tops counters up.
+ * Checkouts never claim escrow themselves: when a counter runs dry the checkout takes that product through the
+ * row path (the stock not escrowed to any node) and a refill is queued on hotStockRefillExecutor.
+ *
+ * Nothing is oversold: escrowed units are excluded from the normal stock guard, and a node only sells what it
+ * has claimed. After a crash, the node's unsold units are its escrow minus its journaled sales; they are returned
+ * on restart, or by another node once the escrow heartbeat is older than inventory.hot.node-timeout-seconds.
+ * A node that cannot heartbeat for half that time stops selling from memory and falls back to the row path.
+ */
+@Slf4j
+@Service
+public class HotStockService {
+
+    @Autowired
+    private HotStockEscrowRepository hotStockEscrowRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("hotStockRefillExecutor")
+    private ThreadPoolTaskExecutor refillExecutor;
+
+    @Value("${inventory.hot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.hot.product-ids:}")
+    private List<Long> hotProductIds;
+
+    @Value("${inventory.hot.node-id:${order.number.node-id:0}}")
+    private int nodeId;
+
+    @Value("${inventory.hot.shards:16}")
+    private int shardCount;
+
+    @Value("${inventory.hot.refill-size:200}")
+    private int refillSize;
+
+    @Value("${inventory.hot.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    @Value("${inventory.hot.node-timeout-seconds:60}")
+    private long nodeTimeoutSeconds;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, ShardedStockCounter> counters = new ConcurrentHashMap<>();
+
+    // Products with a refill queued or running
+    private final Set<Long> refilling = ConcurrentHashMap.newKeySet();
+
+    // Sales taken from the counters whose transaction has not finished yet
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile boolean ready;
+    private volatile boolean closing;
+    private volatile long leaseExpiresAt;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Return whatever a previous run of this node left in escrow, then claim fresh stock for the hot products.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || hotProductIds.isEmpty()) {
+            return;
+        }
+
+        long returned = reconcile(nodeId, null);
+        if (returned > 0) {
+            log.warn("♻️ Returned {} hot-stock units escrowed by the previous run of node {}", returned, nodeId);
+        }
+
+        for (Long productId : hotProductIds) {
+            counters.put(productId, new ShardedStockCounter(shardCount));
+        }
+        renewLease();
+        ready = true;
+        topUp();
+
+        log.info("🔥 Hot-stock counters ready for products {} on node {}", hotProductIds, nodeId);
+    }
+
+    /**
+     * Guarded stock decrement for a checkout, inside its transaction. Hot products are served from the counters
+     * and journaled; all other products (and hot ones the counters cannot cover right now) go to
+     * productRepository.reserveStock. Throws InsufficientStockException like the row path.
+     */
+    public void reserveStock(Map<Long, Integer> quantities) {
+        Map<Long, Integer> cold = new HashMap<>();
+        Map<Long, Integer> hot = new TreeMap<>();
+        boolean usable = usable() && TransactionSynchronizationManager.isSynchronizationActive();
+        quantities.forEach((productId, quantity) -> {
+            if (quantity <= 0) {
+                return;
+            }
+            if (usable && counters.containsKey(productId)) {
+                hot.put(productId, quantity);
+            } else {
+                cold.put(productId, quantity);
+            }
+        });
+
+        if (!hot.isEmpty()) {
+            takeFromCounters(hot, cold);
+        }
+        productRepository.reserveStock(cold);
+    }
+
+    /**
+     * Quantities the counters cannot cover are added to cold, for the row path.
+     */
+    private void takeFromCounters(Map<Long, Integer> quantities, Map<Long, Integer> cold) {
+        Map<Long, Integer> taken = new HashMap<>();
+
+        // Registered before the first take, so a failure half way gives back what was already taken
+        inFlight.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Not on STATUS_UNKNOWN: the sale may have committed, and units lost here are returned by reconciliation
+                if (status == STATUS_ROLLED_BACK) {
+                    taken.forEach((productId, quantity) -> counters.get(productId).add(quantity));
+                }
+                inFlight.decrementAndGet();
+            }
+        });
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            int quantity = entry.getValue();
+            ShardedStockCounter counter = counters.get(productId);
+
+            if (counter.tryTake(quantity)) {
+                taken.put(productId, quantity);
+            } else {
+                // No claim in here: it would hold this transaction's connection and row locks while it waits
+                requestRefill(productId, quantity);
+                cold.put(productId, quantity);
+            }
+        }
+
+        hotStockEscrowRepository.recordSales(nodeId, taken);
+    }
+
+    /**
+     * Queue a claim for the product unless one is queued or running already.
+     */
+    private void requestRefill(Long productId, int quantity) {
+        if (!refilling.add(productId)) {
+            return;
+        }
+        try {
+            refillExecutor.execute(() -> {
+                try {
+                    refill(productId, Math.max(refillSize, quantity));
+                } catch (Exception e) {
+                    log.error("❌ Hot-stock refill of product {} failed: {}", productId, e.getMessage());
+                } finally {
+                    refilling.remove(productId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            refilling.remove(productId);
+        }
+    }
+
+    /**
+     * Claim escrow until the counter holds target units, in a transaction of its own. Never called from a checkout.
+     */
+    private void refill(Long productId, long target) {
+        ShardedStockCounter counter = counters.get(productId);
+        // One claim per product at a time, and never while dropReclaimedCounters is checking this product
+        synchronized (counter) {
+            long missing = target - counter.available();
+            if (missing > 0 && usable()) {
+                counter.add(transactionTemplate.execute(status ->
+                        hotStockEscrowRepository.claim(productId, nodeId, (int) missing)));
+            }
+        }
+    }
+
+    /**
+     * Fold journaled sales into product.stock, renew the escrow lease, and top up counters running low.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot.flush-interval-ms:500}")
+    public void flush() {
+        if (!ready || closing) {
+            return;
+        }
+        try {
+            applySales(nodeId);
+            List<HotStockEscrow> escrows = transactionTemplate.execute(status -> {
+                hotStockEscrowRepository.heartbeat(nodeId);
+                return hotStockEscrowRepository.findByNodeId(nodeId);
+            });
+            // Before the lease is renewed: units of a reclaimed escrow must not be sold again
+            dropReclaimedCounters(escrows);
+            renewLease();
+            topUp();
+        } catch (Exception e) {
+            log.error("❌ Hot-stock flush failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Return the escrow of nodes that stopped heartbeating (crashed, or cut off from the database).
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot.reclaim-interval-ms:30000}")
+    public void reclaimStaleNodes() {
+        if (!ready || closing) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(nodeTimeoutSeconds);
+        for (Integer staleNode : hotStockEscrowRepository.findStaleNodeIds(cutoff, nodeId)) {
+            try {
+                long returned = reconcile(staleNode, cutoff);
+                if (returned > 0) {
+                    log.warn("♻️ Returned {} hot-stock units escrowed by silent node {}", returned, staleNode);
+                }
+            } catch (Exception e) {
+                log.error("❌ Could not reclaim hot stock of node {}: {}", staleNode, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop selling from memory, let running checkouts finish, then hand the unsold escrow back.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!ready) {
+            return;
+        }
+        closing = true;
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        counters.values().forEach(ShardedStockCounter::drainAll);
+
+        long returned = reconcile(nodeId, null);
+        log.info("🔥 Hot-stock counters stopped, {} unsold units returned to stock", returned);
+    }
+
+    private boolean usable() {
+        return enabled && ready && !closing && System.currentTimeMillis() < leaseExpiresAt;
+    }
+
+    private void renewLease() {
+        leaseExpiresAt = System.currentTimeMillis() + nodeTimeoutSeconds * 1000 / 2;
+    }
+
+    private void applySales(int node) {
+        int applied;
+        do {
+            applied = transactionTemplate.execute(status -> hotStockEscrowRepository.applySales(node, flushBatchSize));
+        } while (applied == flushBatchSize);
+    }
+
+    /**
+     * Apply the node's journal and release its remaining escrow; unsold units become normal stock again.
+     */
+    private long reconcile(int node, LocalDateTime staleBefore) {
+        applySales(node);
+        return transactionTemplate.execute(status -> hotStockEscrowRepository.releaseAll(node, staleBefore));
+    }
+
+    private void topUp() {
+        int lowWatermark = Math.max(1, refillSize / 4);
+        counters.forEach((productId, counter) -> {
+            if (counter.available() < lowWatermark) {
+                refill(productId, refillSize);
+            }
+        });
+    }
+
+    /**
+     * Our escrow was reclaimed by another node (we missed heartbeats): the units on the counters are not ours anymore.
+     */
+    private void dropReclaimedCounters(List<HotStockEscrow> escrows) {
+        Set<Long> escrowed = new HashSet<>();
+        for (HotStockEscrow escrow : escrows) {
+            escrowed.add(escrow.getProductId());
+        }
+        counters.forEach((productId, counter) -> {
+            if (escrowed.contains(productId)) {
+                return;
+            }
+            // Re-checked under the counter lock: a refill may have created the escrow since it was read
+            synchronized (counter) {
+                if (!hotStockEscrowRepository.existsByProductIdAndNodeId(productId, nodeId)) {
+                    long dropped = counter.drainAll();
+                    if (dropped > 0) {
+                        log.warn("⚠️ Escrow of product {} was reclaimed, dropped {} units from the counters", productId, dropped);
+                    }
+                }
+            }
+        });
+    }
+}
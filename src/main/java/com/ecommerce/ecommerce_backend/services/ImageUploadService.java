@@ -21,6 +21,10 @@ public class ImageUploadService {
     @Value("${server.url:http://localhost:8080}")
     private String serverUrl;
 
+    // The multipart limit is sized for CSV imports; images keep their own
+    @Value("${upload.image.max-size-bytes:5242880}")
+    private long maxImageSize;
+
     /**
      * Upload image to local filesystem
      * Returns the URL to access the image
@@ -32,6 +36,10 @@ public class ImageUploadService {
             throw new IllegalArgumentException("File is empty");
         }
 
+        if (file.getSize() > maxImageSize) {
+            throw new IllegalArgumentException("Image is larger than " + maxImageSize / (1024 * 1024) + "MB");
+        }
+
         // Validate file type
         String contentType = file.getContentType();
         if (contentType == null || !contentType.startsWith("image/")) {
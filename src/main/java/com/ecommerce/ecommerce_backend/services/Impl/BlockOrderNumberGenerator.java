@@ -0,0 +1,152 @@
+package com.ecommerce.ecommerce_backend.services.Impl;
+
+import com.ecommerce.ecommerce_backend.services.OrderNumberBlockService;
+import com.ecommerce.ecommerce_backend.services.OrderNumberGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Year;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sequential order numbers (ORD-2026-00001) handed out from in-memory ranges.
+ * Each node reserves block-size numbers at a time from the order_number_block table,
+ * so a checkout only touches the database when its node's range runs out.
+ * Numbers are unique across nodes but not gap-free (unused ranges are lost on restart).
+ *
+ * Blocks are always allocated on the orderNumberExecutor thread, never on the caller's: a checkout may already
+ * hold a pooled connection, and the allocation needs one of its own. The next block is fetched in the background
+ * once prefetch-percent of the current one is left, so callers rarely wait for it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order.number.strategy", havingValue = "block", matchIfMissing = true)
+public class BlockOrderNumberGenerator implements OrderNumberGenerator {
+
+    @Autowired
+    private OrderNumberBlockService orderNumberBlockService;
+
+    @Autowired
+    @Qualifier("orderNumberExecutor")
+    private Executor prefetchExecutor;
+
+    @Value("${order.number.block-size:100}")
+    private int blockSize;
+
+    @Value("${order.number.prefetch-percent:20}")
+    private int prefetchPercent;
+
+    private final AtomicReference<Range> current = new AtomicReference<>(Range.EMPTY);
+
+    // Next block, being fetched or ready; null when none was requested yet
+    private final AtomicReference<CompletableFuture<Range>> prefetched = new AtomicReference<>();
+
+    private final Object refillLock = new Object();
+
+    @Override
+    public String nextOrderNumber() {
+        return nextOrderNumber(Year.now().getValue());
+    }
+
+    String nextOrderNumber(int currentYear) {
+        while (true) {
+            Range range = current.get();
+            // Never back to an older year: threads that read the clock just before New Year use the new range too
+            int year = Math.max(currentYear, range.year);
+
+            if (range.year == year) {
+                long value = range.next.getAndIncrement();
+                if (value < range.end) {
+                    if (range.end - value == Math.max(1, (long) blockSize * prefetchPercent / 100)) {
+                        prefetch(year);
+                    }
+                    return String.format("ORD-%d-%05d", year, value);
+                }
+            }
+
+            // Range exhausted (or year rolled over): only one thread takes the next block, the rest retry
+            synchronized (refillLock) {
+                if (current.get() == range) {
+                    current.set(takeNext(year));
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Range> prefetch(int year) {
+        while (true) {
+            CompletableFuture<Range> pending = prefetched.get();
+            if (pending != null && !pending.isCompletedExceptionally()) {
+                return pending;
+            }
+            CompletableFuture<Range> fetch = new CompletableFuture<>();
+            if (prefetched.compareAndSet(pending, fetch)) {
+                prefetchExecutor.execute(() -> {
+                    try {
+                        fetch.complete(allocate(year));
+                    } catch (Exception e) {
+                        log.error("❌ Could not allocate order number block for {}: {}", year, e.getMessage());
+                        fetch.completeExceptionally(e);
+                    }
+                });
+                return fetch;
+            }
+        }
+    }
+
+    private Range takeNext(int year) {
+        while (true) {
+            CompletableFuture<Range> pending = prefetch(year);
+            Range next;
+            try {
+                next = pending.join();
+            } catch (CompletionException e) {
+                prefetched.compareAndSet(pending, null);
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            prefetched.compareAndSet(pending, null);
+
+            // A block fetched before New Year is dropped (its numbers are never used) and one for the new year taken
+            if (next.year == year) {
+                return next;
+            }
+        }
+    }
+
+    private Range allocate(int year) {
+        String name = "ORD-" + year;
+        long start;
+        try {
+            start = orderNumberBlockService.allocateBlock(name, blockSize);
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the counter row first - it exists now
+            log.debug("Counter {} created concurrently, retrying allocation", name);
+            start = orderNumberBlockService.allocateBlock(name, blockSize);
+        }
+        return new Range(year, start, start + blockSize);
+    }
+
+    private static final class Range {
+
+        static final Range EMPTY = new Range(0, 0, 0);
+
+        final int year;
+        final AtomicLong next;
+        final long end;
+
+        Range(int year, long start, long end) {
+            this.year = year;
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
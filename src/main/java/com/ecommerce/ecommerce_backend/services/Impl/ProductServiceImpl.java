@@ -1,11 +1,24 @@
 package com.ecommerce.ecommerce_backend.services.Impl;
 
+import com.ecommerce.ecommerce_backend.dto.PageDTO;
+import com.ecommerce.ecommerce_backend.dto.ProductCursor;
+import com.ecommerce.ecommerce_backend.dto.ProductSort;
+import com.ecommerce.ecommerce_backend.dto.ProductSummaryDTO;
 import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.entity.ProductChange;
+import com.ecommerce.ecommerce_backend.event.ProductChangedEvent;
+import com.ecommerce.ecommerce_backend.event.ProductPriceChangedEvent;
+import com.ecommerce.ecommerce_backend.repository.ProductChangeRepository;
 import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import com.ecommerce.ecommerce_backend.services.ProductCache;
 import com.ecommerce.ecommerce_backend.services.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -14,28 +27,64 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${products.list.default-page-size:24}")
+    private int defaultPageSize;
+
+    @Value("${products.list.max-page-size:100}")
+    private int maxPageSize;
+
+    @Override
+    @Transactional
     public Product addProduct(Product product) {
-        return productRepository.save(product);
+        boolean created = product.getId() == null;
+        Product saved = productRepository.save(product);
+        recordChange(saved.getId(), created ? ProductChange.CREATED : ProductChange.UPDATED);
+        return saved;
     }
 
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
+    /**
+     * Served from the product cache; the returned product is a copy and safe to modify.
+     */
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
+        return productCache.get(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
+    /**
+     * A price change is published as ProductPriceChangedEvent; open carts are repriced after commit.
+     */
     @Override
+    @Transactional
     public Product updateProduct(Long id, Product product) {
-        Product existing = getProductById(id);
+        // Read the row itself, never the cache: the update must start from the committed state
+        Product existing = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        double previousPrice = existing.getPrice();
         existing.setName(product.getName());
         existing.setDescription(product.getDescription());
         existing.setPrice(product.getPrice());
         existing.setStock(product.getStock());
+        existing.setImageUrl(product.getImageUrl());
 
-        return productRepository.save(existing);
+        Product saved = productRepository.save(existing);
+        recordChange(id, ProductChange.UPDATED);
+        if (Double.compare(previousPrice, saved.getPrice()) != 0) {
+            eventPublisher.publishEvent(new ProductPriceChangedEvent(id));
+        }
+        return saved;
     }
 
 //    @Override
@@ -44,12 +93,100 @@ public class ProductServiceImpl implements ProductService {
 //        productRepository.delete(existing);
 //    }
 
+    @Override
+    @Transactional
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        recordChange(id, ProductChange.DEACTIVATED);
+    }
+
+    /**
+     * Soft delete: the product stays for order history but leaves the catalog.
+     */
+    @Override
+    @Transactional
+    public Product deactivateProduct(Long id) {
+        Product existing = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        existing.setIsActive(false);
+
+        Product saved = productRepository.save(existing);
+        recordChange(id, ProductChange.DEACTIVATED);
+        return saved;
+    }
+
+    @Override
+    public String getCatalogVersionTag() {
+        return productCache.catalogVersionTag();
+    }
+
+    @Override
+    public String getProductVersionTag(Product product) {
+        return productCache.productVersionTag(product);
     }
 
     @Override
     public List<Product> getAllActiveProducts() {
-        return productRepository.findByIsActiveTrue();
+        return productCache.getActiveProducts();
+    }
+
+    /**
+     * One page of active products. Keyset pagination on (sort column, id): every page costs the same,
+     * however deep the client has scrolled. Default order is newest first; price and name default to ascending.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<ProductSummaryDTO> getActiveProductPage(String cursor, Integer limit, String sort, String direction,
+                                                           Double minPrice, Double maxPrice, boolean inStockOnly) {
+        int pageSize = resolvePageSize(limit);
+        ProductSort productSort = sort != null ? ProductSort.fromParam(sort) : ProductSort.CREATED_AT;
+        boolean descending = direction != null
+                ? parseDescending(direction)
+                : productSort == ProductSort.CREATED_AT;
+
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+
+        ProductCursor after = cursor != null ? ProductCursor.decode(cursor, productSort, descending) : null;
+
+        List<ProductSummaryDTO> products = productRepository.findActivePage(
+                productSort, descending, minPrice, maxPrice, inStockOnly, after, pageSize + 1);
+
+        boolean hasMore = products.size() > pageSize;
+        List<ProductSummaryDTO> page = hasMore ? products.subList(0, pageSize) : products;
+        String nextCursor = hasMore
+                ? ProductCursor.of(productSort, descending, page.get(pageSize - 1)).encode()
+                : null;
+
+        return new PageDTO<>(new ArrayList<>(page), nextCursor, hasMore);
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static boolean parseDescending(String direction) {
+        if ("desc".equalsIgnoreCase(direction)) {
+            return true;
+        }
+        if ("asc".equalsIgnoreCase(direction)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown direction: " + direction + " (use asc or desc)");
+    }
+
+    /**
+     * Log the write for other nodes' caches and drop the product from this node's cache once committed.
+     */
+    private void recordChange(Long productId, String changeType) {
+        ProductChange change = productChangeRepository.save(new ProductChange(productId, changeType));
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, changeType, change.getId()));
     }
 }
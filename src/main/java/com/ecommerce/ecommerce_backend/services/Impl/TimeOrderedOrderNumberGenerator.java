@@ -0,0 +1,71 @@
+package com.ecommerce.ecommerce_backend.services.Impl;
+
+import com.ecommerce.ecommerce_backend.services.OrderNumberGenerator;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.Year;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered order numbers that need no database at all.
+ * The numeric part packs 41 bits of milliseconds, a 10 bit node id and a 12 bit sequence,
+ * so every node must be started with a distinct order.number.node-id (0-1023).
+ */
+@Component
+@ConditionalOnProperty(name = "order.number.strategy", havingValue = "time")
+public class TimeOrderedOrderNumberGenerator implements OrderNumberGenerator {
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    @Value("${order.number.node-id:0}")
+    private long nodeId;
+
+    // (millis since EPOCH << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong lastState = new AtomicLong();
+
+    @PostConstruct
+    void validateNodeId() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("order.number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        return String.format("ORD-%d-%s", Year.now().getValue(),
+                Long.toString(nextId(), 36).toUpperCase());
+    }
+
+    long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long lastMillis = last >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = last + 1;
+            } else {
+                // Sequence exhausted in this millisecond (or clock went backwards): borrow the next one
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if (lastState.compareAndSet(last, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+}
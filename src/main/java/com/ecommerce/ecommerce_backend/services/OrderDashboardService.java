@@ -0,0 +1,233 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.DashboardSummaryDTO;
+import com.ecommerce.ecommerce_backend.event.OrderChangedEvent;
+import com.ecommerce.ecommerce_backend.repository.OrderRepository;
+import com.ecommerce.ecommerce_backend.util.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CQRS-style read model for the admin dashboard: order counts per status, revenue per day and totals per
+ * payment method. Kept up to date from OrderChangedEvent after each commit, so reading it never touches
+ * the orders table.
+ *
+ * It is rebuilt from the orders table (in parallel id-range chunks) at startup, on demand and every
+ * dashboard.rebuild-interval-ms, which also folds in changes committed by other nodes.
+ */
+@Slf4j
+@Service
+public class OrderDashboardService {
+
+    private static final String CANCELLED = "CANCELLED";
+    private static final String UNKNOWN = "UNKNOWN";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${dashboard.rebuild.chunk-size:50000}")
+    private long chunkSize;
+
+    @Value("${dashboard.rebuild.parallelism:4}")
+    private int parallelism;
+
+    private volatile ReadModel model = new ReadModel(null);
+
+    // Events received while a rebuild is running; null when no rebuild is in progress
+    private List<OrderChangedEvent> eventsDuringRebuild;
+
+    private final Object modelLock = new Object();
+
+    private final Object rebuildLock = new Object();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderChanged(OrderChangedEvent event) {
+        synchronized (modelLock) {
+            model.apply(event);
+            if (eventsDuringRebuild != null) {
+                eventsDuringRebuild.add(event);
+            }
+        }
+    }
+
+    public DashboardSummaryDTO getSummary(int days) {
+        ReadModel current = model;
+
+        DashboardSummaryDTO summary = new DashboardSummaryDTO();
+
+        Map<String, Long> byStatus = new TreeMap<>();
+        current.statusCounts.forEach((status, count) -> byStatus.put(status, count.sum()));
+        summary.setOrdersByStatus(byStatus);
+
+        Map<LocalDate, Double> revenueByDay = new TreeMap<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < days; i++) {
+            LocalDate day = today.minusDays(i);
+            LongAdder revenue = current.revenueByDay.get(day);
+            revenueByDay.put(day, Money.toMajor(revenue != null ? revenue.sum() : 0));
+        }
+        summary.setRevenueByDay(revenueByDay);
+
+        Map<String, DashboardSummaryDTO.PaymentMethodTotal> methods = new TreeMap<>();
+        long totalRevenue = 0;
+        for (Map.Entry<String, LongAdder> entry : current.paymentAmounts.entrySet()) {
+            DashboardSummaryDTO.PaymentMethodTotal total = new DashboardSummaryDTO.PaymentMethodTotal();
+            LongAdder count = current.paymentCounts.get(entry.getKey());
+            total.setOrders(count != null ? count.sum() : 0);
+            total.setAmount(Money.toMajor(entry.getValue().sum()));
+            methods.put(entry.getKey(), total);
+            totalRevenue += entry.getValue().sum();
+        }
+        summary.setPaymentMethods(methods);
+        summary.setTotalRevenue(Money.toMajor(totalRevenue));
+        summary.setRebuiltAt(current.rebuiltAt);
+
+        return summary;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${dashboard.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${dashboard.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Recompute the read model from the orders table and swap it in.
+     * Orders created while the rebuild runs are beyond the scanned id range, so their events are replayed on
+     * the new model; changes to older orders in that window are corrected by the next rebuild.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long started = System.currentTimeMillis();
+
+            synchronized (modelLock) {
+                eventsDuringRebuild = new ArrayList<>();
+            }
+
+            long minId = orderRepository.findMinId();
+            long maxId = orderRepository.findMaxId();
+            ReadModel fresh = new ReadModel(LocalDateTime.now());
+
+            ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+            try {
+                List<Future<List<Object[]>>> chunks = new ArrayList<>();
+                for (long from = minId - 1; from < maxId; from += chunkSize) {
+                    long fromId = from;
+                    long toId = Math.min(from + chunkSize, maxId);
+                    chunks.add(pool.submit(() -> orderRepository.aggregateIdRange(fromId, toId)));
+                }
+
+                for (Future<List<Object[]>> chunk : chunks) {
+                    for (Object[] row : chunk.get()) {
+                        fresh.add((String) row[0], (String) row[1], toLocalDate(row[2]),
+                                ((Number) row[3]).longValue(), (Double) row[4]);
+                    }
+                }
+            } catch (Exception e) {
+                synchronized (modelLock) {
+                    eventsDuringRebuild = null;
+                }
+                log.error("❌ Dashboard rebuild failed: {}", e.getMessage(), e);
+                return;
+            } finally {
+                pool.shutdown();
+            }
+
+            synchronized (modelLock) {
+                for (OrderChangedEvent event : eventsDuringRebuild) {
+                    if (event.getOrderId() > maxId) {
+                        fresh.apply(event);
+                    }
+                }
+                eventsDuringRebuild = null;
+                model = fresh;
+            }
+
+            log.info("📊 Dashboard read model rebuilt from orders {}..{} in {} ms",
+                    minId, maxId, System.currentTimeMillis() - started);
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    private static final class ReadModel {
+
+        final Map<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        final Map<LocalDate, LongAdder> revenueByDay = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> paymentCounts = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> paymentAmounts = new ConcurrentHashMap<>();
+        final LocalDateTime rebuiltAt;
+
+        ReadModel(LocalDateTime rebuiltAt) {
+            this.rebuiltAt = rebuiltAt;
+        }
+
+        void add(String status, String paymentMethod, LocalDate day, long count, Double amount) {
+            counter(statusCounts, key(status)).add(count);
+            if (!CANCELLED.equals(status)) {
+                addRevenue(paymentMethod, day, count, Money.toMinor(amount));
+            }
+        }
+
+        void apply(OrderChangedEvent event) {
+            if (event.getPreviousStatus() == null || !event.getPreviousStatus().equals(event.getStatus())) {
+                if (event.getPreviousStatus() != null) {
+                    counter(statusCounts, event.getPreviousStatus()).decrement();
+                }
+                counter(statusCounts, key(event.getStatus())).increment();
+            }
+
+            boolean wasCounted = event.getPreviousStatus() != null && !CANCELLED.equals(event.getPreviousStatus());
+            boolean isCounted = !CANCELLED.equals(event.getStatus());
+            if (wasCounted != isCounted) {
+                int sign = isCounted ? 1 : -1;
+                addRevenue(event.getPaymentMethod(), event.getOrderDay(), sign, sign * Money.toMinor(event.getTotalAmount()));
+            }
+        }
+
+        private void addRevenue(String paymentMethod, LocalDate day, long count, long amountMinor) {
+            if (day != null) {
+                counter(revenueByDay, day).add(amountMinor);
+            }
+            counter(paymentCounts, key(paymentMethod)).add(count);
+            counter(paymentAmounts, key(paymentMethod)).add(amountMinor);
+        }
+
+        private static <K> LongAdder counter(Map<K, LongAdder> map, K key) {
+            return map.computeIfAbsent(key, k -> new LongAdder());
+        }
+
+        private static String key(String value) {
+            return value != null ? value : UNKNOWN;
+        }
+    }
+}
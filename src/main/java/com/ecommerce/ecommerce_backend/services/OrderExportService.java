@@ -0,0 +1,141 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.OrderExportRow;
+import com.ecommerce.ecommerce_backend.entity.Order;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams orders straight from a forward-only result set to the HTTP response.
+ * Rows are detached as soon as they are written, so heap use does not grow with the number of orders.
+ */
+@Slf4j
+@Service
+public class OrderExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${orders.export.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${orders.export.flush-every:500}")
+    private int flushEvery;
+
+    /**
+     * Write all orders matching the filters (any of them may be null) in the given format.
+     * Returns the number of exported orders.
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(String format, String status, LocalDateTime from, LocalDateTime to,
+                             OutputStream out) throws IOException {
+
+        StringBuilder jpql = new StringBuilder("select o from Order o where 1 = 1");
+        if (status != null) {
+            jpql.append(" and o.status = :status");
+        }
+        if (from != null) {
+            jpql.append(" and o.createdAt >= :from");
+        }
+        if (to != null) {
+            jpql.append(" and o.createdAt < :to");
+        }
+        // Primary key order: rows stream immediately, no filesort of the whole table
+        jpql.append(" order by o.id");
+
+        TypedQuery<Order> query = entityManager.createQuery(jpql.toString(), Order.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        json.setRootValueSeparator(null);
+
+        if (FORMAT_CSV.equals(format)) {
+            writeCsvLine(writer, OrderExportRow.CSV_HEADER);
+        }
+
+        try (Stream<Order> orders = query.getResultStream()) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                OrderExportRow row = OrderExportRow.fromEntity(order);
+                entityManager.detach(order);
+
+                if (FORMAT_CSV.equals(format)) {
+                    writeCsvLine(writer, row.toCsvValues());
+                } else {
+                    objectMapper.writeValue(json, row);
+                    json.flush();
+                    writer.write('\n');
+                }
+
+                if (++count % flushEvery == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        log.info("📤 Exported {} orders as {}", count, format);
+        return count;
+    }
+
+    private void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvEscape(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    private String csvEscape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.entity.OrderNumberBlock;
+import com.ecommerce.ecommerce_backend.repository.OrderNumberBlockRepository;
+import com.ecommerce.ecommerce_backend.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+public class OrderNumberBlockService {
+
+    @Autowired
+    private OrderNumberBlockRepository orderNumberBlockRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * Reserve the next {@code size} numbers of the named counter.
+     * Runs in its own short transaction so the row lock is released before checkout continues.
+     * Returns the first number of the reserved range.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long allocateBlock(String name, int size) {
+        OrderNumberBlock block = orderNumberBlockRepository.findForUpdate(name)
+                .orElseGet(() -> createBlock(name));
+
+        long start = block.getNextValue();
+        block.setNextValue(start + size);
+        orderNumberBlockRepository.save(block);
+
+        log.info("Allocated order number block {} [{} - {}]", name, start, start + size - 1);
+        return start;
+    }
+
+    /**
+     * First use of a counter: start after any numbers already issued by the old count()-based scheme.
+     * Only runs once per counter, so the probe loop is not on the checkout path anymore.
+     */
+    private OrderNumberBlock createBlock(String name) {
+        long next = orderRepository.count() + 1;
+        while (orderRepository.findByOrderNumber(String.format("%s-%05d", name, next)).isPresent()) {
+            next++;
+        }
+
+        OrderNumberBlock block = new OrderNumberBlock();
+        block.setName(name);
+        block.setNextValue(next);
+
+        // A concurrent node inserting the same counter fails here on the primary key and retries
+        return orderNumberBlockRepository.saveAndFlush(block);
+    }
+}
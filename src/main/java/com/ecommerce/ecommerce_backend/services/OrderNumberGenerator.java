@@ -0,0 +1,9 @@
+package com.ecommerce.ecommerce_backend.services;
+
+/**
+ * Allocates order numbers (ORD-YYYY-...) for new orders.
+ * Implementations are selected with the order.number.strategy property.
+ */
+public interface OrderNumberGenerator {
+    String nextOrderNumber();
+}
@@ -1,18 +1,37 @@
 package com.ecommerce.ecommerce_backend.services;
 
+import com.ecommerce.ecommerce_backend.dto.BulkStatusResultDTO;
+import com.ecommerce.ecommerce_backend.dto.BulkStatusUpdateRequest;
+import com.ecommerce.ecommerce_backend.dto.OrderCursor;
+import com.ecommerce.ecommerce_backend.dto.OrderDTO;
+import com.ecommerce.ecommerce_backend.dto.OrderSummaryDTO;
+import com.ecommerce.ecommerce_backend.dto.OrderVersion;
+import com.ecommerce.ecommerce_backend.dto.PageDTO;
 import com.ecommerce.ecommerce_backend.dto.PlaceOrderRequest;
 import com.ecommerce.ecommerce_backend.entity.*;
+import com.ecommerce.ecommerce_backend.event.OrderChangedEvent;
+import com.ecommerce.ecommerce_backend.exception.InsufficientStockException;
 import com.ecommerce.ecommerce_backend.repository.*;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.time.Year;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -30,12 +49,49 @@ public class OrderService {
     @Autowired
     private CartItemRepository cartItemRepository;
 
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${orders.history.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${orders.history.max-page-size:100}")
+    private int maxPageSize;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     /**
      * Place order with shipping information
      * Gets cart automatically using userId (no cartId needed!)
+     * The order number is taken before the transaction opens; a block refill never waits while holding a connection.
      */
-    @Transactional
     public Order placeOrder(PlaceOrderRequest request, Long userId) {
+        String orderNumber = generateOrderNumber();
+        return transactionTemplate.execute(status -> placeOrder(request, userId, orderNumber));
+    }
+
+    /**
+     * Place order with a number already taken from the generator (outside any transaction).
+     */
+    @Transactional
+    public Order placeOrder(PlaceOrderRequest request, Long userId, String orderNumber) {
         log.info("📦 Placing order for user: {}", userId);
 
         // Validate userId
@@ -43,6 +99,9 @@ public class OrderService {
             throw new RuntimeException("User ID is required");
         }
 
+        // Buffered cart edits must be in the database before the cart is read and cleared below
+        cartService.flushUserCart(userId, true);
+
         // Get user's cart using userId (NOT cartId!)
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("Cart not found for user: " + userId));
@@ -60,8 +119,8 @@ public class OrderService {
         // Set user ID
         order.setUserId(userId);
 
-        // Generate unique order number
-        order.setOrderNumber(generateOrderNumber());
+        // Unique order number, generated before the transaction
+        order.setOrderNumber(orderNumber);
 
         // Set order date
         order.setOrderDate(LocalDateTime.now());
@@ -84,19 +143,13 @@ public class OrderService {
         double total = 0;
         List<OrderItem> orderItems = new ArrayList<>();
 
+        Map<Long, Integer> stockToReserve = new HashMap<>();
+
         for (CartItem cartItem : cart.getItems()) {
             Product product = cartItem.getProduct();
 
             log.info("Processing cart item: {} x{}", product.getName(), cartItem.getQuantity());
 
-            // Validate stock
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new RuntimeException(
-                        String.format("Insufficient stock for product '%s'. Available: %d, Requested: %d",
-                                product.getName(), product.getStock(), cartItem.getQuantity())
-                );
-            }
-
             // Create order item
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -117,19 +170,32 @@ public class OrderService {
 
             orderItems.add(orderItem);
 
-            // Reduce product stock
-            int newStock = product.getStock() - cartItem.getQuantity();
-            product.setStock(newStock);
-            productRepository.save(product);
+            stockToReserve.merge(product.getId(), cartItem.getQuantity(), Integer::sum);
+        }
 
-            log.info("  - Stock updated: {} -> {}", product.getStock() + cartItem.getQuantity(), newStock);
+        // Reduce product stock for the whole cart in one guarded batch (no read-modify-write race).
+        // Stock already held by a checkout reservation is taken over without touching product rows.
+        try {
+            reservationService.consumeForOrder(userId, stockToReserve);
+        } catch (InsufficientStockException e) {
+            String productName = cart.getItems().stream()
+                    .map(CartItem::getProduct)
+                    .filter(p -> p.getId().equals(e.getProductId()))
+                    .map(Product::getName)
+                    .findFirst()
+                    .orElse(String.valueOf(e.getProductId()));
+            throw new InsufficientStockException(e.getProductId(),
+                    String.format("Insufficient stock for product '%s'. Requested: %d",
+                            productName, stockToReserve.get(e.getProductId())));
         }
+        log.info("  - Stock reserved for {} products", stockToReserve.size());
 
         order.setItems(orderItems);
         order.setTotalAmount(total);
 
         // Save order
         Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(savedOrder, null, null));
 
         log.info("✅ Order created successfully:");
         log.info("   Order Number: {}", savedOrder.getOrderNumber());
@@ -150,19 +216,10 @@ public class OrderService {
     }
 
     /**
-     * Generate unique order number in format: ORD-2026-00001
+     * Generate unique order number, e.g. ORD-2026-00001 (allocated in memory, no queries per order)
      */
-    private String generateOrderNumber() {
-        String year = String.valueOf(Year.now().getValue());
-        long count = orderRepository.count() + 1;
-        String orderNumber = String.format("ORD-%s-%05d", year, count);
-
-        // Ensure uniqueness (in case of concurrent orders)
-        while (orderRepository.findByOrderNumber(orderNumber).isPresent()) {
-            count++;
-            orderNumber = String.format("ORD-%s-%05d", year, count);
-        }
-
+    public String generateOrderNumber() {
+        String orderNumber = orderNumberGenerator.nextOrderNumber();
         log.info("Generated order number: {}", orderNumber);
         return orderNumber;
     }
@@ -180,7 +237,7 @@ public class OrderService {
 
             // Clear items list and reset total
             cart.getItems().clear();
-            cart.setTotalAmount(0.0);
+            cart.resetTotals();
 
             // Save cart
             cartRepository.save(cart);
@@ -190,13 +247,67 @@ public class OrderService {
     }
 
     /**
-     * Get user's order history (newest first)
+     * Get one page of user's order history (newest first).
+     * Keyset pagination on (createdAt, id): cost depends on page size, not on how many orders the user has.
      */
-    public List<Order> getUserOrders(Long userId) {
-        log.info("📋 Fetching order history for user: {}", userId);
-        List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        log.info("Found {} orders for user {}", orders.size(), userId);
-        return orders;
+    @Transactional(readOnly = true)
+    public PageDTO<OrderDTO> getUserOrders(Long userId, String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        log.info("📋 Fetching order history page for user: {} (limit {})", userId, pageSize);
+
+        OrderCursor after = cursor != null ? OrderCursor.decode(cursor) : null;
+
+        List<Order> orders = after == null
+                ? orderRepository.findHistoryFirstPage(userId, Limit.of(pageSize + 1))
+                : orderRepository.findHistoryPageAfter(userId, after.getCreatedAt(), after.getId(),
+                        Limit.of(pageSize + 1));
+
+        boolean hasMore = orders.size() > pageSize;
+        List<Order> page = hasMore ? orders.subList(0, pageSize) : orders;
+        String nextCursor = hasMore
+                ? new OrderCursor(page.get(pageSize - 1).getCreatedAt(), page.get(pageSize - 1).getId()).encode()
+                : null;
+
+        List<OrderDTO> items = page.stream()
+                .map(OrderDTO::fromEntity)
+                .collect(Collectors.toList());
+
+        log.info("Found {} orders for user {} (more: {})", items.size(), userId, hasMore);
+        return new PageDTO<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Same as getUserOrders but only order headers - no order_item rows are read
+     */
+    @Transactional(readOnly = true)
+    public PageDTO<OrderSummaryDTO> getUserOrderSummaries(Long userId, String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        log.info("📋 Fetching order summary page for user: {} (limit {})", userId, pageSize);
+
+        OrderCursor after = cursor != null ? OrderCursor.decode(cursor) : null;
+
+        List<OrderSummaryDTO> orders = after == null
+                ? orderRepository.findHistorySummaryFirstPage(userId, Limit.of(pageSize + 1))
+                : orderRepository.findHistorySummaryPageAfter(userId, after.getCreatedAt(), after.getId(),
+                        Limit.of(pageSize + 1));
+
+        boolean hasMore = orders.size() > pageSize;
+        List<OrderSummaryDTO> page = hasMore ? orders.subList(0, pageSize) : orders;
+        String nextCursor = hasMore
+                ? new OrderCursor(page.get(pageSize - 1).getCreatedAt(), page.get(pageSize - 1).getId()).encode()
+                : null;
+
+        return new PageDTO<>(new ArrayList<>(page), nextCursor, hasMore);
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
     }
 
     /**
@@ -208,6 +319,14 @@ public class OrderService {
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
     }
 
+    /**
+     * Owner and last update of an order, without loading it
+     */
+    public OrderVersion getOrderVersion(Long orderId) {
+        return orderRepository.findVersionById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+    }
+
     /**
      * Get order by order number
      */
@@ -224,17 +343,113 @@ public class OrderService {
     public Order updateOrderStatus(Long orderId, String newStatus) {
         log.info("Updating order {} status to {}", orderId, newStatus);
 
+        OrderStatus target = OrderStatus.parse(newStatus);
+        if (target == null) {
+            throw new RuntimeException("Invalid order status: " + newStatus);
+        }
+
         Order order = getOrderById(orderId);
         String oldStatus = order.getStatus();
-        order.setStatus(newStatus);
+        if (!OrderStatus.canTransition(oldStatus, target)) {
+            throw new RuntimeException("Cannot change order status from " + oldStatus + " to " + target);
+        }
+
+        if (target == OrderStatus.CANCELLED) {
+            restoreStock(List.of(orderId));
+        }
+        order.setStatus(target.name());
 
         Order updatedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(updatedOrder, oldStatus, updatedOrder.getPaymentStatus()));
 
-        log.info("✅ Order {} status updated: {} -> {}", orderId, oldStatus, newStatus);
+        log.info("✅ Order {} status updated: {} -> {}", orderId, oldStatus, target);
 
         return updatedOrder;
     }
 
+    /**
+     * Bulk status update (for admin).
+     * Locks all orders in one select, validates each transition against OrderStatus,
+     * then applies one UPDATE per target status. Invalid entries are reported, not fatal.
+     */
+    @Transactional
+    public List<BulkStatusResultDTO> bulkUpdateStatus(List<BulkStatusUpdateRequest.Item> updates) {
+        log.info("Bulk status update for {} orders", updates.size());
+
+        // Last entry wins if an order id is repeated
+        Map<Long, String> requested = new LinkedHashMap<>();
+        for (BulkStatusUpdateRequest.Item update : updates) {
+            requested.put(update.getOrderId(), update.getStatus());
+        }
+
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order order : orderRepository.findAllByIdForUpdate(requested.keySet())) {
+            orders.put(order.getId(), order);
+        }
+
+        List<BulkStatusResultDTO> results = new ArrayList<>(requested.size());
+        Map<OrderStatus, List<Long>> idsByTarget = new EnumMap<>(OrderStatus.class);
+        for (Map.Entry<Long, String> entry : requested.entrySet()) {
+            Long orderId = entry.getKey();
+            Order order = orders.get(orderId);
+            OrderStatus target = OrderStatus.parse(entry.getValue());
+
+            if (order == null) {
+                results.add(new BulkStatusResultDTO(orderId, null, entry.getValue(), "NOT_FOUND"));
+            } else if (target == null) {
+                results.add(new BulkStatusResultDTO(orderId, order.getStatus(), entry.getValue(), "INVALID_STATUS"));
+            } else if (!OrderStatus.canTransition(order.getStatus(), target)) {
+                results.add(new BulkStatusResultDTO(orderId, order.getStatus(), target.name(), "INVALID_TRANSITION"));
+            } else {
+                idsByTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(orderId);
+                results.add(new BulkStatusResultDTO(orderId, order.getStatus(), target.name(), "UPDATED"));
+            }
+        }
+
+        List<Long> cancelled = idsByTarget.get(OrderStatus.CANCELLED);
+        if (cancelled != null) {
+            restoreStock(cancelled);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<OrderStatus, List<Long>> entry : idsByTarget.entrySet()) {
+            int updated = orderRepository.updateStatus(entry.getValue(), entry.getKey().name(), now);
+            log.info("Set {} orders to {}", updated, entry.getKey());
+
+            for (Long orderId : entry.getValue()) {
+                Order order = orders.get(orderId);
+                eventPublisher.publishEvent(new OrderChangedEvent(
+                        orderId,
+                        order.getUserId(),
+                        order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : now.toLocalDate(),
+                        order.getPaymentMethod(),
+                        order.getTotalAmount(),
+                        order.getStatus(),
+                        entry.getKey().name(),
+                        order.getPaymentStatus(),
+                        order.getPaymentStatus()));
+            }
+        }
+
+        log.info("✅ Bulk status update done: {} updated, {} rejected",
+                idsByTarget.values().stream().mapToInt(List::size).sum(),
+                results.size() - idsByTarget.values().stream().mapToInt(List::size).sum());
+
+        return results;
+    }
+
+    /**
+     * Put the items of the given orders back into stock, one batch for all of them
+     */
+    private void restoreStock(List<Long> orderIds) {
+        Map<Long, Integer> stockToRestore = new HashMap<>();
+        for (Object[] row : orderRepository.sumItemQuantitiesByProduct(orderIds)) {
+            stockToRestore.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        productRepository.restoreStock(stockToRestore);
+        log.info("Restored stock for {} products", stockToRestore.size());
+    }
+
     /**
      * Update payment status (after payment gateway confirmation)
      */
@@ -243,6 +458,8 @@ public class OrderService {
         log.info("Updating order {} payment status to {}", orderId, paymentStatus);
 
         Order order = getOrderById(orderId);
+        String oldStatus = order.getStatus();
+        String oldPaymentStatus = order.getPaymentStatus();
         order.setPaymentStatus(paymentStatus);
 
         // If payment is successful, confirm the order
@@ -251,7 +468,9 @@ public class OrderService {
             log.info("Order {} auto-confirmed after successful payment", orderId);
         }
 
-        return orderRepository.save(order);
+        Order updatedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(updatedOrder, oldStatus, oldPaymentStatus));
+        return updatedOrder;
     }
 
     /**
@@ -297,19 +516,24 @@ public class OrderService {
             throw new RuntimeException("Order is already cancelled");
         }
 
-        // Restore product stock
+        // Restore product stock in one batch
+        Map<Long, Integer> stockToRestore = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            Product product = productRepository.findById(item.getProduct().getId()).orElse(null);
-            if (product != null) {
-                product.setStock(product.getStock() + item.getQuantity());
-                productRepository.save(product);
-                log.info("Restored {} units of {} to stock", item.getQuantity(), product.getName());
+            // The product may have been deleted since the order was placed; nothing to restore then
+            if (item.getProduct() == null) {
+                log.info("Product of order item {} no longer exists, stock not restored", item.getId());
+                continue;
             }
+            stockToRestore.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        productRepository.restoreStock(stockToRestore);
+        log.info("Restored stock for {} products", stockToRestore.size());
 
         // Update order status
+        String oldStatus = order.getStatus();
         order.setStatus("CANCELLED");
         Order cancelledOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(cancelledOrder, oldStatus, cancelledOrder.getPaymentStatus()));
 
         log.info("✅ Order {} cancelled successfully", orderId);
 
@@ -0,0 +1,369 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.entity.ProductChange;
+import com.ecommerce.ecommerce_backend.event.ProductChangedEvent;
+import com.ecommerce.ecommerce_backend.event.ProductChangesPolledEvent;
+import com.ecommerce.ecommerce_backend.repository.ProductChangeRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of products by id, plus the list of active products.
+ *
+ * Entries are evicted least-recently-used beyond max-size and expire after ttl-seconds. Callers always get
+ * their own copy, so changing a returned product never changes the cache. Writes made on this node are
+ * invalidated after commit; writes made on other nodes are picked up by polling the product_changes table.
+ */
+@Slf4j
+@Service
+public class ProductCache {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${product.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${product.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${product.cache.poll-batch-size:1000}")
+    private int pollBatchSize;
+
+    // How far back each poll re-reads recent changes, to catch transactions that committed out of id order
+    @Value("${product.cache.poll-grace-seconds:10}")
+    private long pollGraceSeconds;
+
+    @Value("${product.changes.retention-hours:24}")
+    private long retentionHours;
+
+    private final LinkedHashMap<Long, Entry<Product>> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private volatile Entry<List<Product>> activeProducts;
+
+    // Bumped by every invalidation; a load that started before it must not be cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile long lastSeenVersion = -1;
+
+    // Newest product_changes id known here: polled, or written by this node and not yet polled
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private volatile LocalDateTime lastPollStarted;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record Entry<T>(T value, long loadedAt) {
+    }
+
+    public Optional<Product> get(Long productId) {
+        Product cached = lookup(productId);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+
+        long loadGeneration = generation.get();
+        Optional<Product> loaded = productRepository.findById(productId);
+        loaded.ifPresent(product -> store(List.of(product), loadGeneration));
+        return loaded.map(ProductCache::copy);
+    }
+
+    /**
+     * Products for the given ids, misses loaded with one query. Unknown ids are left out of the map.
+     */
+    public Map<Long, Product> getAll(Collection<Long> productIds) {
+        Map<Long, Product> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            Product cached = lookup(productId);
+            if (cached != null) {
+                result.put(productId, copy(cached));
+            } else {
+                missing.add(productId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long loadGeneration = generation.get();
+            List<Product> loaded = productRepository.findAllById(missing);
+            store(loaded, loadGeneration);
+            for (Product product : loaded) {
+                result.put(product.getId(), copy(product));
+            }
+        }
+        return result;
+    }
+
+    public List<Product> getActiveProducts() {
+        Entry<List<Product>> entry = activeProducts;
+        if (entry != null && !expired(entry)) {
+            hits.incrementAndGet();
+            return copyAll(entry.value());
+        }
+
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        List<Product> loaded = copyAll(productRepository.findByIsActiveTrue());
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                activeProducts = new Entry<>(List.copyOf(loaded), System.currentTimeMillis());
+            }
+        }
+        return copyAll(loaded);
+    }
+
+    public void invalidate(Long productId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(productId);
+            activeProducts = null;
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+            activeProducts = null;
+        }
+        invalidations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (ProductChange.CATALOG.equals(event.getProductId())) {
+            invalidateAll();
+        } else {
+            invalidate(event.getProductId());
+        }
+        if (event.getVersion() != null) {
+            catalogVersion.accumulateAndGet(event.getVersion(), Math::max);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initVersion() {
+        Long latest = productChangeRepository.findLatestVersion();
+        lastSeenVersion = latest != null ? latest : 0;
+        Long catalog = productChangeRepository.findLatestCatalogVersion();
+        catalogVersion.accumulateAndGet(catalog != null ? catalog : 0, Math::max);
+        lastPollStarted = LocalDateTime.now();
+    }
+
+    /**
+     * Drop products changed by other nodes since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${product.cache.poll-interval-ms:2000}", initialDelayString = "${product.cache.poll-interval-ms:2000}")
+    public void pollChanges() {
+        if (lastSeenVersion < 0) {
+            return;
+        }
+
+        LocalDateTime started = LocalDateTime.now();
+
+        if (lastPollStarted.isBefore(started.minusHours(retentionHours))) {
+            // Rows we never saw may already be cleaned up
+            log.warn("Product change log not polled for over {} hours, clearing the product cache", retentionHours);
+            invalidateAll();
+        }
+
+        Set<Long> changed = new LinkedHashSet<>(
+                productChangeRepository.findProductIdsChangedSince(lastPollStarted.minusSeconds(pollGraceSeconds)));
+
+        // Read first: once every non-STOCK row up to here is seen, the STOCK rows below it need not be scanned again.
+        // Rows below it that commit later are caught by the changedAt query above
+        Long latest = productChangeRepository.findLatestVersion();
+
+        long polledVersion = 0;
+        while (true) {
+            // Stock moves with every checkout; cached stock stays until the TTL, as before stock was logged
+            List<ProductChange> rows = productChangeRepository.findByIdGreaterThanAndChangeTypeNotOrderByIdAsc(
+                    lastSeenVersion, ProductChange.STOCK, Limit.of(pollBatchSize));
+            for (ProductChange row : rows) {
+                changed.add(row.getProductId());
+            }
+            if (!rows.isEmpty()) {
+                lastSeenVersion = rows.get(rows.size() - 1).getId();
+                polledVersion = lastSeenVersion;
+            }
+            if (rows.size() < pollBatchSize) {
+                break;
+            }
+        }
+        if (latest != null && latest > lastSeenVersion) {
+            lastSeenVersion = latest;
+        }
+
+        if (changed.contains(ProductChange.CATALOG)) {
+            invalidateAll();
+        } else {
+            for (Long productId : changed) {
+                invalidate(productId);
+            }
+        }
+        catalogVersion.accumulateAndGet(polledVersion, Math::max);
+        lastPollStarted = started;
+
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangesPolledEvent(changed));
+        }
+    }
+
+    /**
+     * Latest product_changes id this node has applied to its cache (-1 before startup completes).
+     */
+    public long getLastSeenVersion() {
+        return lastSeenVersion;
+    }
+
+    /**
+     * Newest product change this node knows of, plus the current TTL period. Stock changes from checkout
+     * do not count, so the period makes listings revalidate no later than cached products expire.
+     */
+    public String catalogVersionTag() {
+        return "c" + catalogVersion.get() + "-" + ttlPeriod();
+    }
+
+    /**
+     * Version of the product as served from this cache. Checkout changes stock over JDBC without touching
+     * updatedAt, so the stock is part of the tag: it changes whenever the served body does.
+     */
+    public String productVersionTag(Product product) {
+        LocalDateTime updatedAt = product.getUpdatedAt() != null ? product.getUpdatedAt() : product.getCreatedAt();
+        long updated = updatedAt != null ? Timestamp.valueOf(updatedAt).getTime() : 0;
+        return "p" + product.getId() + "-" + updated + "-s" + product.getStock();
+    }
+
+    private long ttlPeriod() {
+        return System.currentTimeMillis() / Math.max(1000, ttlSeconds * 1000);
+    }
+
+    @Scheduled(fixedDelayString = "${product.changes.cleanup-interval-ms:3600000}", initialDelayString = "${product.changes.cleanup-interval-ms:3600000}")
+    public void cleanupChanges() {
+        int deleted = productChangeRepository.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("🧹 Deleted {} product change rows older than {} hours", deleted, retentionHours);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.cache.stats-interval-ms:300000}", initialDelayString = "${product.cache.stats-interval-ms:300000}")
+    public void logStats() {
+        log.info("📊 Product cache: {}", stats());
+    }
+
+    public Map<String, Long> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) size);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatePercent", hitCount + missCount > 0 ? hitCount * 100 / (hitCount + missCount) : 0);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("version", catalogVersion.get());
+        return stats;
+    }
+
+    private Product lookup(Long productId) {
+        synchronized (entries) {
+            Entry<Product> entry = entries.get(productId);
+            if (entry != null && expired(entry)) {
+                entries.remove(productId);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value();
+        }
+    }
+
+    private void store(List<Product> products, long loadGeneration) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            if (generation.get() != loadGeneration) {
+                return;
+            }
+            for (Product product : products) {
+                entries.put(product.getId(), new Entry<>(copy(product), now));
+            }
+            while (entries.size() > maxSize) {
+                Long eldest = entries.keySet().iterator().next();
+                entries.remove(eldest);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean expired(Entry<?> entry) {
+        return System.currentTimeMillis() - entry.loadedAt() > ttlSeconds * 1000;
+    }
+
+    private static List<Product> copyAll(List<Product> products) {
+        List<Product> copies = new ArrayList<>(products.size());
+        for (Product product : products) {
+            copies.add(copy(product));
+        }
+        return copies;
+    }
+
+    private static Product copy(Product product) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setSku(product.getSku());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setStock(product.getStock());
+        copy.setImageUrl(product.getImageUrl());
+        copy.setIsActive(product.getIsActive());
+        copy.setCreatedAt(product.getCreatedAt());
+        copy.setUpdatedAt(product.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,436 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.ProductImportStatusDTO;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.entity.ProductChange;
+import com.ecommerce.ecommerce_backend.event.ProductChangedEvent;
+import com.ecommerce.ecommerce_backend.event.ProductPriceChangedEvent;
+import com.ecommerce.ecommerce_backend.repository.ProductChangeRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import com.ecommerce.ecommerce_backend.util.Csv;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk product import from CSV (supplier feeds).
+ *
+ * The upload is spooled to a temp file and read line by line on the productImportExecutor, so memory is bounded by
+ * the batch size, not the file size. Rows are upserted by SKU in JDBC batches, one transaction per batch;
+ * a batch that fails is retried row by row so only the bad rows are reported.
+ * Caches and the search index are refreshed once at the end through a catalog-wide product change.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("sku", "name", "price", "stock");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("productImportExecutor")
+    private ThreadPoolTaskExecutor importExecutor;
+
+    @Value("${product.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${product.import.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${product.import.job-retention-hours:24}")
+    private long jobRetentionHours;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Spool the upload to disk and queue the import. Throws TaskRejectedException when imports are already queued.
+     * CSV header (any order, case-insensitive): sku,name,price,stock and optionally description,imageUrl.
+     */
+    public ProductImportStatusDTO submit(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        forgetOldJobs();
+
+        Path spooled = Files.createTempFile("product-import-", ".csv");
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename());
+        try {
+            file.transferTo(spooled);
+            job.totalBytes = Files.size(spooled);
+            jobs.put(job.id, job);
+            importExecutor.execute(() -> run(job, spooled));
+        } catch (RuntimeException | IOException e) {
+            jobs.remove(job.id);
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+
+        log.info("📥 Product import {} queued: {} ({} bytes)", job.id, job.fileName, job.totalBytes);
+        return job.toDTO();
+    }
+
+    public ProductImportStatusDTO getStatus(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found: " + jobId);
+        }
+        return job.toDTO();
+    }
+
+    private void run(ImportJob job, Path spooled) {
+        job.status = RUNNING;
+        long started = System.currentTimeMillis();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new CountingInputStream(Files.newInputStream(spooled), job.bytesRead), StandardCharsets.UTF_8))) {
+
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new IllegalArgumentException("File has no header row");
+            }
+            Map<String, Integer> columns = columns(headerLine);
+
+            // Keyed by lower-cased SKU (the column compares case-insensitively);
+            // a SKU repeated within one batch flushes the batch first, so later rows win
+            Map<String, ImportRow> batch = new LinkedHashMap<>();
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.rowsRead.incrementAndGet();
+
+                ImportRow row;
+                try {
+                    row = new ImportRow(lineNumber, parse(line, columns));
+                } catch (IllegalArgumentException e) {
+                    job.fail(lineNumber, null, e.getMessage(), maxErrors);
+                    continue;
+                }
+
+                String key = row.product.getSku().toLowerCase(Locale.ROOT);
+                if (batch.containsKey(key) || batch.size() >= batchSize) {
+                    flush(job, batch);
+                }
+                batch.put(key, row);
+            }
+            flush(job, batch);
+
+            if (job.inserted.get() + job.updated.get() > 0) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    ProductChange change = productChangeRepository.save(
+                            new ProductChange(ProductChange.CATALOG, ProductChange.IMPORTED));
+                    eventPublisher.publishEvent(new ProductChangedEvent(ProductChange.CATALOG,
+                            ProductChange.IMPORTED, change.getId()));
+                });
+            }
+
+            job.status = COMPLETED;
+            log.info("✅ Product import {} done in {} ms: {} rows, {} inserted, {} updated, {} failed",
+                    job.id, System.currentTimeMillis() - started, job.rowsRead.get(),
+                    job.inserted.get(), job.updated.get(), job.failed.get());
+
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.status = FAILED;
+            log.error("❌ Product import {} failed after {} rows: {}", job.id, job.rowsRead.get(), e.getMessage(), e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                log.warn("⚠️ Could not delete import file {}: {}", spooled, e.getMessage());
+            }
+        }
+    }
+
+    private void flush(ImportJob job, Map<String, ImportRow> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ImportRow> rows = new ArrayList<>(batch.values());
+        batch.clear();
+
+        try {
+            int[] counts = transactionTemplate.execute(status -> write(rows));
+            job.inserted.addAndGet(counts[0]);
+            job.updated.addAndGet(counts[1]);
+        } catch (Exception batchFailure) {
+            // One bad row rolls back the whole batch: replay it row by row to find and skip the bad ones
+            for (ImportRow row : rows) {
+                try {
+                    int[] counts = transactionTemplate.execute(status -> write(List.of(row)));
+                    job.inserted.addAndGet(counts[0]);
+                    job.updated.addAndGet(counts[1]);
+                } catch (Exception e) {
+                    job.fail(row.line, row.product.getSku(), NestedExceptionUtils.getMostSpecificCause(e).getMessage(), maxErrors);
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert new SKUs and update existing ones; returns {inserted, updated}.
+     * Price changes are published inside the transaction, as one event for the batch, so carts are only
+     * repriced if the batch commits. An update refused because the feed's stock does not cover the units
+     * held for checkout fails the batch; the row-by-row replay then reports just that row.
+     */
+    private int[] write(List<ImportRow> rows) {
+        List<String> skus = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            skus.add(row.product.getSku());
+        }
+
+        Map<String, Object[]> existing = new HashMap<>();
+        for (Object[] key : productRepository.findImportKeysBySku(skus)) {
+            existing.put(((String) key[1]).toLowerCase(Locale.ROOT), key);
+        }
+
+        List<Product> inserts = new ArrayList<>();
+        List<Product> updates = new ArrayList<>();
+        List<Long> repriced = new ArrayList<>();
+        for (ImportRow row : rows) {
+            Object[] key = existing.get(row.product.getSku().toLowerCase(Locale.ROOT));
+            if (key == null) {
+                inserts.add(row.product);
+            } else {
+                updates.add(row.product);
+                if (Double.compare((Double) key[2], row.product.getPrice()) != 0) {
+                    repriced.add((Long) key[0]);
+                }
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            productRepository.batchInsert(inserts);
+        }
+        if (!updates.isEmpty()) {
+            int[] counts = productRepository.batchUpdateBySku(updates);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw new IllegalStateException("stock " + updates.get(i).getStock()
+                            + " is less than the units held for checkout (reservations and hot-SKU escrow)");
+                }
+            }
+        }
+        if (!repriced.isEmpty()) {
+            eventPublisher.publishEvent(new ProductPriceChangedEvent(repriced));
+        }
+        return new int[]{inserts.size(), updates.size()};
+    }
+
+    private static Map<String, Integer> columns(String headerLine) {
+        if (headerLine.startsWith("\uFEFF")) {
+            headerLine = headerLine.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = Csv.parseLine(headerLine);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static Product parse(String line, Map<String, Integer> columns) {
+        List<String> fields = Csv.parseLine(line);
+
+        String sku = field(fields, columns, "sku");
+        String name = field(fields, columns, "name");
+        String description = field(fields, columns, "description");
+        String imageUrl = field(fields, columns, "imageurl");
+
+        if (sku == null || sku.length() > 64) {
+            throw new IllegalArgumentException("sku is required (max 64 characters)");
+        }
+        if (name == null || name.length() > 255) {
+            throw new IllegalArgumentException("name is required (max 255 characters)");
+        }
+        if (description != null && description.length() > 255) {
+            throw new IllegalArgumentException("description is longer than 255 characters");
+        }
+        if (imageUrl != null && imageUrl.length() > 500) {
+            throw new IllegalArgumentException("imageUrl is longer than 500 characters");
+        }
+
+        double price;
+        int stock;
+        try {
+            price = Double.parseDouble(field(fields, columns, "price"));
+            stock = Integer.parseInt(field(fields, columns, "stock"));
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException("price and stock must be numbers");
+        }
+        if (!Double.isFinite(price) || price < 0) {
+            throw new IllegalArgumentException("price must be zero or more");
+        }
+        if (stock < 0) {
+            throw new IllegalArgumentException("stock must be zero or more");
+        }
+
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setStock(stock);
+        product.setImageUrl(imageUrl);
+        return product;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private void forgetOldJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(jobRetentionHours);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private record ImportRow(long line, Product product) {
+    }
+
+    private static class ImportJob {
+        final String id;
+        final String fileName;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final List<ProductImportStatusDTO.RowError> errors = new ArrayList<>();
+        volatile long totalBytes;
+        volatile String status = QUEUED;
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+
+        ImportJob(String id, String fileName) {
+            this.id = id;
+            this.fileName = fileName;
+        }
+
+        void fail(long line, String sku, String message, int maxErrors) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(new ProductImportStatusDTO.RowError(line, sku, message));
+                }
+            }
+        }
+
+        ProductImportStatusDTO toDTO() {
+            ProductImportStatusDTO dto = new ProductImportStatusDTO();
+            dto.setJobId(id);
+            dto.setStatus(status);
+            dto.setStatusUrl("/api/products/import/" + id);
+            dto.setFileName(fileName);
+            dto.setBytesRead(bytesRead.get());
+            dto.setTotalBytes(totalBytes);
+            dto.setPercent(COMPLETED.equals(status) ? 100
+                    : totalBytes == 0 ? 0 : (int) Math.min(99, bytesRead.get() * 100 / totalBytes));
+            dto.setRowsRead(rowsRead.get());
+            dto.setInserted(inserted.get());
+            dto.setUpdated(updated.get());
+            dto.setFailed(failed.get());
+            synchronized (errors) {
+                dto.setErrors(new ArrayList<>(errors));
+            }
+            dto.setError(error);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+
+    /**
+     * Counts bytes handed to the reader, for progress. Runs slightly ahead of the rows parsed because of buffering.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over product name and description, ranked with BM25 (name weighted NAME_BOOST times).
+ *
+ * Query terms must all match (AND). Each term matches exactly, the last one also as a prefix (search as you type),
+ * and a term that is not in the dictionary matches terms within one edit (two from 8 characters) that share its
+ * first letter. Prefix and typo matches score lower than exact ones.
+ *
+ * Updated products get a new doc id and the old one becomes a tombstone; postings are compacted once
+ * tombstones pass a quarter of all docs. Not thread-safe: ProductSearchService guards it with a read-write lock.
+ */
+class ProductIndex {
+
+    static final float NAME_BOOST = 3f;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PREFIX_WEIGHT = 0.8f;
+    private static final float TYPO_WEIGHT = 0.6f;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int MAX_TERM_LENGTH = 40;
+
+    private static final Pattern SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    private Doc[] docs = new Doc[1024];
+    private int docCount;
+    private int tombstones;
+    private long totalNameLength;
+    private long totalDescLength;
+
+    // Per-query buffers indexed by doc id, reused so concurrent searches (under the read lock) allocate nothing per doc
+    private final ConcurrentLinkedQueue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    record Hit(long productId, float score) {
+    }
+
+    /**
+     * Tokens and term frequencies of one product, computed without touching the index (safe to run in parallel).
+     */
+    record Analyzed(long productId, int nameLength, int descLength, Map<String, int[]> frequencies) {
+    }
+
+    private record Doc(long productId, int nameLength, int descLength, String[] terms) {
+    }
+
+    private static final class Postings {
+        int[] docIds = new int[4];
+        short[] nameTf = new short[4];
+        short[] descTf = new short[4];
+        int size;
+        int live;
+
+        void add(int docId, int inName, int inDesc) {
+            if (size == docIds.length) {
+                int capacity = size * 2;
+                docIds = Arrays.copyOf(docIds, capacity);
+                nameTf = Arrays.copyOf(nameTf, capacity);
+                descTf = Arrays.copyOf(descTf, capacity);
+            }
+            docIds[size] = docId;
+            nameTf[size] = (short) Math.min(inName, Short.MAX_VALUE);
+            descTf[size] = (short) Math.min(inDesc, Short.MAX_VALUE);
+            size++;
+            live++;
+        }
+    }
+
+    private static final class Scratch {
+        final float[] scores;
+        final float[] termScores;
+        final int[] matchedTerms;
+        final int[] touched;
+        final int[] touchedLater;
+
+        Scratch(int docs) {
+            scores = new float[docs];
+            termScores = new float[docs];
+            matchedTerms = new int[docs];
+            touched = new int[docs];
+            touchedLater = new int[docs];
+        }
+    }
+
+    static Analyzed analyze(long productId, String name, String description) {
+        Map<String, int[]> frequencies = new LinkedHashMap<>();
+        List<String> nameTokens = tokenize(name);
+        List<String> descTokens = tokenize(description);
+        for (String token : nameTokens) {
+            frequencies.computeIfAbsent(token, t -> new int[2])[0]++;
+        }
+        for (String token : descTokens) {
+            frequencies.computeIfAbsent(token, t -> new int[2])[1]++;
+        }
+        return new Analyzed(productId, nameTokens.size(), descTokens.size(), frequencies);
+    }
+
+    /**
+     * Lower-cased, accent-free runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SPLIT.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Add or replace a product.
+     */
+    void put(Analyzed analyzed) {
+        remove(analyzed.productId());
+
+        if (docCount == docs.length) {
+            docs = Arrays.copyOf(docs, docCount * 2);
+        }
+        int docId = docCount++;
+        docs[docId] = new Doc(analyzed.productId(), analyzed.nameLength(), analyzed.descLength(),
+                analyzed.frequencies().keySet().toArray(new String[0]));
+        docByProduct.put(analyzed.productId(), docId);
+        totalNameLength += analyzed.nameLength();
+        totalDescLength += analyzed.descLength();
+
+        for (Map.Entry<String, int[]> entry : analyzed.frequencies().entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), t -> new Postings())
+                    .add(docId, entry.getValue()[0], entry.getValue()[1]);
+        }
+    }
+
+    void remove(long productId) {
+        Integer docId = docByProduct.remove(productId);
+        if (docId == null) {
+            return;
+        }
+
+        Doc doc = docs[docId];
+        docs[docId] = null;
+        tombstones++;
+        totalNameLength -= doc.nameLength();
+        totalDescLength -= doc.descLength();
+        for (String term : doc.terms()) {
+            terms.get(term).live--;
+        }
+
+        if (tombstones > 1000 && tombstones * 4 > docCount) {
+            compact();
+        }
+    }
+
+    int size() {
+        return docByProduct.size();
+    }
+
+    List<Hit> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty() || docByProduct.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        if (queryTerms.size() > MAX_QUERY_TERMS) {
+            queryTerms = queryTerms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        List<Map<Postings, Float>> expanded = new ArrayList<>(queryTerms.size());
+        for (int q = 0; q < queryTerms.size(); q++) {
+            Map<Postings, Float> variants = expand(queryTerms.get(q), q == queryTerms.size() - 1);
+            if (variants.isEmpty()) {
+                return List.of();
+            }
+            expanded.add(variants);
+        }
+        // Rarest term first: only its docs can match, so the later (larger) terms touch no new docs
+        expanded.sort(Comparator.comparingLong(ProductIndex::postingCount));
+
+        int liveDocs = docByProduct.size();
+        float avgName = Math.max(1f, (float) totalNameLength / liveDocs);
+        float avgDesc = Math.max(1f, (float) totalDescLength / liveDocs);
+
+        Scratch scratch = takeScratch();
+        float[] scores = scratch.scores;
+        float[] termScores = scratch.termScores;
+        int[] matchedTerms = scratch.matchedTerms;
+        int[] candidates = scratch.touched;
+        int candidateCount = 0;
+
+        for (int q = 0; q < expanded.size(); q++) {
+            int[] touched = q == 0 ? candidates : scratch.touchedLater;
+            int touchedCount = 0;
+
+            for (Map.Entry<Postings, Float> variant : expanded.get(q).entrySet()) {
+                Postings postings = variant.getKey();
+                float idf = (float) Math.log(1 + (liveDocs - postings.live + 0.5) / (postings.live + 0.5));
+                float weight = idf * variant.getValue();
+
+                for (int i = 0; i < postings.size; i++) {
+                    int docId = postings.docIds[i];
+                    Doc doc = docs[docId];
+                    // AND: from the second term on, only docs that matched every earlier term
+                    if (doc == null || matchedTerms[docId] != q) {
+                        continue;
+                    }
+
+                    float score = weight * (NAME_BOOST * bm25(postings.nameTf[i], doc.nameLength(), avgName)
+                            + bm25(postings.descTf[i], doc.descLength(), avgDesc));
+                    if (termScores[docId] == 0) {
+                        touched[touchedCount++] = docId;
+                    }
+                    // Best variant per term, so a short prefix with many expansions does not outrank an exact match
+                    termScores[docId] = Math.max(termScores[docId], score);
+                }
+            }
+
+            for (int i = 0; i < touchedCount; i++) {
+                int docId = touched[i];
+                scores[docId] += termScores[docId];
+                termScores[docId] = 0;
+                matchedTerms[docId]++;
+            }
+            if (q == 0) {
+                candidateCount = touchedCount;
+            }
+        }
+
+        int required = expanded.size();
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, ProductIndex::compareHits);
+        for (int i = 0; i < candidateCount; i++) {
+            int docId = candidates[i];
+            if (matchedTerms[docId] == required) {
+                top.add(new Hit(docs[docId].productId(), scores[docId]));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            // Every doc touched by a later term is a candidate, so this leaves the buffers zeroed for reuse
+            scores[docId] = 0;
+            matchedTerms[docId] = 0;
+        }
+        scratchPool.offer(scratch);
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort((a, b) -> compareHits(b, a));
+        return hits;
+    }
+
+    /**
+     * Zeroed buffers covering every doc id; a search that throws does not return its buffers to the pool.
+     */
+    private Scratch takeScratch() {
+        Scratch scratch = scratchPool.poll();
+        while (scratch != null && scratch.scores.length < docCount) {
+            // Sized before the index grew; drop it
+            scratch = scratchPool.poll();
+        }
+        return scratch != null ? scratch : new Scratch(docs.length);
+    }
+
+    private static long postingCount(Map<Postings, Float> variants) {
+        long count = 0;
+        for (Postings postings : variants.keySet()) {
+            count += postings.size;
+        }
+        return count;
+    }
+
+    /**
+     * Dictionary terms matching one query term, with their weight.
+     */
+    private Map<Postings, Float> expand(String term, boolean last) {
+        Map<Postings, Float> variants = new LinkedHashMap<>();
+
+        Postings exact = terms.get(term);
+        if (exact != null && exact.live > 0) {
+            variants.put(exact, 1f);
+        }
+
+        if (last && term.length() >= 2) {
+            int expansions = 0;
+            for (Map.Entry<String, Postings> entry : terms.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+                if (entry.getValue().live > 0) {
+                    variants.put(entry.getValue(), PREFIX_WEIGHT);
+                    if (++expansions == MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (variants.isEmpty() && term.length() >= 4) {
+            int maxEdits = term.length() >= 8 ? 2 : 1;
+            char first = term.charAt(0);
+            NavigableMap<String, Postings> sameFirstLetter =
+                    terms.subMap(String.valueOf(first), true, String.valueOf((char) (first + 1)), false);
+            for (Map.Entry<String, Postings> entry : sameFirstLetter.entrySet()) {
+                String candidate = entry.getKey();
+                if (entry.getValue().live > 0
+                        && Math.abs(candidate.length() - term.length()) <= maxEdits
+                        && withinEdits(term, candidate, maxEdits)) {
+                    variants.put(entry.getValue(), TYPO_WEIGHT);
+                }
+            }
+        }
+        return variants;
+    }
+
+    private static float bm25(int tf, int length, float averageLength) {
+        if (tf == 0) {
+            return 0;
+        }
+        return tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+    }
+
+    private static int compareHits(Hit a, Hit b) {
+        int byScore = Float.compare(a.score(), b.score());
+        // Equal scores: lower product id ranks higher, so results are stable
+        return byScore != 0 ? byScore : Long.compare(b.productId(), a.productId());
+    }
+
+    /**
+     * Optimal string alignment distance (edits incl. adjacent transpositions) is at most maxEdits.
+     */
+    static boolean withinEdits(String a, String b, int maxEdits) {
+        int n = a.length();
+        int m = b.length();
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m] <= maxEdits;
+    }
+
+    /**
+     * Drop tombstones: renumber live docs densely and rewrite every posting list.
+     */
+    private void compact() {
+        int[] remap = new int[docCount];
+        Doc[] liveDocs = new Doc[Math.max(1024, docByProduct.size() * 2)];
+        int next = 0;
+        for (int docId = 0; docId < docCount; docId++) {
+            if (docs[docId] != null) {
+                remap[docId] = next;
+                liveDocs[next] = docs[docId];
+                docByProduct.put(docs[docId].productId(), next);
+                next++;
+            } else {
+                remap[docId] = -1;
+            }
+        }
+
+        terms.values().removeIf(postings -> postings.live == 0);
+        for (Postings postings : terms.values()) {
+            int kept = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int docId = remap[postings.docIds[i]];
+                if (docId >= 0) {
+                    postings.docIds[kept] = docId;
+                    postings.nameTf[kept] = postings.nameTf[i];
+                    postings.descTf[kept] = postings.descTf[i];
+                    kept++;
+                }
+            }
+            postings.size = kept;
+        }
+
+        docs = liveDocs;
+        docCount = next;
+        tombstones = 0;
+    }
+}
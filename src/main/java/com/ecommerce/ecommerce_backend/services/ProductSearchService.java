@@ -0,0 +1,251 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.ProductSummaryDTO;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.entity.ProductChange;
+import com.ecommerce.ecommerce_backend.event.ProductChangedEvent;
+import com.ecommerce.ecommerce_backend.event.ProductChangesPolledEvent;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Product search backed by an in-process ProductIndex.
+ *
+ * The index is rebuilt at startup: id ranges are read and tokenized in parallel, then added in id order.
+ * Afterwards it follows product writes: this node's own after commit, other nodes' from the product_changes poll.
+ * Catalog-wide changes rebuild it on searchIndexExecutor; requests arriving before that rebuild starts share it.
+ * Hits are returned from the product cache, so stock and price are as fresh as the cache.
+ */
+@Slf4j
+@Service
+public class ProductSearchService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    @Qualifier("searchIndexExecutor")
+    private ThreadPoolTaskExecutor searchIndexExecutor;
+
+    @Value("${product.search.rebuild.chunk-size:10000}")
+    private long chunkSize;
+
+    @Value("${product.search.rebuild.parallelism:4}")
+    private int parallelism;
+
+    @Value("${product.search.default-results:20}")
+    private int defaultResults;
+
+    @Value("${product.search.max-results:100}")
+    private int maxResults;
+
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+    private ProductIndex index = new ProductIndex();
+
+    // Products changed while a rebuild is running; null when no rebuild is in progress
+    private Set<Long> changedDuringRebuild;
+
+    private final Object rebuildLock = new Object();
+
+    // A rebuild is queued and has not started yet
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    public List<ProductSummaryDTO> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("q must not be empty");
+        }
+        int resultCount = limit == null ? defaultResults : Math.min(Math.max(limit, 1), maxResults);
+
+        List<ProductIndex.Hit> hits;
+        indexLock.readLock().lock();
+        try {
+            hits = index.search(query, resultCount);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (ProductIndex.Hit hit : hits) {
+            ids.add(hit.productId());
+        }
+        Map<Long, Product> products = productCache.getAll(ids);
+
+        List<ProductSummaryDTO> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = products.get(id);
+            // Skip hits deactivated since they were indexed; the change event will remove them
+            if (product != null && !Boolean.FALSE.equals(product.getIsActive())) {
+                results.add(new ProductSummaryDTO(product.getId(), product.getName(), product.getPrice(),
+                        product.getStock(), product.getImageUrl(), product.getCreatedAt()));
+            }
+        }
+        return results;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (ProductChange.CATALOG.equals(event.getProductId())) {
+            requestRebuild();
+        } else {
+            reindex(List.of(event.getProductId()));
+        }
+    }
+
+    @EventListener
+    public void onChangesPolled(ProductChangesPolledEvent event) {
+        if (event.getProductIds().contains(ProductChange.CATALOG)) {
+            requestRebuild();
+        } else {
+            reindex(event.getProductIds());
+        }
+    }
+
+    /**
+     * Re-read the products and put them in the index, or take them out if they are gone or inactive.
+     */
+    public void reindex(Collection<Long> productIds) {
+        List<ProductIndex.Analyzed> active = new ArrayList<>();
+        Set<Long> inactive = new LinkedHashSet<>(productIds);
+        for (Product product : productRepository.findAllById(productIds)) {
+            if (!Boolean.FALSE.equals(product.getIsActive())) {
+                active.add(ProductIndex.analyze(product.getId(), product.getName(), product.getDescription()));
+                inactive.remove(product.getId());
+            }
+        }
+
+        indexLock.writeLock().lock();
+        try {
+            for (ProductIndex.Analyzed analyzed : active) {
+                index.put(analyzed);
+            }
+            for (Long productId : inactive) {
+                index.remove(productId);
+            }
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(productIds);
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild in the background. Collapses with a rebuild that is queued but not started; one requested while
+     * a rebuild runs queues another, since the running one may have read the products before the change.
+     */
+    public void requestRebuild() {
+        if (!rebuildRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            searchIndexExecutor.execute(() -> {
+                rebuildRequested.set(false);
+                rebuild();
+            });
+        } catch (TaskRejectedException e) {
+            rebuildRequested.set(false);
+            log.warn("⚠️ Product search index rebuild not queued: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Build a fresh index from the product table and swap it in. Searches keep using the old index meanwhile;
+     * products changed during the rebuild are re-read once the new index is in place.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long started = System.currentTimeMillis();
+
+            indexLock.writeLock().lock();
+            try {
+                changedDuringRebuild = new LinkedHashSet<>();
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+
+            long maxId = productRepository.findMaxId();
+            ProductIndex fresh = new ProductIndex();
+
+            ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+            try {
+                List<Future<List<ProductIndex.Analyzed>>> chunks = new ArrayList<>();
+                for (long from = 0; from < maxId; from += chunkSize) {
+                    long fromId = from;
+                    long toId = Math.min(from + chunkSize, maxId);
+                    chunks.add(pool.submit(() -> {
+                        List<ProductIndex.Analyzed> analyzed = new ArrayList<>();
+                        for (Object[] row : productRepository.findSearchRows(fromId, toId)) {
+                            analyzed.add(ProductIndex.analyze((Long) row[0], (String) row[1], (String) row[2]));
+                        }
+                        return analyzed;
+                    }));
+                }
+
+                for (Future<List<ProductIndex.Analyzed>> chunk : chunks) {
+                    for (ProductIndex.Analyzed analyzed : chunk.get()) {
+                        fresh.put(analyzed);
+                    }
+                }
+            } catch (Exception e) {
+                indexLock.writeLock().lock();
+                try {
+                    changedDuringRebuild = null;
+                } finally {
+                    indexLock.writeLock().unlock();
+                }
+                log.error("❌ Product search index rebuild failed: {}", e.getMessage(), e);
+                return;
+            } finally {
+                pool.shutdown();
+            }
+
+            Set<Long> changed;
+            indexLock.writeLock().lock();
+            try {
+                index = fresh;
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+            if (!changed.isEmpty()) {
+                reindex(changed);
+            }
+
+            log.info("🔎 Product search index rebuilt: {} products in {} ms",
+                    fresh.size(), System.currentTimeMillis() - started);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.ecommerce_backend.services;
 
+import com.ecommerce.ecommerce_backend.dto.PageDTO;
+import com.ecommerce.ecommerce_backend.dto.ProductSummaryDTO;
 import com.ecommerce.ecommerce_backend.entity.Product;
 
 import java.util.List;
@@ -15,6 +17,21 @@ public interface ProductService {
 
     void deleteProduct(Long id);
 
+    Product deactivateProduct(Long id);
+
+    /**
+     * ETag value for product listings: changes whenever any product changes, and at least once per cache TTL.
+     */
+    String getCatalogVersionTag();
+
+    /**
+     * ETag value for one product: changes with its updatedAt and with its stock.
+     */
+    String getProductVersionTag(Product product);
+
     public List<Product> getAllActiveProducts();
 
+    PageDTO<ProductSummaryDTO> getActiveProductPage(String cursor, Integer limit, String sort, String direction,
+                                                    Double minPrice, Double maxPrice, boolean inStockOnly);
+
 }
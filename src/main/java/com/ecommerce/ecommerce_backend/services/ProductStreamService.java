@@ -0,0 +1,409 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.ProductDeltaDTO;
+import com.ecommerce.ecommerce_backend.entity.ProductChange;
+import com.ecommerce.ecommerce_backend.repository.ProductChangeRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Server-sent stream of product price, stock and active changes (GET /api/products/changes).
+ *
+ * Every interval-ms one tick reads the product_changes rows written since the last tick, by any node, and pushes
+ * the current state of those products to all subscribers. Changes to a product within a tick, or while a subscriber
+ * is still busy receiving, collapse into one delta. Subscribers are SseEmitters: an idle connection holds no thread,
+ * and sends run on the small productStreamExecutor pool, one task at a time per subscriber.
+ *
+ * Event ids are change versions to resume from (Last-Event-ID or ?since=). They trail the newest change by
+ * grace-seconds, so a resumed stream also covers transactions that committed out of id order; deltas carry
+ * absolute values, so receiving one twice is harmless. Clients too far behind, behind the retained change log,
+ * or subscribed during a bulk import get a "reset" event: reload the catalog, then keep listening.
+ */
+@Slf4j
+@Service
+public class ProductStreamService {
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    @Qualifier("productStreamExecutor")
+    private ThreadPoolTaskExecutor streamExecutor;
+
+    @Value("${product.stream.grace-seconds:5}")
+    private long graceSeconds;
+
+    @Value("${product.stream.batch-size:5000}")
+    private int batchSize;
+
+    // Change rows a resuming client may be behind before it gets a reset instead
+    @Value("${product.stream.max-catch-up:10000}")
+    private int maxCatchUp;
+
+    // Coalesced deltas waiting for a slow subscriber before it is reset
+    @Value("${product.stream.max-pending:5000}")
+    private int maxPending;
+
+    @Value("${product.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${product.stream.heartbeat-seconds:20}")
+    private long heartbeatSeconds;
+
+    @Value("${product.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${product.stream.reconnect-ms:3000}")
+    private long reconnectMillis;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Admitted by the next tick, after its catch-up
+    private final Queue<Subscriber> joining = new ConcurrentLinkedQueue<>();
+
+    // Tick state, only touched by the scheduler thread running tick()
+    private volatile long safeVersion = -1;
+    private long streamVersion;
+    private final TreeSet<Long> emitted = new TreeSet<>();
+    private final Deque<long[]> versionHistory = new ArrayDeque<>();
+    private long lastHeartbeat;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        Long latest = productChangeRepository.findLatestVersion();
+        streamVersion = latest != null ? latest : 0;
+        lastHeartbeat = System.currentTimeMillis();
+        safeVersion = streamVersion;
+    }
+
+    /**
+     * New subscriber resuming after the given version (null: only changes from now on).
+     * Its first event comes with the next tick. Throws IllegalStateException when the node is full.
+     */
+    public SseEmitter subscribe(Long since) {
+        if (subscribers.size() + joining.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many product change subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, since);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(subscriber));
+        joining.add(subscriber);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${product.stream.interval-ms:1000}", initialDelayString = "${product.stream.interval-ms:1000}")
+    public void tick() {
+        if (safeVersion < 0) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Set<Long> changed = readChanges();
+            advanceSafeVersion(now);
+
+            if (!changed.isEmpty() && !subscribers.isEmpty()) {
+                if (changed.contains(ProductChange.CATALOG)) {
+                    subscribers.forEach(subscriber -> subscriber.offerReset(safeVersion));
+                } else {
+                    List<ProductDeltaDTO> deltas = new ArrayList<>(loadDeltas(changed).values());
+                    subscribers.forEach(subscriber -> subscriber.offer(deltas, safeVersion));
+                }
+            }
+
+            admitJoining();
+
+            if (now - lastHeartbeat >= heartbeatSeconds * 1000) {
+                lastHeartbeat = now;
+                subscribers.forEach(Subscriber::ping);
+            }
+        } catch (Exception e) {
+            log.error("❌ Product change stream tick failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        for (Subscriber subscriber : joining) {
+            subscriber.close();
+        }
+    }
+
+    /**
+     * Products of the rows above the safe version not sent yet: new rows, and rows that committed late.
+     */
+    private Set<Long> readChanges() {
+        Set<Long> changed = new LinkedHashSet<>();
+        long after = safeVersion;
+        while (true) {
+            List<Object[]> rows = productChangeRepository.findProductIdsAfter(after, Limit.of(batchSize));
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                if (emitted.add(id)) {
+                    changed.add((Long) row[1]);
+                }
+                after = id;
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        streamVersion = Math.max(streamVersion, after);
+        return changed;
+    }
+
+    /**
+     * The safe version is what the stream had read grace-seconds ago; rows at or below it are final.
+     */
+    private void advanceSafeVersion(long now) {
+        versionHistory.addLast(new long[]{now, streamVersion});
+        long cutoff = now - graceSeconds * 1000;
+        long safe = safeVersion;
+        while (!versionHistory.isEmpty() && versionHistory.peekFirst()[0] <= cutoff) {
+            safe = Math.max(safe, versionHistory.pollFirst()[1]);
+        }
+        emitted.headSet(safe, true).clear();
+        safeVersion = safe;
+    }
+
+    /**
+     * Catch joining subscribers up and start streaming to them. One read of the change log serves all of them:
+     * newest rows first, so each subscriber's rows (those above its version) are a prefix of the list.
+     */
+    private void admitJoining() {
+        List<Subscriber> admitted = new ArrayList<>();
+        for (Subscriber subscriber = joining.poll(); subscriber != null; subscriber = joining.poll()) {
+            admitted.add(subscriber);
+        }
+        if (admitted.isEmpty()) {
+            return;
+        }
+
+        long from = Long.MAX_VALUE;
+        for (Subscriber subscriber : admitted) {
+            if (subscriber.since != null) {
+                from = Math.min(from, subscriber.since);
+            }
+        }
+
+        List<Object[]> rows = List.of();
+        long oldestRetained = 0;
+        if (from != Long.MAX_VALUE) {
+            rows = productChangeRepository.findProductIdsAfterNewestFirst(from, Limit.of(maxCatchUp + 1));
+            Long oldest = productChangeRepository.findOldestVersion();
+            oldestRetained = oldest != null ? oldest : 0;
+        }
+        boolean truncated = rows.size() > maxCatchUp;
+        long oldestRead = rows.isEmpty() ? Long.MAX_VALUE : (Long) rows.get(rows.size() - 1)[0];
+
+        Map<Subscriber, Set<Long>> catchUps = new HashMap<>();
+        Set<Long> allProductIds = new LinkedHashSet<>();
+        for (Subscriber subscriber : admitted) {
+            if (subscriber.since == null) {
+                catchUps.put(subscriber, Set.of());
+                continue;
+            }
+            // Rows above since were deleted, or did not all fit in the read
+            if (subscriber.since + 1 < oldestRetained || (truncated && subscriber.since < oldestRead)) {
+                continue;
+            }
+            Set<Long> productIds = new LinkedHashSet<>();
+            for (Object[] row : rows) {
+                if ((Long) row[0] <= subscriber.since) {
+                    break;
+                }
+                productIds.add((Long) row[1]);
+            }
+            if (productIds.contains(ProductChange.CATALOG)) {
+                continue;
+            }
+            catchUps.put(subscriber, productIds);
+            allProductIds.addAll(productIds);
+        }
+
+        Map<Long, ProductDeltaDTO> deltas = loadDeltas(allProductIds);
+        for (Subscriber subscriber : admitted) {
+            Set<Long> productIds = catchUps.get(subscriber);
+            subscribers.add(subscriber);
+            if (productIds == null) {
+                subscriber.offerReset(safeVersion);
+            } else {
+                List<ProductDeltaDTO> catchUp = new ArrayList<>(productIds.size());
+                for (Long productId : productIds) {
+                    catchUp.add(deltas.get(productId));
+                }
+                subscriber.admit(catchUp, safeVersion);
+            }
+        }
+    }
+
+    private Map<Long, ProductDeltaDTO> loadDeltas(Collection<Long> productIds) {
+        Map<Long, ProductDeltaDTO> deltas = new LinkedHashMap<>();
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int start = 0; start < ids.size(); start += 1000) {
+            for (ProductDeltaDTO delta : productRepository.findDeltas(ids.subList(start, Math.min(ids.size(), start + 1000)))) {
+                deltas.put(delta.getId(), delta);
+            }
+        }
+        // Deleted products have no row left
+        for (Long productId : ids) {
+            deltas.computeIfAbsent(productId, ProductDeltaDTO::removed);
+        }
+        return deltas;
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        joining.remove(subscriber);
+    }
+
+    /**
+     * One connection. Deltas waiting to be sent are kept per product, newest state wins.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long since;
+
+        private final Map<Long, ProductDeltaDTO> pending = new LinkedHashMap<>();
+        private long version;
+        private boolean reset;
+        private boolean announce;
+        private boolean heartbeat;
+        private boolean sending;
+        private boolean first = true;
+
+        private Subscriber(SseEmitter emitter, Long since) {
+            this.emitter = emitter;
+            this.since = since;
+        }
+
+        synchronized void admit(List<ProductDeltaDTO> catchUp, long version) {
+            announce = true;
+            offer(catchUp, version);
+        }
+
+        synchronized void offer(List<ProductDeltaDTO> deltas, long version) {
+            // After a reset the client reloads the catalog anyway
+            if (!reset) {
+                for (ProductDeltaDTO delta : deltas) {
+                    pending.put(delta.getId(), delta);
+                }
+                if (pending.size() > maxPending) {
+                    pending.clear();
+                    reset = true;
+                }
+            }
+            this.version = Math.max(this.version, version);
+            schedule();
+        }
+
+        synchronized void offerReset(long version) {
+            pending.clear();
+            reset = true;
+            this.version = Math.max(this.version, version);
+            schedule();
+        }
+
+        synchronized void ping() {
+            if (!sending) {
+                heartbeat = true;
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (sending) {
+                return;
+            }
+            sending = true;
+            try {
+                streamExecutor.execute(this::drain);
+            } catch (Exception e) {
+                // Shutting down
+                close();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (this) {
+                    if (reset) {
+                        event = SseEmitter.event().name("reset").id(Long.toString(version))
+                                .data(Map.of("version", version), MediaType.APPLICATION_JSON);
+                    } else if (!pending.isEmpty() || announce) {
+                        event = SseEmitter.event().name("changes").id(Long.toString(version))
+                                .data(new ArrayList<>(pending.values()), MediaType.APPLICATION_JSON);
+                    } else if (heartbeat) {
+                        event = SseEmitter.event().comment("ping");
+                    } else {
+                        sending = false;
+                        return;
+                    }
+                    if (first) {
+                        event.reconnectTime(reconnectMillis);
+                        first = false;
+                    }
+                    pending.clear();
+                    reset = false;
+                    announce = false;
+                    heartbeat = false;
+                }
+
+                try {
+                    emitter.send(event);
+                } catch (Exception e) {
+                    // Client gone; sending stays set so nothing more is scheduled for it
+                    log.debug("Product change subscriber dropped: {}", e.getMessage());
+                    remove(this);
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            remove(this);
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // Already completed
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.ReservationDTO;
+import com.ecommerce.ecommerce_backend.entity.Cart;
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+import com.ecommerce.ecommerce_backend.entity.StockReservation;
+import com.ecommerce.ecommerce_backend.repository.CartRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import com.ecommerce.ecommerce_backend.repository.StockReservationRepository;
+import com.ecommerce.ecommerce_backend.util.HashedTimerWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Time-limited stock holds taken when a user starts checkout.
+ *
+ * The stock_reservations table is the source of truth (rows are locked before a hold is consumed or released,
+ * so every unit goes back at most once). This node keeps an in-memory index of the holds it knows about and
+ * expires them through a timer wheel, so expiry normally never has to scan the table.
+ * The wheel only knows holds taken (or loaded at startup) on this node; a periodic sweep of expired rows
+ * releases holds whose node went away.
+ */
+@Slf4j
+@Service
+public class ReservationService {
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private HotStockService hotStockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${inventory.reservation.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${inventory.reservation.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${inventory.reservation.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    // userId -> active hold
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+
+    private HashedTimerWheel<Hold> wheel;
+
+    @PostConstruct
+    void initWheel() {
+        wheel = new HashedTimerWheel<>(tickMillis, 1024, System.currentTimeMillis());
+    }
+
+    /**
+     * Load holds that survived a restart (or were taken by other nodes) into the index and timer wheel.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadReservations() {
+        Map<Long, List<StockReservation>> byUser = stockReservationRepository.findAll().stream()
+                .collect(Collectors.groupingBy(StockReservation::getUserId));
+
+        byUser.forEach((userId, rows) -> track(userId,
+                rows.stream().map(StockReservation::getId).collect(Collectors.toList()),
+                quantitiesOf(rows),
+                rows.get(0).getExpiresAt()));
+
+        log.info("Loaded {} stock reservations for {} users", byUser.values().stream().mapToInt(List::size).sum(), byUser.size());
+    }
+
+    /**
+     * Hold stock for every line of the user's cart for ttl-seconds.
+     * Re-reserving replaces the previous hold; only the difference touches product stock.
+     */
+    @Transactional
+    public ReservationDTO reserve(Long userId) {
+        cartService.flushUserCart(userId, false);
+
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Cart not found for user: " + userId));
+
+        if (cart.getItems() == null || cart.getItems().isEmpty()) {
+            throw new RuntimeException("Cart is empty. Please add items before checkout.");
+        }
+
+        Map<Long, Integer> wanted = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            wanted.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+
+        List<StockReservation> existing = stockReservationRepository.findByUserIdForUpdate(userId);
+        adjustStock(quantitiesOf(existing), wanted);
+        deleteRows(existing);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttlSeconds);
+        List<StockReservation> rows = new ArrayList<>();
+        wanted.forEach((productId, quantity) -> {
+            StockReservation reservation = new StockReservation();
+            reservation.setUserId(userId);
+            reservation.setProductId(productId);
+            reservation.setQuantity(quantity);
+            reservation.setExpiresAt(expiresAt);
+            rows.add(reservation);
+        });
+        List<Long> ids = stockReservationRepository.saveAll(rows).stream()
+                .map(StockReservation::getId)
+                .collect(Collectors.toList());
+
+        afterCommit(() -> track(userId, ids, wanted, expiresAt));
+
+        log.info("🔒 Reserved {} products for user {} until {}", wanted.size(), userId, expiresAt);
+        return new ReservationDTO(userId, wanted, expiresAt);
+    }
+
+    /**
+     * Give a user's held stock back before the hold expires (e.g. they left checkout).
+     */
+    @Transactional
+    public void release(Long userId) {
+        List<StockReservation> existing = stockReservationRepository.findByUserIdForUpdate(userId);
+        productRepository.restoreStock(quantitiesOf(existing));
+        deleteRows(existing);
+        afterCommit(() -> untrack(userId));
+    }
+
+    /**
+     * Called by placeOrder inside its transaction: turns the user's hold into the order's stock.
+     * Only the difference between what is held and what the order needs is applied to product rows
+     * (usually nothing), and the hold is deleted. Without a hold this is a plain guarded decrement.
+     */
+    @Transactional
+    public void consumeForOrder(Long userId, Map<Long, Integer> orderQuantities) {
+        List<StockReservation> existing = stockReservationRepository.findByUserIdForUpdate(userId);
+        adjustStock(quantitiesOf(existing), orderQuantities);
+
+        if (!existing.isEmpty()) {
+            deleteRows(existing);
+            afterCommit(() -> untrack(userId));
+            log.info("Converted stock reservation of user {} into an order", userId);
+        }
+    }
+
+    public ReservationDTO getReservation(Long userId) {
+        Hold hold = holds.get(userId);
+        return hold == null ? null : new ReservationDTO(userId, hold.quantities, hold.expiresAt);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.tick-ms:1000}")
+    public void expireReservations() {
+        for (Hold hold : wheel.advance(System.currentTimeMillis())) {
+            if (!holds.remove(hold.userId, hold)) {
+                continue; // replaced or consumed meanwhile
+            }
+            try {
+                expire(hold);
+            } catch (Exception e) {
+                log.error("Failed to expire reservation of user {}, retrying later: {}", hold.userId, e.getMessage());
+                track(hold.userId, hold.reservationIds, hold.quantities, LocalDateTime.now().plusSeconds(30));
+            }
+        }
+    }
+
+    /**
+     * Release holds that expired in the table but not through this node's wheel,
+     * e.g. because the node that took them crashed or restarted before expiring them.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-ms:60000}",
+            initialDelayString = "${inventory.reservation.sweep-ms:60000}")
+    public void sweepExpiredReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Set<Long> users = new HashSet<>();
+        int released;
+        do {
+            // Rows locked by a checkout or another sweeper are skipped and left to them
+            List<StockReservation> expired = transaction.execute(status -> {
+                List<StockReservation> rows = stockReservationRepository.findExpiredForUpdate(now, Limit.of(sweepBatchSize));
+                productRepository.restoreStock(quantitiesOf(rows));
+                deleteRows(rows);
+                return rows;
+            });
+            released = expired.size();
+            expired.forEach(row -> users.add(row.getUserId()));
+        } while (released == sweepBatchSize);
+
+        // Drop the local index entries of those holds unless they were renewed meanwhile
+        for (Long userId : users) {
+            Hold hold = holds.get(userId);
+            if (hold != null && !hold.expiresAt.isAfter(now) && holds.remove(userId, hold) && hold.timeout != null) {
+                hold.timeout.cancel();
+            }
+        }
+
+        if (!users.isEmpty()) {
+            log.info("🧹 Swept expired stock reservations of {} users", users.size());
+        }
+    }
+
+    private void expire(Hold hold) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // Rows already consumed by an order (here or on another node) are gone and restore nothing
+            List<StockReservation> remaining = stockReservationRepository.findByIdsForUpdate(hold.reservationIds);
+            productRepository.restoreStock(quantitiesOf(remaining));
+            deleteRows(remaining);
+
+            if (!remaining.isEmpty()) {
+                log.info("⏰ Reservation of user {} expired, {} products returned to stock", hold.userId, remaining.size());
+            }
+        });
+    }
+
+    /**
+     * Apply only the difference between held and needed quantities to product stock.
+     */
+    private void adjustStock(Map<Long, Integer> held, Map<Long, Integer> needed) {
+        Map<Long, Integer> toReserve = new HashMap<>();
+        Map<Long, Integer> toRestore = new HashMap<>();
+
+        Set<Long> productIds = new HashSet<>(held.keySet());
+        productIds.addAll(needed.keySet());
+        for (Long productId : productIds) {
+            int diff = needed.getOrDefault(productId, 0) - held.getOrDefault(productId, 0);
+            if (diff > 0) {
+                toReserve.put(productId, diff);
+            } else if (diff < 0) {
+                toRestore.put(productId, -diff);
+            }
+        }
+
+        // Hot-SKU products are taken from in-memory counters, the rest with the guarded row decrement
+        hotStockService.reserveStock(toReserve);
+        productRepository.restoreStock(toRestore);
+    }
+
+    private void deleteRows(List<StockReservation> rows) {
+        if (!rows.isEmpty()) {
+            stockReservationRepository.deleteByIds(rows.stream()
+                    .map(StockReservation::getId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    private Map<Long, Integer> quantitiesOf(List<StockReservation> rows) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (StockReservation row : rows) {
+            quantities.merge(row.getProductId(), row.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private void track(Long userId, List<Long> reservationIds, Map<Long, Integer> quantities, LocalDateTime expiresAt) {
+        long deadline = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Hold hold = new Hold(userId, reservationIds, quantities, expiresAt);
+
+        // Index first, then schedule: the ticking thread only expires holds it can find in the index
+        Hold previous = holds.put(userId, hold);
+        if (previous != null && previous.timeout != null) {
+            previous.timeout.cancel();
+        }
+        hold.timeout = wheel.schedule(hold, deadline);
+    }
+
+    private void untrack(Long userId) {
+        Hold previous = holds.remove(userId);
+        if (previous != null && previous.timeout != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Hold {
+        final Long userId;
+        final List<Long> reservationIds;
+        final Map<Long, Integer> quantities;
+        final LocalDateTime expiresAt;
+        volatile HashedTimerWheel.Timeout<Hold> timeout;
+
+        Hold(Long userId, List<Long> reservationIds, Map<Long, Integer> quantities, LocalDateTime expiresAt) {
+            this.userId = userId;
+            this.reservationIds = reservationIds;
+            this.quantities = quantities;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
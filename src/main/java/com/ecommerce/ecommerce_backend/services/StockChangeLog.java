@@ -0,0 +1,73 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.event.ProductStockChangedEvent;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes STOCK product changes for the change stream, one row per product per flush instead of one per checkout.
+ *
+ * Committed stock changes are collected in memory and written every flush-ms, as the hot-SKU flusher does for its
+ * sales. A node that dies between a checkout and the next flush loses those rows: stream clients see the product's
+ * stock with its next change (or on reload), the stock itself is not affected.
+ */
+@Slf4j
+@Service
+public class StockChangeLog {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        changed.addAll(event.getProductIds());
+    }
+
+    @Scheduled(fixedDelayString = "${product.changes.stock-flush-ms:1000}")
+    public void flush() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = new ArrayList<>(changed);
+        changed.removeAll(productIds);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> productRepository.logStockChanges(productIds));
+        } catch (Exception e) {
+            // Kept for the next flush
+            changed.addAll(productIds);
+            log.error("❌ Could not log stock changes of {} products: {}", productIds.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ecommerce.ecommerce_backend.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timer wheel: O(1) schedule/cancel, expiry work proportional to what actually expires.
+ * A deadline is hashed into one of wheelSize buckets of tickMillis each; deadlines further away than one
+ * revolution simply stay in their bucket until the wheel has gone round enough times.
+ * Any thread may schedule or cancel; advance() is meant to be called by a single ticking thread.
+ */
+public class HashedTimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<Queue<Timeout<T>>> buckets;
+    private volatile long lastTick;
+
+    public HashedTimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+        this.lastTick = nowMillis / tickMillis;
+    }
+
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        // Round up so nothing fires early; overdue items go into the next bucket to be processed
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, lastTick + 1);
+        Timeout<T> timeout = new Timeout<>(item, tick);
+        buckets.get((int) (tick % buckets.size())).add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Move the wheel up to nowMillis and return every item whose deadline has passed.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+
+        // After a long pause one full revolution visits every bucket once
+        long from = Math.max(lastTick + 1, nowTick - buckets.size() + 1);
+        for (long tick = from; tick <= nowTick; tick++) {
+            Iterator<Timeout<T>> iterator = buckets.get((int) (tick % buckets.size())).iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.cancelled) {
+                    iterator.remove();
+                } else if (timeout.deadlineTick <= nowTick) {
+                    iterator.remove();
+                    expired.add(timeout.item);
+                }
+            }
+        }
+
+        if (nowTick > lastTick) {
+            lastTick = nowTick;
+        }
+        return expired;
+    }
+
+    public static final class Timeout<T> {
+
+        private final T item;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * The entry is dropped lazily the next time its bucket is visited.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.ecommerce_backend.util;
+
+/**
+ * Conversions between the double amounts stored on entities and fixed-point minor units (cents).
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static long toMinor(Double amount) {
+        return amount == null ? 0 : toMinor(amount.doubleValue());
+    }
+
+    public static double toMajor(long minor) {
+        return minor / 100.0;
+    }
+}
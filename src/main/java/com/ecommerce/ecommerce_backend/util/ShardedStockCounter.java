@@ -0,0 +1,124 @@
+package com.ecommerce.ecommerce_backend.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Units of one product split over shards so concurrent takers rarely touch the same counter.
+ *
+ * A taker CASes its home shard (picked per thread). When the home shard runs dry it rebalances:
+ * it pulls half of a donor shard's units (at least what it needs) into its own, then retries.
+ * A shard is never decremented below zero, so the shards together never hand out more than was added.
+ */
+public class ShardedStockCounter {
+
+    // One shard per 128-byte block so shards do not share a cache line
+    private static final int STRIDE = 16;
+
+    private final int shardCount;
+    private final AtomicLongArray cells;
+
+    public ShardedStockCounter(int shardCount) {
+        this.shardCount = Math.max(1, shardCount);
+        this.cells = new AtomicLongArray(this.shardCount * STRIDE);
+    }
+
+    /**
+     * Take quantity units, or nothing and return false if fewer are available.
+     */
+    public boolean tryTake(int quantity) {
+        int home = homeShard();
+        if (takeFrom(home, quantity)) {
+            return true;
+        }
+
+        // Home shard is dry: move units over from the other shards until the request fits
+        for (int i = 1; i < shardCount; i++) {
+            int donor = (home + i) % shardCount;
+            long available = get(home);
+            long missing = quantity - available;
+            if (missing <= 0) {
+                break;
+            }
+            long moved = drain(donor, missing);
+            if (moved > 0) {
+                add(home, moved);
+            }
+            if (takeFrom(home, quantity)) {
+                return true;
+            }
+        }
+        return takeFrom(home, quantity);
+    }
+
+    /**
+     * Add units (refill from escrow, or give back units of a rolled-back sale).
+     */
+    public void add(long quantity) {
+        add(homeShard(), quantity);
+    }
+
+    /**
+     * Remove and return every unit, e.g. before handing the escrow back to the product row.
+     */
+    public long drainAll() {
+        long drained = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            drained += cells.getAndSet(shard * STRIDE, 0);
+        }
+        return drained;
+    }
+
+    /**
+     * Units currently on the shards. Not a snapshot: concurrent takes and rebalancing may be in progress.
+     */
+    public long available() {
+        long total = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            total += get(shard);
+        }
+        return total;
+    }
+
+    private boolean takeFrom(int shard, int quantity) {
+        int index = shard * STRIDE;
+        while (true) {
+            long current = cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+            if (cells.compareAndSet(index, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Take at least missing (or all there is) from the donor, and up to half of its units for later takes.
+     */
+    private long drain(int donor, long missing) {
+        int index = donor * STRIDE;
+        while (true) {
+            long current = cells.get(index);
+            if (current <= 0) {
+                return 0;
+            }
+            long moved = Math.min(current, Math.max(missing, current / 2));
+            if (cells.compareAndSet(index, current, current - moved)) {
+                return moved;
+            }
+        }
+    }
+
+    private void add(int shard, long quantity) {
+        cells.addAndGet(shard * STRIDE, quantity);
+    }
+
+    private long get(int shard) {
+        return cells.get(shard * STRIDE);
+    }
+
+    private int homeShard() {
+        // Spread thread ids over the shards; a thread always lands on the same one
+        return Math.floorMod(Long.hashCode(Thread.currentThread().getId() * 0x9E3779B97F4A7C15L), shardCount);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.ecommerce_backend.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed table of locks shared by hash: memory stays constant however many keys there are,
+ * at the cost of unrelated keys occasionally sharing a stripe.
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock get(Object key) {
+        return stripes[indexOf(key)];
+    }
+
+    /**
+     * Locks for several keys, de-duplicated and in stripe order, so callers locking them in list order cannot deadlock.
+     */
+    public List<Lock> getAll(Collection<?> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Object key : keys) {
+            indexes.add(indexOf(key));
+        }
+
+        List<Lock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    private int indexOf(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16); // spread high bits, as HashMap does
+        return h & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,206 @@
+package com.ecommerce.ecommerce_backend.config;
+
+import com.ecommerce.ecommerce_backend.security.UserPrincipal;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Two embedded H2 databases stand in for primary and replica. "Replication" is copying the heartbeat row by hand,
+ * so the test controls exactly how far the replica has caught up.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String SERVICE_READ = "com.ecommerce.ecommerce_backend.services.OrderService.getUserOrders";
+    private static final String REPOSITORY_READ = "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findAll";
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaLagGuard lagGuard;
+    private DataSource dataSource;
+    private JdbcTemplate routed;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = database("primary");
+        DataSource replicaDataSource = database("replica");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        for (JdbcTemplate db : List.of(primary, replica)) {
+            db.execute("CREATE TABLE replica_heartbeat (node_id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+            db.execute("CREATE TABLE source (name VARCHAR(20))");
+        }
+        primary.update("INSERT INTO source VALUES ('primary')");
+        replica.update("INSERT INTO source VALUES ('replica')");
+
+        lagGuard = new ReplicaLagGuard(primaryDataSource, replicaDataSource, 0, 500);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, lagGuard);
+        routing.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+        routed = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyServiceTransactionsUseTheReplica() {
+        // Nothing replicated yet: the replica counts as lagging
+        lagGuard.probe();
+        assertEquals("primary", read(true, SERVICE_READ));
+
+        replicate();
+        lagGuard.probe();
+        assertEquals("replica", read(true, SERVICE_READ));
+        assertEquals("primary", read(false, SERVICE_READ));
+        // Spring Data's readOnly finder default stays on the primary
+        assertEquals("primary", read(true, REPOSITORY_READ));
+        assertEquals("primary", ReadWriteRoutingDataSource.onPrimary(() -> read(true, SERVICE_READ)));
+    }
+
+    @Test
+    void lagFallsBackToThePrimary() throws InterruptedException {
+        replicate();
+        lagGuard.probe();
+        assertEquals("replica", read(true, SERVICE_READ));
+
+        // Replication stops; once the last stamp seen is older than max-lag-ms, reads move to the primary
+        Thread.sleep(600);
+        lagGuard.probe();
+        assertEquals("primary", read(true, SERVICE_READ));
+
+        replicate();
+        lagGuard.probe();
+        assertEquals("replica", read(true, SERVICE_READ));
+    }
+
+    @Test
+    void userReadsTheirOwnWritesFromThePrimary() throws InterruptedException {
+        replicate();
+        lagGuard.probe();
+        signIn(7L);
+        assertEquals("replica", read(true, SERVICE_READ));
+
+        // A write by user 7 commits on the primary
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+        write.executeWithoutResult(status -> routed.update("UPDATE source SET name = 'primary'"));
+
+        assertEquals("primary", read(true, SERVICE_READ));
+        signIn(8L);
+        assertEquals("replica", read(true, SERVICE_READ));
+
+        // Checkouts on worker threads are reported through OrderChangedEvent instead
+        lagGuard.recordWrite(8L);
+        assertEquals("primary", read(true, SERVICE_READ));
+
+        // The replica catches up past both writes
+        Thread.sleep(5);
+        replicate();
+        lagGuard.probe();
+        assertEquals("replica", read(true, SERVICE_READ));
+        signIn(7L);
+        assertEquals("replica", read(true, SERVICE_READ));
+    }
+
+    @Test
+    void writeAfterReadOnlyCallInTheSameRequestGoesToThePrimary() {
+        replicate();
+        lagGuard.probe();
+        signIn(7L);
+
+        // A request as the services run it with open-in-view off: each transaction has its own EntityManager
+        EntityManagerFactory entityManagerFactory = entityManagerFactory();
+        try {
+            JpaTransactionManager jpaTransactionManager = new JpaTransactionManager(entityManagerFactory);
+            EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+
+            TransactionTemplate readOnly = new TransactionTemplate(jpaTransactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.setName(SERVICE_READ);
+            assertEquals("replica", readOnly.execute(status ->
+                    entityManager.createNativeQuery("SELECT name FROM source").getSingleResult()));
+
+            new TransactionTemplate(jpaTransactionManager).executeWithoutResult(status ->
+                    entityManager.createNativeQuery("UPDATE source SET name = 'written'").executeUpdate());
+
+            assertEquals("written", primary.queryForObject("SELECT name FROM source", String.class));
+            assertEquals("replica", replica.queryForObject("SELECT name FROM source", String.class));
+            // The same user's next read-only call sees the write
+            assertEquals("written", readOnly.execute(status ->
+                    entityManager.createNativeQuery("SELECT name FROM source").getSingleResult()));
+        } finally {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    void replicaRoutingRefusesOpenInView() {
+        assertThrows(IllegalStateException.class, () -> new ReplicaDataSourceConfig(true));
+        new ReplicaDataSourceConfig(false);
+    }
+
+    private EntityManagerFactory entityManagerFactory() {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        // Native queries only, no entities to scan
+        factory.setPackagesToScan(ReadWriteRoutingDataSourceTest.class.getPackageName() + ".none");
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.boot.allow_jdbc_metadata_access", "false"));
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    private String read(boolean readOnly, String transactionName) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        template.setName(transactionName);
+        return template.execute(status -> routed.queryForObject("SELECT name FROM source", String.class));
+    }
+
+    /**
+     * Stamp the primary and copy its heartbeat to the replica, as replication would.
+     */
+    private void replicate() {
+        lagGuard.probe();
+        Long beat = primary.queryForObject("SELECT beat_at FROM replica_heartbeat WHERE node_id = 0", Long.class);
+        replica.update("DELETE FROM replica_heartbeat");
+        replica.update("INSERT INTO replica_heartbeat (node_id, beat_at) VALUES (0, ?)", beat);
+    }
+
+    private static void signIn(Long userId) {
+        UserPrincipal principal = new UserPrincipal(userId, "user" + userId + "@example.com", "secret");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+}
@@ -0,0 +1,157 @@
+package com.ecommerce.ecommerce_backend.controller;
+
+import com.ecommerce.ecommerce_backend.entity.Order;
+import com.ecommerce.ecommerce_backend.entity.OrderItem;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.repository.OrderRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import com.ecommerce.ecommerce_backend.security.UserPrincipal;
+import com.ecommerce.ecommerce_backend.services.CartService;
+import com.ecommerce.ecommerce_backend.services.OrderNumberGenerator;
+import com.ecommerce.ecommerce_backend.services.OrderService;
+import com.ecommerce.ecommerce_backend.services.ReservationService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.handler.WebRequestHandlerInterceptorAdapter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * GET /api/orders/{id} revalidation: the ETag follows every change made through OrderService,
+ * so a client holding an old ETag gets the new order instead of a 304.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(OrderService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each call commits on its own, as in production
+class OrderControllerETagTest {
+
+    private static final long USER_ID = 11L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // placeOrder collaborators, not used here
+    @MockitoBean
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @MockitoBean
+    private ReservationService reservationService;
+
+    @MockitoBean
+    private CartService cartService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        OrderController controller = new OrderController();
+        ReflectionTestUtils.setField(controller, "orderService", orderService);
+        // As spring.jpa.open-in-view (on by default): the order's items are loaded while it is serialized
+        OpenEntityManagerInViewInterceptor openInView = new OpenEntityManagerInViewInterceptor();
+        openInView.setEntityManagerFactory(entityManagerFactory);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addInterceptors(new WebRequestHandlerInterceptorAdapter(openInView))
+                .build();
+    }
+
+    @Test
+    void orderRevalidatesAfterStatusChangeAndCancel() throws Exception {
+        Order order = order();
+
+        MockHttpServletResponse first = fetch(order, null);
+        String placed = first.getHeader(HttpHeaders.ETAG);
+        assertEquals(200, first.getStatus());
+        assertNotNull(placed);
+        // Whole seconds cannot tell two changes in the same second apart
+        assertNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals(304, fetch(order, placed).getStatus());
+
+        orderService.updateOrderStatus(order.getId(), "CONFIRMED");
+        MockHttpServletResponse confirmed = fetch(order, placed);
+        assertEquals(200, confirmed.getStatus());
+        assertNotEquals(placed, confirmed.getHeader(HttpHeaders.ETAG));
+        assertEquals(304, fetch(order, confirmed.getHeader(HttpHeaders.ETAG)).getStatus());
+
+        orderService.cancelOrder(order.getId(), USER_ID);
+        MockHttpServletResponse cancelled = fetch(order, confirmed.getHeader(HttpHeaders.ETAG));
+        assertEquals(200, cancelled.getStatus());
+        assertNotEquals(confirmed.getHeader(HttpHeaders.ETAG), cancelled.getHeader(HttpHeaders.ETAG));
+        assertEquals(200, fetch(order, placed).getStatus());
+    }
+
+    @Test
+    void orderRevalidatesAfterPayment() throws Exception {
+        Order order = order();
+        String placed = fetch(order, null).getHeader(HttpHeaders.ETAG);
+
+        orderService.updatePaymentStatus(order.getId(), "PAID");
+
+        MockHttpServletResponse paid = fetch(order, placed);
+        assertEquals(200, paid.getStatus());
+        assertNotEquals(placed, paid.getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse fetch(Order order, String etag) throws Exception {
+        var request = get("/api/orders/" + order.getId())
+                .principal(new UsernamePasswordAuthenticationToken(
+                        new UserPrincipal(USER_ID, "etag@example.com", "secret"), null, List.of()));
+        if (etag != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private Order order() {
+        Product product = new Product();
+        product.setName("Mug");
+        product.setPrice(3.0);
+        product.setStock(5);
+        productRepository.save(product);
+
+        Order order = new Order();
+        order.setUserId(USER_ID);
+        order.setOrderNumber("ORD-ETAG-" + System.nanoTime());
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus("PENDING");
+        order.setPaymentStatus("UNPAID");
+        order.setTotalAmount(6.0);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setPrice(3.0);
+        item.setProductName(product.getName());
+        order.setItems(List.of(item));
+        return orderRepository.save(order);
+    }
+}
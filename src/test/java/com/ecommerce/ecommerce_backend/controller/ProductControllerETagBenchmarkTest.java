@@ -0,0 +1,145 @@
+package com.ecommerce.ecommerce_backend.controller;
+
+import com.ecommerce.ecommerce_backend.dto.PageDTO;
+import com.ecommerce.ecommerce_backend.dto.ProductSummaryDTO;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.services.ProductCache;
+import com.ecommerce.ecommerce_backend.services.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Requests per second for GET /api/products: full fetch vs. revalidation with a current ETag.
+ * The service is mocked, so the gap shown is serialization and response size only; a real full fetch also pays
+ * for the listing query, which revalidation skips. The throughput test is tagged "benchmark" (mvn test -Pbenchmarks)
+ * and only asserts that revalidation is clearly the cheaper of the two.
+ */
+@Slf4j
+class ProductControllerETagBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int REQUESTS = 20_000;
+
+    @Test
+    @Tag("benchmark")
+    void revalidationVsFullFetch() throws Exception {
+        ProductService productService = mock(ProductService.class);
+        when(productService.getCatalogVersionTag()).thenReturn("c42-1");
+        when(productService.getActiveProductPage(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(page(24));
+
+        ProductController controller = new ProductController();
+        controller.productService = productService;
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        MockHttpServletResponse first = mockMvc.perform(get("/api/products")).andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertEquals(200, first.getStatus());
+        assertEquals("\"c42-1\"", etag);
+
+        RequestBuilder full = get("/api/products");
+        RequestBuilder revalidate = get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag);
+
+        MockHttpServletResponse notModified = mockMvc.perform(revalidate).andReturn().getResponse();
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+
+        double fullRps = requestsPerSecond(mockMvc, full);
+        double revalidateRps = requestsPerSecond(mockMvc, revalidate);
+        log.info("GET /api/products (24 items, {} bytes): full fetch {} req/s, revalidation (304) {} req/s",
+                first.getContentAsByteArray().length, Math.round(fullRps), Math.round(revalidateRps));
+        assertTrue(revalidateRps > fullRps * 2, "revalidation " + revalidateRps + " vs full " + fullRps + " req/s");
+
+        // The catalog version changes: the old ETag gets a full response again
+        when(productService.getCatalogVersionTag()).thenReturn("c43-1");
+        assertEquals(200, mockMvc.perform(revalidate).andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    void notModifiedSkipsTheListingQuery() throws Exception {
+        ProductService productService = mock(ProductService.class);
+        when(productService.getCatalogVersionTag()).thenReturn("c7-1");
+
+        ProductController controller = new ProductController();
+        controller.productService = productService;
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/products")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"c7-1\"")).andReturn().getResponse();
+
+        assertEquals(304, response.getStatus());
+        verify(productService, never()).getActiveProductPage(any(), any(), any(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void productRevalidatesAfterStockChange() throws Exception {
+        Product product = new Product();
+        product.setId(5L);
+        product.setName("Mug");
+        product.setStock(10);
+        product.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+
+        ProductCache productCache = new ProductCache();
+        ProductService productService = mock(ProductService.class);
+        when(productService.getProductById(5L)).thenReturn(product);
+        when(productService.getProductVersionTag(any())).thenAnswer(call -> productCache.productVersionTag(call.getArgument(0)));
+
+        ProductController controller = new ProductController();
+        controller.productService = productService;
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        MockHttpServletResponse first = mockMvc.perform(get("/api/products/5")).andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertEquals(200, first.getStatus());
+        // updatedAt does not follow stock, so it must not be offered as a validator
+        assertNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        RequestBuilder revalidate = get("/api/products/5").header(HttpHeaders.IF_NONE_MATCH, etag);
+        assertEquals(304, mockMvc.perform(revalidate).andReturn().getResponse().getStatus());
+
+        // Checkout decrements stock over JDBC; updatedAt stays the same
+        product.setStock(9);
+        assertEquals(200, mockMvc.perform(revalidate).andReturn().getResponse().getStatus());
+    }
+
+    private static double requestsPerSecond(MockMvc mockMvc, RequestBuilder request) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            mockMvc.perform(request);
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(request);
+        }
+        return REQUESTS / ((System.nanoTime() - started) / 1e9);
+    }
+
+    private static PageDTO<ProductSummaryDTO> page(int size) {
+        List<ProductSummaryDTO> items = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            items.add(new ProductSummaryDTO(id, "Product " + id, 19.99 + id, 100, "/uploads/product-" + id + ".jpg",
+                    LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(id)));
+        }
+        return new PageDTO<>(items, "bmV4dA", true);
+    }
+}
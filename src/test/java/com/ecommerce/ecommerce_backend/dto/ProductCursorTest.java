@@ -0,0 +1,66 @@
+package com.ecommerce.ecommerce_backend.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductCursorTest {
+
+    @Test
+    void roundTripsEverySort() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_000_000);
+        ProductSummaryDTO product = new ProductSummaryDTO(42L, "Mug | large", 9.99, 3, null, createdAt);
+
+        for (ProductSort sort : ProductSort.values()) {
+            for (boolean descending : new boolean[]{false, true}) {
+                String token = ProductCursor.of(sort, descending, product).encode();
+                ProductCursor decoded = ProductCursor.decode(token, sort, descending);
+
+                assertEquals(42L, decoded.getId().longValue());
+                assertEquals(ProductCursor.of(sort, descending, product).getValue(), decoded.getValue());
+            }
+        }
+    }
+
+    @Test
+    void nullSortValuesSurviveTheRoundTrip() {
+        ProductSummaryDTO product = new ProductSummaryDTO(7L, null, 1.0, 0, null, null);
+
+        ProductCursor byName = ProductCursor.decode(ProductCursor.of(ProductSort.NAME, false, product).encode(), ProductSort.NAME, false);
+        assertNull(byName.getValue());
+        assertEquals(7L, byName.getId().longValue());
+
+        ProductCursor byDate = ProductCursor.decode(ProductCursor.of(ProductSort.CREATED_AT, true, product).encode(), ProductSort.CREATED_AT, true);
+        assertNull(byDate.getValue());
+    }
+
+    @Test
+    void namesThatLookLikeMarkersStayNames() {
+        for (String name : new String[]{"-", "null", "=", ""}) {
+            ProductSummaryDTO product = new ProductSummaryDTO(1L, name, 1.0, 0, null, null);
+            String token = ProductCursor.of(ProductSort.NAME, false, product).encode();
+            assertEquals(name, ProductCursor.decode(token, ProductSort.NAME, false).getValue());
+        }
+    }
+
+    @Test
+    void rejectsCursorsOfAnotherOrderOrGarbage() {
+        ProductSummaryDTO product = new ProductSummaryDTO(1L, "Mug", 2.0, 0, null, LocalDateTime.now());
+        String byPrice = ProductCursor.of(ProductSort.PRICE, false, product).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(byPrice, ProductSort.NAME, false));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(byPrice, ProductSort.PRICE, true));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("not a cursor!", ProductSort.PRICE, false));
+
+        // The pre-NULL-marker format, where a missing created_at was written as "null"
+        String legacy = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("CREATED_AT|desc|5|null".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(legacy, ProductSort.CREATED_AT, true));
+    }
+}
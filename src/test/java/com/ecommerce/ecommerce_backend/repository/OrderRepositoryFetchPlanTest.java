@@ -0,0 +1,123 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.dto.OrderDTO;
+import com.ecommerce.ecommerce_backend.entity.Order;
+import com.ecommerce.ecommerce_backend.entity.OrderItem;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Order list endpoints must run a constant number of SQL statements, whatever the number of orders and items.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderRepositoryFetchPlanTest {
+
+    private static final long USER_ID = 42L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        product = new Product();
+        product.setName("Keyboard");
+        product.setPrice(49.0);
+        product.setStock(1000);
+        entityManager.persist(product);
+    }
+
+    @Test
+    void allOrdersListIsOneStatement() {
+        createOrders(3, "PENDING");
+        long small = statementsFor(() -> orderRepository.findAllByOrderByCreatedAtDesc());
+
+        createOrders(20, "PENDING");
+        long large = statementsFor(() -> orderRepository.findAllByOrderByCreatedAtDesc());
+
+        assertEquals(1, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    void ordersByStatusIsOneStatement() {
+        createOrders(15, "SHIPPED");
+
+        assertEquals(1, statementsFor(() -> orderRepository.findByStatusOrderByCreatedAtDesc("SHIPPED")));
+    }
+
+    @Test
+    void historyPageLoadsItemsInOneBatch() {
+        createOrders(30, "PENDING");
+
+        // page query + one batched IN (...) query for the items of the whole page
+        assertEquals(2, statementsFor(() -> orderRepository.findHistoryFirstPage(USER_ID, Limit.of(21))));
+    }
+
+    private long statementsFor(Supplier<List<Order>> query) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<OrderDTO> dtos = query.get().stream()
+                .map(OrderDTO::fromEntity)
+                .collect(Collectors.toList());
+        dtos.forEach(dto -> assertEquals(3, dto.getItems().size()));
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createOrders(int count, String status) {
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUserId(USER_ID);
+            order.setOrderNumber("ORD-TEST-" + status + "-" + System.nanoTime());
+            order.setOrderDate(LocalDateTime.now());
+            order.setStatus(status);
+            order.setTotalAmount(147.0);
+
+            List<OrderItem> items = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(product);
+                item.setQuantity(1);
+                item.setPrice(49.0);
+                item.setProductName(product.getName());
+                items.add(item);
+            }
+            order.setItems(items);
+            entityManager.persist(order);
+        }
+    }
+}
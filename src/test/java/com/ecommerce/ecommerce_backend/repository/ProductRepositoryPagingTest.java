@@ -0,0 +1,118 @@
+package com.ecommerce.ecommerce_backend.repository;
+
+import com.ecommerce.ecommerce_backend.dto.ProductCursor;
+import com.ecommerce.ecommerce_backend.dto.ProductSort;
+import com.ecommerce.ecommerce_backend.dto.ProductSummaryDTO;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Walking the keyset listing page by page returns every product exactly once, in order,
+ * with many ties on the sort column and NULL names / created_at.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class ProductRepositoryPagingTest {
+
+    private static final int PRODUCTS = 23;
+    private static final int PAGE_SIZE = 4;
+
+    // Only the products of this test fall in the range, whatever other tests left in the database
+    private static final double MIN_PRICE = 1000.0;
+    private static final double MAX_PRICE = 1010.0;
+
+    private static final LocalDateTime[] CREATED = {
+            null,
+            LocalDateTime.of(2026, 1, 1, 10, 0),
+            LocalDateTime.of(2026, 1, 2, 10, 0),
+            LocalDateTime.of(2026, 1, 2, 10, 0)
+    };
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<ProductSummaryDTO> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName(i % 4 == 0 ? null : "Product " + (i % 5));
+            product.setPrice(MIN_PRICE + i % 3);
+            product.setStock(10);
+            entityManager.persistAndFlush(product);
+
+            LocalDateTime createdAt = CREATED[i % CREATED.length];
+            jdbcTemplate.update("UPDATE product SET created_at = ? WHERE id = ?",
+                    createdAt != null ? Timestamp.valueOf(createdAt) : null, product.getId());
+
+            products.add(new ProductSummaryDTO(product.getId(), product.getName(), product.getPrice(),
+                    product.getStock(), null, createdAt));
+        }
+    }
+
+    @Test
+    void pagesThroughPriceTies() {
+        assertPagesMatch(ProductSort.PRICE, false, ProductSummaryDTO::getPrice);
+        assertPagesMatch(ProductSort.PRICE, true, ProductSummaryDTO::getPrice);
+    }
+
+    @Test
+    void pagesThroughNullAndTiedNames() {
+        assertPagesMatch(ProductSort.NAME, false, ProductSummaryDTO::getName);
+        assertPagesMatch(ProductSort.NAME, true, ProductSummaryDTO::getName);
+    }
+
+    @Test
+    void pagesThroughNullAndTiedCreationTimes() {
+        assertPagesMatch(ProductSort.CREATED_AT, false, ProductSummaryDTO::getCreatedAt);
+        assertPagesMatch(ProductSort.CREATED_AT, true, ProductSummaryDTO::getCreatedAt);
+    }
+
+    private <T extends Comparable<T>> void assertPagesMatch(ProductSort sort, boolean descending,
+                                                            Function<ProductSummaryDTO, T> value) {
+        // NULLs first ascending, last descending; id breaks ties in the same direction
+        Comparator<ProductSummaryDTO> order = Comparator
+                .comparing(value, Comparator.nullsFirst(Comparator.<T>naturalOrder()))
+                .thenComparing(ProductSummaryDTO::getId);
+        List<Long> expected = products.stream()
+                .sorted(descending ? order.reversed() : order)
+                .map(ProductSummaryDTO::getId)
+                .toList();
+
+        List<Long> seen = new ArrayList<>();
+        ProductCursor cursor = null;
+        while (true) {
+            List<ProductSummaryDTO> page = productRepository.findActivePage(
+                    sort, descending, MIN_PRICE, MAX_PRICE, false, cursor, PAGE_SIZE);
+            page.forEach(product -> seen.add(product.getId()));
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            // Through the token, as a client would hand it back
+            String token = ProductCursor.of(sort, descending, page.get(page.size() - 1)).encode();
+            cursor = ProductCursor.decode(token, sort, descending);
+        }
+
+        assertEquals(expected, seen, sort + (descending ? " desc" : " asc"));
+    }
+}
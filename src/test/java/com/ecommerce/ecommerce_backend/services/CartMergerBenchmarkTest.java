@@ -0,0 +1,132 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.entity.Cart;
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Merge time for 5 / 50 / 500-line carts: keyed merge vs. the previous per-item linear scan.
+ * Half of the guest lines overlap the user cart. The timing test is tagged "benchmark" (mvn test -Pbenchmarks).
+ */
+@Slf4j
+class CartMergerBenchmarkTest {
+
+    private static final int[] SIZES = {5, 50, 500};
+    private static final int WARMUP = 200;
+    private static final int RUNS = 1000;
+
+    @Test
+    @Tag("benchmark")
+    void mergeTimesByCartSize() {
+        long keyed = 0;
+        long linear = 0;
+        for (int size : SIZES) {
+            keyed = time(size, true);
+            linear = time(size, false);
+            log.info("cart merge {} lines: keyed {} us, linear scan {} us",
+                    size, String.format("%.2f", keyed / 1000.0), String.format("%.2f", linear / 1000.0));
+        }
+
+        // Quadratic vs linear: at the largest size the keyed merge must win clearly
+        assertTrue(keyed * 2 < linear, "keyed merge " + keyed + " ns vs linear scan " + linear + " ns");
+    }
+
+    @Test
+    void policiesResolveOverlappingLines() {
+        for (CartMergePolicy policy : CartMergePolicy.values()) {
+            Cart userCart = cart(50, 0, 2);
+            List<CartItem> guestLines = lines(50, 25, 3);
+
+            CartMerger.Result result = CartMerger.merge(userCart, userCart.getItems(), guestLines, policy);
+
+            int overlapQuantity = policy.resolve(2, 3);
+            assertEquals(25, result.inserts.size());
+            assertEquals(overlapQuantity != 2 ? 25 : 0, result.updates.size());
+            assertEquals(25 * 2 + 25 * overlapQuantity + 25 * 3, userCart.getItemCount());
+            assertEquals(userCart.getItemCount() * 1000L, userCart.getTotalMinor());
+        }
+    }
+
+    private long time(int size, boolean keyed) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            Cart userCart = cart(size, 0, 1);
+            List<CartItem> guestLines = lines(size, size / 2, 1);
+
+            long start = System.nanoTime();
+            if (keyed) {
+                CartMerger.merge(userCart, userCart.getItems(), guestLines, CartMergePolicy.SUM);
+            } else {
+                linearMerge(userCart, guestLines);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (i >= WARMUP) {
+                best = Math.min(best, elapsed);
+            }
+            assertEquals(size * 2, userCart.getItemCount());
+        }
+        return best;
+    }
+
+    /**
+     * The merge loop as it was before the keyed merge.
+     */
+    private static void linearMerge(Cart userCart, List<CartItem> guestLines) {
+        for (CartItem guestItem : guestLines) {
+            CartItem existing = userCart.getItems().stream()
+                    .filter(i -> i.getProduct().getId().equals(guestItem.getProduct().getId()))
+                    .findFirst()
+                    .orElse(null);
+
+            if (existing != null) {
+                userCart.applyDelta(existing.changeQuantity(existing.getQuantity() + guestItem.getQuantity()), guestItem.getQuantity());
+            } else {
+                CartItem newItem = new CartItem();
+                newItem.setProduct(guestItem.getProduct());
+                newItem.applyPrice(guestItem.getPrice());
+                newItem.setCart(userCart);
+                userCart.applyDelta(newItem.changeQuantity(guestItem.getQuantity()), guestItem.getQuantity());
+                userCart.getItems().add(newItem);
+            }
+        }
+    }
+
+    private static Cart cart(int size, int firstProductId, int quantity) {
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.resetTotals();
+        for (CartItem line : lines(size, firstProductId, quantity)) {
+            line.setId(line.getProduct().getId() + 1);
+            line.setCart(cart);
+            cart.applyDelta(line.getSubtotalMinor(), line.getQuantity());
+            cart.getItems().add(line);
+        }
+        return cart;
+    }
+
+    private static List<CartItem> lines(int size, int firstProductId, int quantity) {
+        List<CartItem> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setId((long) (firstProductId + i));
+            product.setPrice(10.0);
+
+            CartItem line = new CartItem();
+            line.setProduct(product);
+            line.applyPrice(product.getPrice());
+            line.changeQuantity(quantity);
+            lines.add(line);
+        }
+        return lines;
+    }
+}
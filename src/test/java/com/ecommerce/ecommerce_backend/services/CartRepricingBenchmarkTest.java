@@ -0,0 +1,78 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import com.ecommerce.ecommerce_backend.util.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Repricing one product held in 100k carts, each with a second line that keeps its price.
+ * Tagged "benchmark" (mvn test -Pbenchmarks); H2 in memory, so the time is a lower bound for MySQL.
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({CartService.class, ProductCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each batch commits on its own, as in production
+class CartRepricingBenchmarkTest {
+
+    private static final int CARTS = 100_000;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void repricesHundredThousandCarts() {
+        Product repriced = product("Kettle", 10.0);
+        Product unchanged = product("Toaster", 4.0);
+
+        jdbcTemplate.update("INSERT INTO cart (cart_id, total_minor, item_count, total_amount) " +
+                "SELECT CONCAT('bench-', X), 2800, 4, 28.0 FROM SYSTEM_RANGE(1, " + CARTS + ")");
+        jdbcTemplate.update("INSERT INTO cart_item (cart_id, product_id, quantity, price, unit_price_minor, subtotal_minor) " +
+                "SELECT id, ?, 2, 10.0, 1000, 2000 FROM cart WHERE cart_id LIKE 'bench-%'", repriced.getId());
+        jdbcTemplate.update("INSERT INTO cart_item (cart_id, product_id, quantity, price, unit_price_minor, subtotal_minor) " +
+                "SELECT id, ?, 2, 4.0, 400, 800 FROM cart WHERE cart_id LIKE 'bench-%'", unchanged.getId());
+
+        repriced.setPrice(12.5);
+        productRepository.save(repriced);
+
+        long started = System.nanoTime();
+        int lines = cartService.repriceProduct(repriced.getId());
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Repriced {} lines in {} carts in {} ms", lines, CARTS, millis);
+
+        assertEquals(CARTS, lines);
+        long expectedTotal = 2 * Money.toMinor(12.5) + 2 * Money.toMinor(4.0);
+        assertEquals(CARTS, (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart WHERE cart_id LIKE 'bench-%' AND total_minor = ? AND total_amount = ?",
+                Integer.class, expectedTotal, expectedTotal / 100.0));
+
+        // "In seconds": generous bound so a slow CI machine does not fail it
+        assertTrue(millis < 30_000, "repricing took " + millis + " ms");
+    }
+
+    private Product product(String name, double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setStock(1000);
+        return productRepository.save(product);
+    }
+}
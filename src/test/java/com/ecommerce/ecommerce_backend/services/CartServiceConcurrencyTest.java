@@ -0,0 +1,221 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.CartSummaryDTO;
+import com.ecommerce.ecommerce_backend.entity.Cart;
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.entity.User;
+import com.ecommerce.ecommerce_backend.repository.CartRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import com.ecommerce.ecommerce_backend.repository.UserRepository;
+import com.ecommerce.ecommerce_backend.util.Money;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hundreds of concurrent "add to cart" calls for one user must end up in one cart with consistent totals.
+ * Also covers the database side of "one cart per user": the unique constraint, two nodes creating the cart
+ * at once, and merging carts that were duplicated before the constraint existed.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({CartService.class, ProductCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each call commits on its own, as in production
+class CartServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ADDS = 400;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentAddsForOneUserShareOneCart() throws Exception {
+        User user = user("stress@example.com");
+        Product first = product("Mug", 2.5);
+        Product second = product("Plate", 4.0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < ADDS; i++) {
+            Product product = i % 2 == 0 ? first : second;
+            results.add(pool.submit(() -> {
+                start.await();
+                cartService.addToCart(null, product.getId(), 1, user);
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // findSummaryByUserId fails with a non-unique result if a second cart was created
+        CartSummaryDTO summary = cartRepository.findSummaryByUserId(user.getId()).orElseThrow();
+        assertEquals(ADDS, summary.getItemCount());
+        assertEquals((ADDS / 2) * (Money.toMinor(2.5) + Money.toMinor(4.0)), summary.getTotalMinor());
+        assertEquals(2, cartRepository.findViewByUserId(user.getId()).size());
+    }
+
+    @Test
+    void databaseRejectsSecondCartForUser() {
+        User user = user("unique@example.com");
+        cartService.addToCart(null, product("Cup", 1.0).getId(), 1, user);
+
+        Cart duplicate = new Cart();
+        duplicate.setUser(user);
+        duplicate.resetTotals();
+
+        assertThrows(DataIntegrityViolationException.class, () -> cartRepository.saveAndFlush(duplicate));
+    }
+
+    @Test
+    void racingNodesCreateOneCartForUser() throws Exception {
+        User user = user("race@example.com");
+
+        // Both callers look the cart up before either inserts it, as two nodes can (striped locks are per node),
+        // so one insert is rejected by the unique constraint and has to read back the winner's row
+        CartService node = node(lookupBarrier(cartRepository, new CyclicBarrier(2)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<Long> first = pool.submit(() -> ReflectionTestUtils.<Long>invokeMethod(node, "findOrCreateCartId", null, user));
+        Future<Long> second = pool.submit(() -> ReflectionTestUtils.<Long>invokeMethod(node, "findOrCreateCartId", null, user));
+        Long firstId = first.get(30, TimeUnit.SECONDS);
+        Long secondId = second.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(firstId, secondId);
+        assertEquals(firstId, cartRepository.findByUserId(user.getId()).orElseThrow().getId());
+    }
+
+    @Test
+    void duplicateCartsAreMergedBeforeConstraintIsAdded() {
+        User user = user("duplicate@example.com");
+        Product mug = product("Mug", 2.5);
+        Product plate = product("Plate", 4.0);
+        cartService.addToCart(null, mug.getId(), 2, user);
+
+        // A database from before the constraint, where a second cart slipped in
+        jdbcTemplate.execute("ALTER TABLE cart DROP CONSTRAINT " + Cart.USER_UNIQUE_CONSTRAINT);
+        assertFalse(cartRepository.hasUserUniqueConstraint());
+
+        Cart duplicate = new Cart();
+        duplicate.setUser(user);
+        duplicate.resetTotals();
+        addLine(duplicate, mug, 1);
+        addLine(duplicate, plate, 3);
+        cartRepository.save(duplicate);
+        assertEquals(List.of(user.getId()), cartRepository.findUserIdsWithDuplicateCarts());
+
+        cartService.mergeDuplicateUserCarts();
+
+        assertTrue(cartRepository.hasUserUniqueConstraint());
+        assertTrue(cartRepository.findUserIdsWithDuplicateCarts().isEmpty());
+
+        // Default policy SUM: the mug lines add up
+        CartSummaryDTO summary = cartRepository.findSummaryByUserId(user.getId()).orElseThrow();
+        assertEquals(6, summary.getItemCount());
+        assertEquals(3 * Money.toMinor(2.5) + 3 * Money.toMinor(4.0), summary.getTotalMinor());
+        assertEquals(2, cartRepository.findViewByUserId(user.getId()).size());
+    }
+
+    /**
+     * A CartService as another node would have it: same database, its own striped locks.
+     */
+    private CartService node(CartRepository repository) {
+        CartService node = new CartService();
+        ReflectionTestUtils.setField(node, "cartRepository", repository);
+        ReflectionTestUtils.setField(node, "entityManager", entityManager);
+        ReflectionTestUtils.setField(node, "mergePolicy", CartMergePolicy.SUM);
+        return node;
+    }
+
+    /**
+     * Holds the first two findByUserId calls until both have their (empty) result.
+     */
+    private static CartRepository lookupBarrier(CartRepository target, CyclicBarrier barrier) {
+        AtomicInteger lookups = new AtomicInteger();
+        return (CartRepository) Proxy.newProxyInstance(CartRepository.class.getClassLoader(),
+                new Class<?>[]{CartRepository.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if ("findByUserId".equals(method.getName()) && lookups.incrementAndGet() <= 2) {
+                        barrier.await(10, TimeUnit.SECONDS);
+                    }
+                    return result;
+                });
+    }
+
+    private static void addLine(Cart cart, Product product, int quantity) {
+        CartItem line = new CartItem();
+        line.setCart(cart);
+        line.setProduct(product);
+        line.applyPrice(product.getPrice());
+        cart.applyDelta(line.changeQuantity(quantity), quantity);
+        cart.getItems().add(line);
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setName("Cart Tester");
+        user.setEmail(email);
+        user.setPassword("secret");
+        return userRepository.save(user);
+    }
+
+    private Product product(String name, double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setStock(1000);
+        return productRepository.save(product);
+    }
+}
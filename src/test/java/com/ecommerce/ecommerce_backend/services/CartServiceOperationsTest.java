@@ -0,0 +1,196 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.CartDTO;
+import com.ecommerce.ecommerce_backend.dto.CartItemDTO;
+import com.ecommerce.ecommerce_backend.dto.CartPatchRequest;
+import com.ecommerce.ecommerce_backend.dto.CartSummaryDTO;
+import com.ecommerce.ecommerce_backend.entity.Cart;
+import com.ecommerce.ecommerce_backend.entity.CartItem;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.entity.User;
+import com.ecommerce.ecommerce_backend.repository.CartRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import com.ecommerce.ecommerce_backend.repository.UserRepository;
+import com.ecommerce.ecommerce_backend.util.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PATCH /api/cart batches: mixed operations, lines going to zero, rollback on a bad operation,
+ * and totals that match the lines when the cart is read back.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({CartService.class, ProductCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each call commits on its own, as in production
+class CartServiceOperationsTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void mixedBatchAddsUpdatesAndRemoves() {
+        User user = user("mixed@example.com");
+        Product mug = product("Mug", 2.5);
+        Product plate = product("Plate", 4.0);
+        Product cup = product("Cup", 1.25);
+
+        cartService.addToCart(null, mug.getId(), 2, user);
+        Cart before = cartService.addToCart(null, plate.getId(), 1, user);
+        Long plateLineId = lineFor(before, plate).getId();
+
+        Cart cart = cartService.applyOperations(null, user, List.of(
+                add(cup.getId(), 3),
+                update(mug.getId(), 5),
+                removeLine(plateLineId),
+                add(mug.getId(), 1)));
+
+        Map<Long, Integer> quantities = quantities(cart);
+        assertEquals(Map.of(mug.getId(), 6, cup.getId(), 3), quantities);
+        assertEquals(9, cart.getItemCount());
+        assertEquals(6 * Money.toMinor(2.5) + 3 * Money.toMinor(1.25), cart.getTotalMinor());
+
+        assertTotalsMatchLines(user);
+    }
+
+    @Test
+    void quantityZeroRemovesTheLine() {
+        User user = user("zero@example.com");
+        Product mug = product("Mug", 2.5);
+        Product plate = product("Plate", 4.0);
+        Product cup = product("Cup", 1.25);
+
+        cartService.addToCart(null, mug.getId(), 2, user);
+        cartService.addToCart(null, plate.getId(), 1, user);
+
+        // A line added and zeroed in the same batch is never written
+        Cart cart = cartService.applyOperations(null, user, List.of(
+                update(mug.getId(), 0),
+                add(cup.getId(), 2),
+                update(cup.getId(), 0)));
+
+        Map<Long, Integer> quantities = quantities(cart);
+        assertEquals(Map.of(plate.getId(), 1), quantities);
+        assertFalse(quantities.containsKey(cup.getId()));
+        assertEquals(1, cart.getItemCount());
+        assertEquals(Money.toMinor(4.0), cart.getTotalMinor());
+
+        assertTotalsMatchLines(user);
+    }
+
+    @Test
+    void invalidOperationRollsBackTheWholeBatch() {
+        User user = user("rollback@example.com");
+        Product mug = product("Mug", 2.5);
+        Product cup = product("Cup", 1.25);
+
+        cartService.addToCart(null, mug.getId(), 2, user);
+
+        assertThrows(RuntimeException.class, () -> cartService.applyOperations(null, user, List.of(
+                add(cup.getId(), 1),
+                update(mug.getId(), 7),
+                add(Long.MAX_VALUE, 1))));
+
+        CartDTO view = cartService.getCartView(null, user.getId());
+        assertEquals(1, view.getItems().size());
+        assertEquals(mug.getId(), view.getItems().get(0).getProductId());
+        assertEquals(2, view.getItems().get(0).getQuantity().intValue());
+        assertTotalsMatchLines(user);
+    }
+
+    /**
+     * Read the cart back the way GET /api/cart does and check the stored totals against its lines
+     */
+    private void assertTotalsMatchLines(User user) {
+        CartDTO view = cartService.getCartView(null, user.getId());
+        long total = 0;
+        int units = 0;
+        for (CartItemDTO item : view.getItems()) {
+            assertEquals(Money.toMinor(item.getPrice()) * item.getQuantity(), Money.toMinor(item.getSubtotal()));
+            total += Money.toMinor(item.getSubtotal());
+            units += item.getQuantity();
+        }
+        assertTrue(units > 0);
+        assertEquals(units, view.getItemCount().intValue());
+        assertEquals(total, Money.toMinor(view.getTotalAmount()));
+
+        CartSummaryDTO summary = cartRepository.findSummaryByUserId(user.getId()).orElseThrow();
+        assertEquals(units, summary.getItemCount());
+        assertEquals(total, summary.getTotalMinor());
+    }
+
+    private static Map<Long, Integer> quantities(Cart cart) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private static CartItem lineFor(Cart cart, Product product) {
+        return cart.getItems().stream()
+                .filter(item -> item.getProduct().getId().equals(product.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static CartPatchRequest.Operation add(Long productId, int quantity) {
+        CartPatchRequest.Operation operation = new CartPatchRequest.Operation();
+        operation.setOp("add");
+        operation.setProductId(productId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+
+    private static CartPatchRequest.Operation update(Long productId, int quantity) {
+        CartPatchRequest.Operation operation = new CartPatchRequest.Operation();
+        operation.setOp("update");
+        operation.setProductId(productId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+
+    private static CartPatchRequest.Operation removeLine(Long cartItemId) {
+        CartPatchRequest.Operation operation = new CartPatchRequest.Operation();
+        operation.setOp("remove");
+        operation.setCartItemId(cartItemId);
+        return operation;
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setName("Cart Tester");
+        user.setEmail(email);
+        user.setPassword("secret");
+        return userRepository.save(user);
+    }
+
+    private Product product(String name, double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setStock(1000);
+        return productRepository.save(product);
+    }
+}
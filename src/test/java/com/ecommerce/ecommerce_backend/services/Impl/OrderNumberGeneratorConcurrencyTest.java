@@ -0,0 +1,155 @@
+package com.ecommerce.ecommerce_backend.services.Impl;
+
+import com.ecommerce.ecommerce_backend.services.OrderNumberBlockService;
+import com.ecommerce.ecommerce_backend.services.OrderNumberGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderNumberGeneratorConcurrencyTest {
+
+    private static final int NODES = 4;
+    private static final int THREADS_PER_NODE = 8;
+    private static final int ORDERS_PER_THREAD = 500;
+
+    /**
+     * Stands in for the order_number_block table shared by all nodes.
+     */
+    static class InMemoryBlockService extends OrderNumberBlockService {
+
+        private final Map<String, Long> counters = new HashMap<>();
+        final Set<Thread> allocatingThreads = ConcurrentHashMap.newKeySet();
+        int allocations;
+
+        @Override
+        public synchronized long allocateBlock(String name, int size) {
+            allocatingThreads.add(Thread.currentThread());
+            long start = counters.getOrDefault(name, 1L);
+            counters.put(name, start + size);
+            allocations++;
+            return start;
+        }
+    }
+
+    @Test
+    void blockGeneratorNeverRepeatsAcrossNodes() throws Exception {
+        InMemoryBlockService blockService = new InMemoryBlockService();
+
+        List<ExecutorService> prefetchers = new ArrayList<>();
+        List<OrderNumberGenerator> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ExecutorService prefetcher = Executors.newSingleThreadExecutor();
+            prefetchers.add(prefetcher);
+            nodes.add(blockGenerator(blockService, prefetcher));
+        }
+
+        Set<String> numbers;
+        try {
+            numbers = placeOrdersInParallel(nodes);
+        } finally {
+            prefetchers.forEach(ExecutorService::shutdownNow);
+        }
+
+        assertEquals(NODES * THREADS_PER_NODE * ORDERS_PER_THREAD, numbers.size());
+        // One block query per 50 orders (plus at most one prefetched block per node), not one count() + probe per order
+        assertTrue(blockService.allocations <= numbers.size() / 50 + 2 * NODES);
+        // Blocks are allocated on the prefetch threads only, never by a checkout thread that may hold a connection
+        assertTrue(blockService.allocatingThreads.size() <= NODES);
+    }
+
+    @Test
+    void blockGeneratorNeverGoesBackToAnOlderYear() {
+        InMemoryBlockService blockService = new InMemoryBlockService();
+        ExecutorService prefetcher = Executors.newSingleThreadExecutor();
+        try {
+            BlockOrderNumberGenerator generator = blockGenerator(blockService, prefetcher);
+
+            assertEquals("ORD-2026-00001", generator.nextOrderNumber(2026));
+            assertEquals("ORD-2027-00001", generator.nextOrderNumber(2027));
+            // A thread that read the clock just before midnight still gets a number from the new year's range
+            assertEquals("ORD-2027-00002", generator.nextOrderNumber(2026));
+            assertEquals("ORD-2027-00003", generator.nextOrderNumber(2027));
+        } finally {
+            prefetcher.shutdownNow();
+        }
+    }
+
+    private static BlockOrderNumberGenerator blockGenerator(InMemoryBlockService blockService, ExecutorService prefetcher) {
+        BlockOrderNumberGenerator generator = new BlockOrderNumberGenerator();
+        ReflectionTestUtils.setField(generator, "orderNumberBlockService", blockService);
+        ReflectionTestUtils.setField(generator, "prefetchExecutor", prefetcher);
+        ReflectionTestUtils.setField(generator, "blockSize", 50);
+        ReflectionTestUtils.setField(generator, "prefetchPercent", 20);
+        return generator;
+    }
+
+    @Test
+    void timeOrderedGeneratorNeverRepeatsAcrossNodes() throws Exception {
+        List<OrderNumberGenerator> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            TimeOrderedOrderNumberGenerator generator = new TimeOrderedOrderNumberGenerator();
+            ReflectionTestUtils.setField(generator, "nodeId", (long) i);
+            nodes.add(generator);
+        }
+
+        Set<String> numbers = placeOrdersInParallel(nodes);
+
+        assertEquals(NODES * THREADS_PER_NODE * ORDERS_PER_THREAD, numbers.size());
+    }
+
+    @Test
+    void timeOrderedIdsIncreaseOnOneNode() {
+        TimeOrderedOrderNumberGenerator generator = new TimeOrderedOrderNumberGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", 7L);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    private Set<String> placeOrdersInParallel(List<OrderNumberGenerator> nodes) throws Exception {
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (OrderNumberGenerator node : nodes) {
+                for (int t = 0; t < THREADS_PER_NODE; t++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                            assertTrue(numbers.add(node.nextOrderNumber()), "duplicate order number");
+                        }
+                        return null;
+                    }));
+                }
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,153 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.BulkStatusResultDTO;
+import com.ecommerce.ecommerce_backend.dto.BulkStatusUpdateRequest;
+import com.ecommerce.ecommerce_backend.entity.Order;
+import com.ecommerce.ecommerce_backend.entity.OrderItem;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cancelling puts the ordered quantities back into stock, single and bulk, including orders whose products
+ * were deleted after they were placed.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(OrderService.class)
+class OrderServiceCancelTest {
+
+    private static final long USER_ID = 7L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    // placeOrder collaborators, not used by cancelling
+    @MockitoBean
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @MockitoBean
+    private ReservationService reservationService;
+
+    @MockitoBean
+    private CartService cartService;
+
+    @Test
+    void cancelRestoresStockOfEveryItem() {
+        Product mug = product("Mug", 5);
+        Product plate = product("Plate", 10);
+        Order order = order(item(mug, 2), item(plate, 3), item(mug, 1));
+
+        Order cancelled = orderService.cancelOrder(order.getId(), USER_ID);
+
+        assertEquals("CANCELLED", cancelled.getStatus());
+        assertEquals(8, stockOf(mug));
+        assertEquals(13, stockOf(plate));
+    }
+
+    @Test
+    void cancelSkipsItemsWhoseProductWasDeleted() {
+        Product mug = product("Mug", 5);
+        Order order = order(item(mug, 2), item(null, 4));
+
+        Order cancelled = orderService.cancelOrder(order.getId(), USER_ID);
+
+        assertEquals("CANCELLED", cancelled.getStatus());
+        assertEquals(7, stockOf(mug));
+    }
+
+    @Test
+    void bulkCancelSkipsItemsWhoseProductWasDeleted() {
+        Product mug = product("Mug", 5);
+        Order first = order(item(mug, 2), item(null, 4));
+        Order second = order(item(mug, 1));
+
+        List<BulkStatusResultDTO> results = orderService.bulkUpdateStatus(List.of(
+                statusUpdate(first.getId()), statusUpdate(second.getId())));
+
+        assertEquals("UPDATED", results.get(0).getResult());
+        assertEquals("UPDATED", results.get(1).getResult());
+        assertEquals(8, stockOf(mug));
+    }
+
+    @Test
+    void cannotCancelTwiceOrSomeoneElsesOrder() {
+        Product mug = product("Mug", 5);
+        Order order = order(item(mug, 2));
+
+        assertThrows(RuntimeException.class, () -> orderService.cancelOrder(order.getId(), USER_ID + 1));
+
+        orderService.cancelOrder(order.getId(), USER_ID);
+        entityManager.flush();
+        entityManager.clear();
+        assertThrows(RuntimeException.class, () -> orderService.cancelOrder(order.getId(), USER_ID));
+        // Restored once only
+        assertEquals(7, stockOf(mug));
+    }
+
+    private Product product(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(3.0);
+        product.setStock(stock);
+        return entityManager.persistAndFlush(product);
+    }
+
+    private Order order(OrderItem... items) {
+        Order order = new Order();
+        order.setUserId(USER_ID);
+        order.setOrderNumber("ORD-TEST-" + System.nanoTime());
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus("PENDING");
+        order.setPaymentStatus("UNPAID");
+        order.setTotalAmount(0.0);
+        List<OrderItem> lines = new ArrayList<>();
+        for (OrderItem item : items) {
+            item.setOrder(order);
+            lines.add(item);
+        }
+        order.setItems(lines);
+        Order saved = entityManager.persistAndFlush(order);
+        entityManager.clear();
+        return saved;
+    }
+
+    private static OrderItem item(Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPrice(3.0);
+        item.setProductName(product != null ? product.getName() : "Deleted product");
+        return item;
+    }
+
+    private static BulkStatusUpdateRequest.Item statusUpdate(Long orderId) {
+        BulkStatusUpdateRequest.Item item = new BulkStatusUpdateRequest.Item();
+        item.setOrderId(orderId);
+        item.setStatus("CANCELLED");
+        return item;
+    }
+
+    private int stockOf(Product product) {
+        entityManager.flush();
+        entityManager.clear();
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+}
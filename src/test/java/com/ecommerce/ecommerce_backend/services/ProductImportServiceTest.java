@@ -0,0 +1,202 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.dto.ProductImportStatusDTO;
+import com.ecommerce.ecommerce_backend.entity.Product;
+import com.ecommerce.ecommerce_backend.event.ProductPriceChangedEvent;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CSV import end to end, run inline: header mapping, insert vs. update by SKU, quoted fields, rows that fail,
+ * one price event per batch, and stock held by reservations and hot-SKU escrow.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(ProductImportService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each batch commits on its own, as in production
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PriceChanges priceChanges;
+
+    @TestConfiguration
+    static class Config {
+
+        // Runs the import on the calling thread, so submit returns a finished job
+        @Bean
+        ThreadPoolTaskExecutor productImportExecutor() {
+            return new ThreadPoolTaskExecutor() {
+                @Override
+                public void execute(Runnable task) {
+                    task.run();
+                }
+            };
+        }
+
+        @Bean
+        PriceChanges priceChanges() {
+            return new PriceChanges();
+        }
+    }
+
+    static class PriceChanges {
+        final List<ProductPriceChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onPriceChanged(ProductPriceChangedEvent event) {
+            events.add(event);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        priceChanges.events.clear();
+    }
+
+    @Test
+    void insertsNewSkusAndUpdatesExistingOnes() {
+        Product mug = product("UP-MUG", 5.0, 3);
+        Product plate = product("UP-PLATE", 8.0, 3);
+
+        // Columns in any order and case; SKUs compare case-insensitively
+        ProductImportStatusDTO status = importCsv(
+                "Name,SKU,Stock,Price,imageUrl\n" +
+                "Mug,up-mug,10,6.5,\n" +
+                "Plate,UP-PLATE,4,9.0,/uploads/plate.jpg\n" +
+                "Bowl,UP-BOWL,7,3.25,\n");
+
+        assertEquals(ProductImportService.COMPLETED, status.getStatus());
+        assertEquals(3L, status.getRowsRead());
+        assertEquals(1L, status.getInserted());
+        assertEquals(2L, status.getUpdated());
+        assertEquals(0L, status.getFailed());
+
+        Product updated = productRepository.findById(mug.getId()).orElseThrow();
+        assertEquals("Mug", updated.getName());
+        assertEquals(6.5, updated.getPrice());
+        assertEquals(10, updated.getStock());
+        assertEquals("/uploads/plate.jpg", productRepository.findById(plate.getId()).orElseThrow().getImageUrl());
+
+        Product bowl = bySku("UP-BOWL").orElseThrow();
+        assertEquals(3.25, bowl.getPrice());
+        assertEquals(7, bowl.getStock());
+
+        // Both price changes of the batch in one event
+        assertEquals(1, priceChanges.events.size());
+        assertEquals(Set.of(mug.getId(), plate.getId()), Set.copyOf(priceChanges.events.get(0).getProductIds()));
+    }
+
+    @Test
+    void parsesQuotedFields() {
+        ProductImportStatusDTO status = importCsv(
+                "sku,name,price,stock,description\n" +
+                "\"Q-1\",\"Mug, large\",2.50,4,\"He said \"\"hi\"\"\"\n" +
+                "Q-2,\"\",1.00,1,\n");
+
+        assertEquals(1L, status.getInserted());
+        Product mug = bySku("Q-1").orElseThrow();
+        assertEquals("Mug, large", mug.getName());
+        assertEquals("He said \"hi\"", mug.getDescription());
+
+        // An empty quoted name is still a missing name
+        assertEquals(1L, status.getFailed());
+        assertEquals(3L, status.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void reportsBadRowsAndImportsTheRest() {
+        ProductImportStatusDTO status = importCsv(
+                "sku,name,price,stock\n" +
+                "BAD-1,Cup,abc,1\n" +
+                "BAD-2,Cup,1.0,-4\n" +
+                "\n" +
+                "BAD-3,Cup,1.0,2\n");
+
+        assertEquals(ProductImportService.COMPLETED, status.getStatus());
+        assertEquals(1L, status.getInserted());
+        assertEquals(2L, status.getFailed());
+        assertEquals(List.of(2L, 3L), status.getErrors().stream().map(ProductImportStatusDTO.RowError::getLine).toList());
+        assertTrue(bySku("BAD-1").isEmpty());
+    }
+
+    @Test
+    void feedStockIsNetOfReservationsAndCoversEscrow() {
+        Product reserved = product("HOLD-1", 4.0, 10);
+        jdbcTemplate.update("INSERT INTO stock_reservations (user_id, product_id, quantity, expires_at) VALUES (?, ?, ?, ?)",
+                1L, reserved.getId(), 3, Timestamp.valueOf(LocalDateTime.now().plusMinutes(10)));
+
+        Product escrowed = product("HOLD-2", 4.0, 10);
+        jdbcTemplate.update("UPDATE product SET hot_escrow = 8 WHERE id = ?", escrowed.getId());
+
+        ProductImportStatusDTO status = importCsv(
+                "sku,name,price,stock\n" +
+                "HOLD-1,Reserved,4.0,20\n" +
+                "HOLD-2,Escrowed,4.0,5\n");
+
+        // 20 on hand, 3 of them held: 17 left to sell, the 3 come back when the hold ends
+        assertEquals(17, productRepository.findById(reserved.getId()).orElseThrow().getStock());
+        assertEquals(1L, status.getUpdated());
+
+        // 5 on hand cannot cover 8 units in escrow: the row is refused and left as it was
+        assertEquals(1L, status.getFailed());
+        assertEquals("HOLD-2", status.getErrors().get(0).getSku());
+        Product unchanged = productRepository.findById(escrowed.getId()).orElseThrow();
+        assertEquals(10, unchanged.getStock());
+        assertEquals("Existing HOLD-2", unchanged.getName());
+    }
+
+    private ProductImportStatusDTO importCsv(String csv) {
+        try {
+            return importService.submit(new MockMultipartFile("file", "feed.csv", "text/csv",
+                    csv.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Optional<Product> bySku(String sku) {
+        return productRepository.findImportKeysBySku(List.of(sku)).stream()
+                .findFirst()
+                .flatMap(key -> productRepository.findById((Long) key[0]));
+    }
+
+    private Product product(String sku, double price, int stock) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Existing " + sku);
+        product.setPrice(price);
+        product.setStock(stock);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,154 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Search latency over a generated 100k-product catalog: exact, multi-word, prefix and misspelled queries.
+ * The latency test is tagged "benchmark" (mvn test -Pbenchmarks); its bounds are loose, to catch regressions
+ * by an order of magnitude rather than to fail on a slow machine.
+ */
+@Slf4j
+class ProductIndexBenchmarkTest {
+
+    private static final int PRODUCTS = 100_000;
+    private static final int WARMUP = 2_000;
+    private static final int QUERIES = 10_000;
+
+    private static final String[] BRANDS = {"acme", "nordic", "zenith", "orion", "vertex", "lumen", "atlas", "polar"};
+    private static final String[] ADJECTIVES = {"wireless", "compact", "premium", "classic", "portable", "ergonomic",
+            "vintage", "smart", "organic", "stainless", "leather", "bamboo"};
+    private static final String[] NOUNS = {"headphones", "keyboard", "backpack", "kettle", "lamp", "blender", "watch",
+            "speaker", "jacket", "notebook", "bottle", "chair", "camera", "charger", "mug", "sneakers"};
+
+    @Test
+    @Tag("benchmark")
+    void searchLatencyOn100kProducts() {
+        Random random = new Random(42);
+        String[] vocabulary = vocabulary(random, 5_000);
+
+        long buildStarted = System.nanoTime();
+        ProductIndex index = new ProductIndex();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            index.put(ProductIndex.analyze(id, name(random), description(random, vocabulary)));
+        }
+        log.info("product index: {} products built in {} ms", index.size(), (System.nanoTime() - buildStarted) / 1_000_000);
+        assertEquals(PRODUCTS, index.size());
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            queries.add(pick(random, NOUNS));                                   // exact, frequent
+            queries.add(pick(random, ADJECTIVES) + " " + pick(random, NOUNS));  // two words
+            queries.add(pick(random, BRANDS) + " " + pick(random, NOUNS).substring(0, 3)); // typing, prefix
+            queries.add(typo(pick(random, NOUNS), random));                     // misspelled
+            queries.add(pick(random, vocabulary));                              // rare description word
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            index.search(queries.get(i % queries.size()), 20);
+        }
+
+        long[] times = new long[QUERIES];
+        int withHits = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            long started = System.nanoTime();
+            List<ProductIndex.Hit> hits = index.search(queries.get(i % queries.size()), 20);
+            times[i] = System.nanoTime() - started;
+
+            assertTrue(hits.size() <= 20);
+            for (int h = 1; h < hits.size(); h++) {
+                assertTrue(hits.get(h - 1).score() >= hits.get(h).score());
+            }
+            if (!hits.isEmpty()) {
+                withHits++;
+            }
+        }
+        Arrays.sort(times);
+
+        double p50 = times[QUERIES / 2] / 1e6;
+        double p99 = times[QUERIES * 99 / 100] / 1e6;
+        log.info("product search over {} products: p50 {} ms, p99 {} ms, max {} ms, {} of {} queries with hits", PRODUCTS,
+                String.format("%.3f", p50), String.format("%.3f", p99), String.format("%.3f", times[QUERIES - 1] / 1e6),
+                withHits, QUERIES);
+
+        // Every generated query targets words that are in the catalog (typos within one edit)
+        assertTrue(withHits > QUERIES * 9 / 10, withHits + " of " + QUERIES + " queries found something");
+        assertTrue(p50 < 20, "p50 " + p50 + " ms");
+        assertTrue(p99 < 100, "p99 " + p99 + " ms");
+    }
+
+    @Test
+    void ranksExactPrefixAndTypoMatches() {
+        ProductIndex index = new ProductIndex();
+        index.put(ProductIndex.analyze(1, "Wireless Headphones", "Over-ear, noise cancelling"));
+        index.put(ProductIndex.analyze(2, "Headphone Stand", "Holds wireless headphones on your desk"));
+        index.put(ProductIndex.analyze(3, "Café Mug", "Ceramic mug for coffee"));
+        index.put(ProductIndex.analyze(4, "Keyboard", "Mechanical keyboard"));
+
+        // Name matches outrank description matches
+        assertEquals(List.of(1L, 2L), ids(index.search("wireless headphones", 10)));
+        // Last word as prefix, accents folded
+        assertEquals(List.of(3L), ids(index.search("cafe mu", 10)));
+        // One transposition
+        assertEquals(List.of(4L), ids(index.search("keybaord", 10)));
+        // AND: both words must match, whichever is rarer
+        assertTrue(index.search("mug keyboard", 10).isEmpty());
+        assertEquals(List.of(2L), ids(index.search("headphones stand", 10)));
+
+        index.put(ProductIndex.analyze(4, "Gaming Keyboard", "RGB"));
+        assertEquals(List.of(4L), ids(index.search("gaming", 10)));
+        index.remove(4);
+        assertTrue(index.search("keyboard", 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<ProductIndex.Hit> hits) {
+        return hits.stream().map(ProductIndex.Hit::productId).toList();
+    }
+
+    private static String name(Random random) {
+        return pick(random, BRANDS) + " " + pick(random, ADJECTIVES) + " " + pick(random, NOUNS) + " " + random.nextInt(1000);
+    }
+
+    private static String description(Random random, String[] vocabulary) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            description.append(pick(random, vocabulary)).append(' ');
+        }
+        return description.append(pick(random, NOUNS)).toString();
+    }
+
+    private static String[] vocabulary(Random random, int size) {
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static String typo(String word, Random random) {
+        int position = 1 + random.nextInt(word.length() - 2);
+        char[] chars = word.toCharArray();
+        char swapped = chars[position];
+        chars[position] = chars[position + 1];
+        chars[position + 1] = swapped;
+        return new String(chars);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,224 @@
+package com.ecommerce.ecommerce_backend.services;
+
+import com.ecommerce.ecommerce_backend.controller.ProductController;
+import com.ecommerce.ecommerce_backend.dto.ProductDeltaDTO;
+import com.ecommerce.ecommerce_backend.repository.ProductChangeRepository;
+import com.ecommerce.ecommerce_backend.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * GET /api/products/changes against a mocked change log: resuming from Last-Event-ID, the reset sent to clients
+ * too far behind, and deltas coalescing while a subscriber is still busy. Ticks are driven by the test;
+ * grace-seconds is 0, so event ids are the newest change read.
+ */
+class ProductStreamServiceTest {
+
+    private static final long LATEST = 100;
+
+    private ProductChangeRepository productChangeRepository;
+    private final Map<Long, ProductDeltaDTO> catalog = new HashMap<>();
+    private final QueuedExecutor executor = new QueuedExecutor();
+    private ProductStreamService streamService;
+    private MockMvc mockMvc;
+
+    /**
+     * Holds sends until the test runs them, so a subscriber can be kept busy between ticks.
+     */
+    private static class QueuedExecutor extends ThreadPoolTaskExecutor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                task.run();
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        productChangeRepository = mock(ProductChangeRepository.class);
+        when(productChangeRepository.findLatestVersion()).thenReturn(LATEST);
+        when(productChangeRepository.findOldestVersion()).thenReturn(1L);
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findDeltas(anyCollection())).thenAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            return ids.stream().map(catalog::get).filter(Objects::nonNull).toList();
+        });
+        for (long id = 1; id <= 9; id++) {
+            catalog.put(id, new ProductDeltaDTO(id, 10.0, 5, true));
+        }
+
+        streamService = new ProductStreamService();
+        ReflectionTestUtils.setField(streamService, "productChangeRepository", productChangeRepository);
+        ReflectionTestUtils.setField(streamService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(streamService, "streamExecutor", executor);
+        ReflectionTestUtils.setField(streamService, "graceSeconds", 0L);
+        ReflectionTestUtils.setField(streamService, "batchSize", 5000);
+        ReflectionTestUtils.setField(streamService, "maxCatchUp", 10000);
+        ReflectionTestUtils.setField(streamService, "maxPending", 5000);
+        ReflectionTestUtils.setField(streamService, "maxSubscribers", 100);
+        ReflectionTestUtils.setField(streamService, "heartbeatSeconds", 20L);
+        ReflectionTestUtils.setField(streamService, "timeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(streamService, "reconnectMillis", 3000L);
+        streamService.init();
+
+        ProductController controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "productStreamService", streamService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void resumesFromLastEventId() throws Exception {
+        when(productChangeRepository.findProductIdsAfterNewestFirst(eq(95L), any(Limit.class)))
+                .thenReturn(rows(100, 7, 98, 8, 96, 7));
+
+        MockHttpServletResponse response = subscribe("95");
+        streamService.tick();
+        executor.runAll();
+
+        List<Map<String, String>> events = events(response);
+        assertEquals(1, events.size());
+        assertEquals("changes", events.get(0).get("event"));
+        assertEquals(Long.toString(LATEST), events.get(0).get("id"));
+        // Products 7 and 8 changed after 95, product 7 once although it changed twice
+        String data = events.get(0).get("data");
+        assertEquals(2, count(data, "\"id\":"));
+        assertTrue(data.contains("\"id\":7") && data.contains("\"id\":8"), data);
+    }
+
+    @Test
+    void resetsClientsTooFarBehind() throws Exception {
+        ReflectionTestUtils.setField(streamService, "maxCatchUp", 2);
+        // One more row than max-catch-up: the catch-up does not fit
+        when(productChangeRepository.findProductIdsAfterNewestFirst(eq(90L), any(Limit.class)))
+                .thenReturn(rows(100, 1, 99, 2, 98, 3));
+        MockHttpServletResponse behind = subscribe("90");
+        streamService.tick();
+        executor.runAll();
+
+        // Rows after the client's version were already deleted from the log
+        when(productChangeRepository.findOldestVersion()).thenReturn(50L);
+        when(productChangeRepository.findProductIdsAfterNewestFirst(eq(10L), any(Limit.class)))
+                .thenReturn(rows(100, 1));
+        MockHttpServletResponse expired = subscribe("10");
+        streamService.tick();
+        executor.runAll();
+
+        for (MockHttpServletResponse response : List.of(behind, expired)) {
+            List<Map<String, String>> events = events(response);
+            assertEquals(1, events.size());
+            assertEquals("reset", events.get(0).get("event"));
+            assertEquals(Long.toString(LATEST), events.get(0).get("id"));
+        }
+    }
+
+    @Test
+    void coalescesDeltasWhileSubscriberIsBusy() throws Exception {
+        MockHttpServletResponse response = subscribe(null);
+        streamService.tick();
+        executor.runAll();
+        // Admitted: an empty "changes" event tells the client where it starts
+        assertEquals(1, events(response).size());
+
+        when(productChangeRepository.findProductIdsAfter(eq(LATEST), any(Limit.class)))
+                .thenReturn(rows(101, 7));
+        streamService.tick();
+
+        // The first send has not run yet when the next changes arrive
+        catalog.put(7L, new ProductDeltaDTO(7L, 12.0, 4, true));
+        when(productChangeRepository.findProductIdsAfter(eq(101L), any(Limit.class)))
+                .thenReturn(rows(102, 7, 103, 8));
+        streamService.tick();
+        executor.runAll();
+
+        List<Map<String, String>> events = events(response);
+        assertEquals(2, events.size());
+        Map<String, String> changes = events.get(1);
+        assertEquals("changes", changes.get("event"));
+        assertEquals("103", changes.get("id"));
+        String data = changes.get("data");
+        assertEquals(2, count(data, "\"id\":"));
+        // Product 7 once, at its newest price
+        assertTrue(data.contains("\"id\":7,\"price\":12.0"), data);
+        assertFalse(data.contains("\"id\":7,\"price\":10.0"), data);
+    }
+
+    private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+        var request = get("/api/products/changes");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    /**
+     * Events written so far, each as field -> value; comments (pings) and retry lines are left out.
+     */
+    private static List<Map<String, String>> events(MockHttpServletResponse response) throws Exception {
+        List<Map<String, String>> events = new ArrayList<>();
+        for (String block : response.getContentAsString().split("\n\n")) {
+            Map<String, String> event = new HashMap<>();
+            for (String line : block.split("\n")) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    event.merge(line.substring(0, colon), line.substring(colon + 1), (a, b) -> a + "\n" + b);
+                }
+            }
+            if (event.containsKey("event")) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Change log rows [id, productId], given as pairs.
+     */
+    private static List<Object[]> rows(long... idsAndProducts) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < idsAndProducts.length; i += 2) {
+            rows.add(new Object[]{idsAndProducts[i], idsAndProducts[i + 1]});
+        }
+        return rows;
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,167 @@
+package com.ecommerce.ecommerce_backend.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * One flash-sale item sold out by many threads at once. The sharded counter is refilled in chunks from a shared
+ * "product row" the way HotStockService claims escrow; some sales roll back and give their units back.
+ * Every unit must be sold exactly once. The throughput comparison against a single locked counter is tagged
+ * "benchmark" (mvn test -Pbenchmarks).
+ */
+@Slf4j
+class ShardedStockCounterTest {
+
+    private static final int THREADS = 32;
+    private static final long STOCK = 2_000_000;
+    private static final int REFILL = 500;
+
+    @Test
+    void sellsOutExactlyUnderContention() throws Exception {
+        ShardedStockCounter counter = new ShardedStockCounter(16);
+        AtomicLong productRow = new AtomicLong(STOCK);
+
+        long sold = sellOutSharded(counter, productRow);
+
+        // Sold out: nothing left anywhere, and never more than the stock
+        assertEquals(0, productRow.get());
+        assertTrue(counter.available() < 3, "leftover " + counter.available());
+        assertEquals(STOCK, sold + counter.available());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void outsellsASingleLock() throws Exception {
+        ShardedStockCounter counter = new ShardedStockCounter(16);
+        AtomicLong productRow = new AtomicLong(STOCK);
+        long started = System.nanoTime();
+        long sold = sellOutSharded(counter, productRow);
+        long shardedNanos = System.nanoTime() - started;
+
+        AtomicLong lockedStock = new AtomicLong(STOCK);
+        Object rowLock = new Object();
+        started = System.nanoTime();
+        long lockedSold = sellOut(() -> {
+            int quantity = 1 + ThreadLocalRandom.current().nextInt(3);
+            synchronized (rowLock) {
+                if (lockedStock.get() >= quantity) {
+                    lockedStock.addAndGet(-quantity);
+                    return quantity;
+                }
+                return lockedStock.get() == 0 ? -1 : 0;
+            }
+        });
+        long lockedNanos = System.nanoTime() - started;
+
+        double sharded = sold / (shardedNanos / 1e3);
+        double locked = lockedSold / (lockedNanos / 1e3);
+        log.info("{} threads selling {} units: sharded {} M units/s, single lock {} M units/s", THREADS, STOCK,
+                String.format("%.1f", sharded), String.format("%.1f", locked));
+        assertTrue(sharded > locked, "sharded " + sharded + " vs single lock " + locked + " M units/s");
+    }
+
+    @Test
+    void rebalancesFromOtherShards() {
+        ShardedStockCounter counter = new ShardedStockCounter(8);
+        // Everything lands on this thread's shard; another thread has to pull it over
+        counter.add(10);
+
+        Thread other = new Thread(() -> {
+            assertTrue(counter.tryTake(4));
+            assertTrue(counter.tryTake(6));
+            assertTrue(!counter.tryTake(1));
+        });
+        other.start();
+        try {
+            other.join();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        assertEquals(0, counter.available());
+    }
+
+    private static long sellOutSharded(ShardedStockCounter counter, AtomicLong productRow) throws Exception {
+        return sellOut(() -> {
+            int quantity = 1 + ThreadLocalRandom.current().nextInt(3);
+            if (counter.tryTake(quantity)) {
+                if (ThreadLocalRandom.current().nextInt(100) == 0) {
+                    counter.add(quantity); // checkout rolled back
+                    return 0;
+                }
+                return quantity;
+            }
+            synchronized (counter) {
+                if (counter.tryTake(quantity)) {
+                    return quantity;
+                }
+                long granted = claim(productRow, Math.max(REFILL, quantity));
+                counter.add(granted);
+                if (counter.tryTake(quantity)) {
+                    return quantity;
+                }
+                return granted == 0 && counter.available() == 0 ? -1 : 0;
+            }
+        });
+    }
+
+    private static long claim(AtomicLong productRow, long wanted) {
+        while (true) {
+            long free = productRow.get();
+            long granted = Math.min(free, wanted);
+            if (productRow.compareAndSet(free, free - granted)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Runs sale attempts on all threads until one returns -1 (sold out); returns the units sold.
+     */
+    private static long sellOut(Sale sale) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                long sold = 0;
+                int misses = 0;
+                while (misses < 1000) {
+                    long units = sale.attempt();
+                    if (units < 0) {
+                        break;
+                    }
+                    // 0 = nothing of the requested size left right now, retry a few times before giving up
+                    misses = units == 0 ? misses + 1 : 0;
+                    sold += units;
+                }
+                return sold;
+            }));
+        }
+        start.countDown();
+
+        long total = 0;
+        for (Future<Long> result : results) {
+            total += result.get();
+        }
+        pool.shutdown();
+        return total;
+    }
+
+    private interface Sale {
+        long attempt();
+    }
+}